@@ -0,0 +1,91 @@
+package mba.ivens.padoca.modules.usuarios.service;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import mba.ivens.padoca.modules.usuarios.model.CredenciaisUsuario;
+import mba.ivens.padoca.modules.usuarios.model.UsuarioAutenticado;
+import mba.ivens.padoca.modules.usuarios.model.enums.TipoUsuario;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo de validar o token de uma requisição autenticada, e de onde ele vem.
+ * <p>
+ * Os três primeiros comparam as formas de validar: um verificador novo a cada chamada (como era antes), o
+ * verificador compartilhado do {@link TokenService} sem cache, e o cache de tokens já verificados. Os demais
+ * separam as etapas: decodificar o token (Base64 e JSON), conferir a assinatura HMAC e calcular um SHA-256
+ * do token, a chave que o cache usava.
+ * <p>
+ * Fora dos testes; para rodar: {@code mvn -Pbenchmarks -DskipTests test-compile exec:exec}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenServiceBenchmark {
+
+    private static final String SEGREDO = "segredo-do-benchmark";
+
+    private TokenService semCache;
+    private TokenService comCache;
+    private Algorithm algorithm;
+    private String token;
+    private DecodedJWT decodificado;
+
+    @Setup
+    public void setUp() {
+        semCache = new TokenService(SEGREDO, 0);
+        comCache = new TokenService(SEGREDO, 1024);
+        algorithm = Algorithm.HMAC256(SEGREDO);
+        token = comCache.gerarToken(new CredenciaisUsuario(42L, "gestor@padoca.com", "", TipoUsuario.GESTOR, true));
+        decodificado = JWT.decode(token);
+    }
+
+    @Benchmark
+    public DecodedJWT verificadorPorChamada() {
+        return JWT.require(Algorithm.HMAC256(SEGREDO)).withIssuer("padoca-api").build().verify(token);
+    }
+
+    @Benchmark
+    public Optional<UsuarioAutenticado> verificadorCompartilhado() {
+        return semCache.validarToken(token);
+    }
+
+    @Benchmark
+    public Optional<UsuarioAutenticado> cache() {
+        return comCache.validarToken(token);
+    }
+
+    @Benchmark
+    public DecodedJWT decodificar() {
+        return JWT.decode(token);
+    }
+
+    @Benchmark
+    public DecodedJWT assinatura() {
+        algorithm.verify(decodificado);
+        return decodificado;
+    }
+
+    @Benchmark
+    public byte[] sha256() throws NoSuchAlgorithmException {
+        return MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+    }
+}
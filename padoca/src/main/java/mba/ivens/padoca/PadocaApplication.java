@@ -2,8 +2,10 @@ package mba.ivens.padoca;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class PadocaApplication {
 
 	public static void main(String[] args) {
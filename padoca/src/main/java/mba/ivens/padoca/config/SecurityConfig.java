@@ -1,5 +1,6 @@
 package mba.ivens.padoca.config;
 
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -17,12 +18,16 @@ import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import java.util.List;
+import java.util.Set;
 
 @Configuration
 @EnableWebSecurity
 @RequiredArgsConstructor
 public class SecurityConfig {
 
+    // Streams SSE: o dispatch ASYNC que encerra a resposta não passa pelo SecurityFilter de novo
+    private static final Set<String> STREAMS_SSE = Set.of(SecurityFilter.STREAM_FILA, "/api/estoque/criticos/stream");
+
     private final SecurityFilter securityFilter;
 
     @Bean
@@ -32,6 +37,8 @@ public class SecurityConfig {
                 .csrf(csrf -> csrf.disable())
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(authorize -> authorize
+                        .requestMatchers(request -> request.getDispatcherType() == DispatcherType.ASYNC
+                                && STREAMS_SSE.contains(request.getServletPath())).permitAll()
                         .requestMatchers(HttpMethod.POST, "/api/auth/login").permitAll()
                         .requestMatchers(HttpMethod.POST, "/api/usuarios").permitAll()
                         .requestMatchers("/swagger-ui/**", "/v3/api-docs/**").permitAll()
@@ -42,11 +49,15 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.POST, "/api/categorias").hasAnyRole("GESTOR", "FUNCIONARIO", "ADMIN")
                         .requestMatchers(HttpMethod.PUT, "/api/categorias/**").hasAnyRole("GESTOR", "FUNCIONARIO", "ADMIN")
                         .requestMatchers(HttpMethod.DELETE, "/api/categorias/**").hasAnyRole("GESTOR", "ADMIN")
+                        .requestMatchers(HttpMethod.GET, "/api/produtos/cache/**").hasAnyRole("GESTOR", "ADMIN")
+                        .requestMatchers(HttpMethod.GET, "/api/produtos/*/custo").hasAnyRole("GESTOR", "ADMIN")
+                        .requestMatchers("/api/estoque/**").hasAnyRole("GESTOR", "ADMIN")
                         .requestMatchers(HttpMethod.POST, "/api/produtos").hasAnyRole("GESTOR", "FUNCIONARIO", "ADMIN")
                         .requestMatchers(HttpMethod.PUT, "/api/produtos/**").hasAnyRole("GESTOR", "FUNCIONARIO", "ADMIN")
                         .requestMatchers(HttpMethod.DELETE, "/api/produtos/**").hasAnyRole("GESTOR", "ADMIN")
                         .requestMatchers("/api/usuarios/admin/**").hasRole("GESTOR")
                         .requestMatchers(HttpMethod.GET, "/api/feedbacks").hasAnyAuthority("GESTOR", "ADMIN", "ROLE_GESTOR", "ROLE_ADMIN")
+                        .requestMatchers(HttpMethod.GET, "/api/feedbacks/**").hasAnyRole("GESTOR", "ADMIN")
                         .anyRequest().authenticated()
                 )
                 .addFilterBefore(securityFilter, UsernamePasswordAuthenticationFilter.class)
@@ -6,7 +6,10 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import mba.ivens.padoca.modules.usuarios.repository.UsuarioRepository;
+import mba.ivens.padoca.modules.usuarios.service.TicketStreamService;
 import mba.ivens.padoca.modules.usuarios.service.TokenService;
+import mba.ivens.padoca.modules.usuarios.service.UsuarioAtivoCache;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -19,33 +22,57 @@ import java.io.IOException;
 @RequiredArgsConstructor
 public class SecurityFilter extends OncePerRequestFilter {
 
+    // Único endpoint aberto por EventSource no navegador, que não envia cabeçalhos
+    static final String STREAM_FILA = "/api/pedidos/stream";
+
     private final TokenService tokenService;
+    private final TicketStreamService ticketStreamService;
     private final UsuarioRepository usuarioRepository;
+    private final UsuarioAtivoCache usuarioAtivoCache;
+
+    // Com stateless=false volta ao modo antigo: carrega o Usuario do banco a cada requisição
+    @Value("${api.security.auth.stateless:true}")
+    private boolean stateless;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
         var token = this.recoverToken(request);
         if (token != null) {
-            var login = tokenService.validateToken(token);
-
-            if (!login.isEmpty()) {
-                UserDetails user = usuarioRepository.findByEmail(login).orElse(null);
-
-                if (user != null) {
-                    System.out.println(">>> USUÁRIO AUTENTICADO: " + login);
-                    System.out.println(">>> AUTHORITIES CARREGADAS: " + user.getAuthorities());
-
-                    var authentication = new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
-                    SecurityContextHolder.getContext().setAuthentication(authentication);
-                }
+            if (stateless) {
+                autenticarPeloToken(token);
+            } else {
+                autenticarPeloBanco(token);
             }
+        } else if (request.getParameter("ticket") != null
+                && request.getRequestURI().equals(request.getContextPath() + STREAM_FILA)) {
+            ticketStreamService.resgatar(request.getParameter("ticket"))
+                    .ifPresent(SecurityContextHolder.getContext()::setAuthentication);
         }
         filterChain.doFilter(request, response);
     }
 
+    private void autenticarPeloToken(String token) {
+        tokenService.validarToken(token)
+                .filter(usuario -> usuarioAtivoCache.estaAtivo(usuario.id()))
+                .ifPresent(usuario -> SecurityContextHolder.getContext().setAuthentication(
+                        new UsernamePasswordAuthenticationToken(usuario, null, usuario.authorities())));
+    }
+
+    private void autenticarPeloBanco(String token) {
+        var login = tokenService.validateToken(token);
+        if (login.isEmpty()) {
+            return;
+        }
+        UserDetails user = usuarioRepository.findCredenciaisByEmail(login).orElse(null);
+        if (user != null) {
+            var authentication = new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+            SecurityContextHolder.getContext().setAuthentication(authentication);
+        }
+    }
+
     private String recoverToken(HttpServletRequest request) {
         var authHeader = request.getHeader("Authorization");
         if (authHeader == null) return null;
         return authHeader.replace("Bearer ", "");
     }
-}
\ No newline at end of file
+}
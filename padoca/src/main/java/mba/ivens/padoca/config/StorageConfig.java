@@ -1,6 +1,7 @@
 package mba.ivens.padoca.config;
 
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
@@ -9,7 +10,9 @@ public class StorageConfig implements WebMvcConfigurer {
 
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        // Nomes por hash são servidos pelo UploadController; aqui ficam só os arquivos antigos, revalidados a cada uso
         registry.addResourceHandler("/uploads/**")
-                .addResourceLocations("file:./uploads/");
+                .addResourceLocations("file:./uploads/")
+                .setCacheControl(CacheControl.noCache());
     }
 }
\ No newline at end of file
@@ -5,10 +5,14 @@ import jakarta.servlet.http.HttpServletRequest;
 import mba.ivens.padoca.config.exception.exeption.BusinessException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
@@ -36,6 +40,24 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(apiError);
     }
 
+    @ExceptionHandler({MissingServletRequestParameterException.class, MethodArgumentTypeMismatchException.class,
+            HttpMessageNotReadableException.class})
+    public ResponseEntity<ApiErrorDTO> handleBadRequest(Exception ex, HttpServletRequest request) {
+        ApiErrorDTO apiError = new ApiErrorDTO(
+                LocalDateTime.now(),
+                HttpStatus.BAD_REQUEST.value(),
+                "Requisição Inválida",
+                ex instanceof MethodArgumentTypeMismatchException m
+                        ? "Valor inválido para o parâmetro '" + m.getName() + "'."
+                        : ex instanceof MissingServletRequestParameterException m
+                        ? "Parâmetro obrigatório ausente: '" + m.getParameterName() + "'."
+                        : "Corpo da requisição inválido.",
+                request.getRequestURI(),
+                null
+        );
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(apiError);
+    }
+
     @ExceptionHandler(BusinessException.class)
     public ResponseEntity<ApiErrorDTO> handleBusinessRules(BusinessException ex, HttpServletRequest request) {
         ApiErrorDTO apiError = new ApiErrorDTO(
@@ -62,6 +84,19 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(apiError);
     }
 
+    @ExceptionHandler(MaxUploadSizeExceededException.class)
+    public ResponseEntity<ApiErrorDTO> handleUploadTooLarge(MaxUploadSizeExceededException ex, HttpServletRequest request) {
+        ApiErrorDTO apiError = new ApiErrorDTO(
+                LocalDateTime.now(),
+                HttpStatus.PAYLOAD_TOO_LARGE.value(),
+                "Arquivo Muito Grande",
+                "O arquivo enviado excede o tamanho máximo permitido.",
+                request.getRequestURI(),
+                null
+        );
+        return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(apiError);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ApiErrorDTO> handleGenericException(Exception ex, HttpServletRequest request) {
         ex.printStackTrace();
@@ -0,0 +1,85 @@
+package mba.ivens.padoca.config.pagination;
+
+import mba.ivens.padoca.config.exception.exeption.BusinessException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Codifica a chave da última linha entregue (ex.: nome + id) em um token opaco base64url.
+ * O cliente só devolve o token; o formato interno pode mudar sem quebrar a API.
+ */
+public final class Cursor {
+
+    public static final int LIMITE_PADRAO = 20;
+    public static final int LIMITE_MAXIMO = 100;
+
+    private static final String SEPARADOR = "\u001F";
+
+    private Cursor() {}
+
+    public static String codificar(Object... valores) {
+        var partes = new String[valores.length];
+        for (int i = 0; i < valores.length; i++) {
+            partes[i] = String.valueOf(valores[i]);
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(String.join(SEPARADOR, partes).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Chave decodificar(String cursor, int quantidadePartes) {
+        try {
+            String texto = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] partes = texto.split(SEPARADOR, -1);
+            if (partes.length != quantidadePartes) {
+                throw new BusinessException("Cursor inválido.");
+            }
+            return new Chave(partes);
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException("Cursor inválido.");
+        }
+    }
+
+    /** Valores decodificados do cursor; um valor adulterado vira erro de negócio, não 500. */
+    public record Chave(String[] partes) {
+
+        public String texto(int i) {
+            return partes[i];
+        }
+
+        public Long numero(int i) {
+            try {
+                return Long.valueOf(partes[i]);
+            } catch (NumberFormatException e) {
+                throw new BusinessException("Cursor inválido.");
+            }
+        }
+
+        public LocalDateTime dataHora(int i) {
+            try {
+                return LocalDateTime.parse(partes[i]);
+            } catch (DateTimeException e) {
+                throw new BusinessException("Cursor inválido.");
+            }
+        }
+    }
+
+    public static int limitar(int limite) {
+        return Math.max(1, Math.min(limite, LIMITE_MAXIMO));
+    }
+
+    /**
+     * Monta a página a partir de uma consulta feita com {@code limite + 1} linhas: a linha extra só indica que há mais.
+     */
+    public static <E, T> CursorPageDTO<T> pagina(List<E> linhas, int limite, Function<E, String> cursorDe,
+                                                 Function<E, T> mapear, Long total) {
+        boolean temMais = linhas.size() > limite;
+        List<E> pagina = temMais ? linhas.subList(0, limite) : linhas;
+        String proximo = temMais ? cursorDe.apply(pagina.get(pagina.size() - 1)) : null;
+        return new CursorPageDTO<>(pagina.stream().map(mapear).toList(), proximo, temMais, total);
+    }
+}
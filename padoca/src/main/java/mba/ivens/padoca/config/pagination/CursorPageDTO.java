@@ -0,0 +1,14 @@
+package mba.ivens.padoca.config.pagination;
+
+import java.util.List;
+
+/**
+ * Página de uma listagem por cursor (keyset). {@code proximoCursor} é nulo na última página;
+ * {@code total} só é preenchido quando pedido explicitamente, pois exige um COUNT.
+ */
+public record CursorPageDTO<T>(
+        List<T> itens,
+        String proximoCursor,
+        boolean temMais,
+        Long total
+) {}
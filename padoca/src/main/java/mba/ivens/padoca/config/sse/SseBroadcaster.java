@@ -0,0 +1,191 @@
+package mba.ivens.padoca.config.sse;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Fan-out em memória de eventos Server-Sent Events.
+ * <p>
+ * Cada assinante tem uma fila limitada drenada por uma virtual thread própria: um cliente lento
+ * que enche a fila é desconectado (e retoma pelo Last-Event-ID) em vez de fazer o heap crescer.
+ * Os últimos eventos ficam num histórico circular para permitir a retomada sem novo snapshot.
+ */
+@Slf4j
+public class SseBroadcaster {
+
+    private static final String HEARTBEAT = "__heartbeat__";
+
+    private final String nome;
+    private final int capacidadePorAssinante;
+    private final int tamanhoHistorico;
+    private final long timeoutMillis;
+
+    private final Object lock = new Object();
+    private final Deque<Evento> historico = new ArrayDeque<>();
+    private final Set<Assinante> assinantes = ConcurrentHashMap.newKeySet();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    // Ids partem do instante de boot: um Last-Event-ID de antes de um restart nunca é confundido com um atual
+    private long sequencia = System.currentTimeMillis() * 1000;
+
+    public SseBroadcaster(String nome, int capacidadePorAssinante, int tamanhoHistorico, long timeoutMillis) {
+        this.nome = nome;
+        this.capacidadePorAssinante = capacidadePorAssinante;
+        this.tamanhoHistorico = tamanhoHistorico;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    private record Evento(long id, String nome, Supplier<Object> dados) {}
+
+    public void publicar(String nomeEvento, Object dados) {
+        synchronized (lock) {
+            Evento evento = new Evento(++sequencia, nomeEvento, () -> dados);
+            historico.addLast(evento);
+            if (historico.size() > tamanhoHistorico) {
+                historico.removeFirst();
+            }
+            assinantes.forEach(a -> a.enfileirar(evento));
+        }
+    }
+
+    /**
+     * Registra um novo assinante. Se o {@code lastEventId} ainda estiver no histórico, reenvia apenas
+     * os eventos posteriores; caso contrário envia o snapshot, calculado só no momento do envio.
+     */
+    public SseEmitter assinar(String lastEventId, String nomeSnapshot, Supplier<Object> snapshot) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Assinante assinante = new Assinante(emitter);
+        emitter.onCompletion(() -> assinantes.remove(assinante));
+        emitter.onTimeout(assinante::encerrar);
+        emitter.onError(erro -> assinante.encerrar());
+
+        synchronized (lock) {
+            Long ultimoRecebido = parseId(lastEventId);
+            Evento primeiro = historico.peekFirst();
+            boolean retomavel = ultimoRecebido != null && ultimoRecebido <= sequencia
+                    && (primeiro == null ? ultimoRecebido == sequencia : primeiro.id() <= ultimoRecebido + 1);
+
+            if (retomavel) {
+                historico.stream()
+                        .filter(e -> e.id() > ultimoRecebido)
+                        .forEach(assinante::enfileirar);
+            } else {
+                assinante.enfileirar(new Evento(sequencia, nomeSnapshot, snapshot));
+            }
+            assinantes.add(assinante);
+        }
+        return emitter;
+    }
+
+    /** Comentário periódico para manter proxies abertos e detectar conexões mortas. */
+    public void enviarHeartbeat() {
+        Evento heartbeat = new Evento(0, HEARTBEAT, () -> null);
+        assinantes.forEach(a -> a.enfileirar(heartbeat));
+    }
+
+    public int totalAssinantes() {
+        return assinantes.size();
+    }
+
+    public void encerrar() {
+        assinantes.forEach(Assinante::encerrar);
+        executor.shutdownNow();
+    }
+
+    private static Long parseId(String id) {
+        if (id == null || id.isBlank()) return null;
+        try {
+            return Long.parseLong(id.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private final class Assinante {
+        private final SseEmitter emitter;
+        private final BlockingQueue<Evento> fila = new ArrayBlockingQueue<>(capacidadePorAssinante);
+        private final AtomicBoolean drenando = new AtomicBoolean();
+        private volatile boolean ativo = true;
+
+        private Assinante(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void enfileirar(Evento evento) {
+            if (!ativo) return;
+            if (!fila.offer(evento)) {
+                log.warn("Assinante SSE '{}' lento demais, desconectando ({} eventos pendentes)", nome, fila.size());
+                encerrar();
+                return;
+            }
+            agendar();
+        }
+
+        private void agendar() {
+            if (drenando.compareAndSet(false, true)) {
+                executor.execute(this::drenar);
+            }
+        }
+
+        private void drenar() {
+            try {
+                Evento evento;
+                while (ativo && (evento = fila.poll()) != null) {
+                    enviar(evento);
+                }
+            } catch (IOException | IllegalStateException e) {
+                encerrar();
+            } catch (RuntimeException e) {
+                // Falha ao montar o snapshot: o cliente recebe o erro e reconecta, em vez de ficar sem dados
+                log.warn("Falha ao enviar evento SSE '{}', desconectando assinante", nome, e);
+                encerrar(e);
+            } finally {
+                drenando.set(false);
+            }
+            if (ativo && !fila.isEmpty()) {
+                agendar();
+            }
+        }
+
+        private void enviar(Evento evento) throws IOException {
+            if (HEARTBEAT.equals(evento.nome())) {
+                emitter.send(SseEmitter.event().comment("ping"));
+                return;
+            }
+            emitter.send(SseEmitter.event()
+                    .id(String.valueOf(evento.id()))
+                    .name(evento.nome())
+                    .data(evento.dados().get()));
+        }
+
+        void encerrar() {
+            encerrar(null);
+        }
+
+        void encerrar(Throwable erro) {
+            ativo = false;
+            assinantes.remove(this);
+            fila.clear();
+            try {
+                if (erro == null) {
+                    emitter.complete();
+                } else {
+                    emitter.completeWithError(erro);
+                }
+            } catch (IllegalStateException ignored) {
+                // emitter já finalizado
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package mba.ivens.padoca.config.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+
+/** Arquivos no disco da própria instância. Só serve para uma instância ou com diretório compartilhado. */
+@Component
+@ConditionalOnProperty(name = "padoca.storage.tipo", havingValue = "local", matchIfMissing = true)
+public class LocalStorageProvider implements StorageProvider {
+
+    private final Path raiz;
+
+    public LocalStorageProvider(@Value("${padoca.storage.local.diretorio:uploads}") String diretorio) {
+        this.raiz = Paths.get(diretorio);
+    }
+
+    @Override
+    public void gravar(String chave, Path origem, String contentType) throws IOException {
+        Files.createDirectories(raiz);
+        // Move para o lado e renomeia: quem já recebeu a URL nunca lê um arquivo pela metade. No mesmo disco o
+        // primeiro move também é só um rename; em outro, o próprio Files.move copia e apaga a origem
+        Path parcial = raiz.resolve("." + UUID.randomUUID() + ".parcial");
+        try {
+            Files.move(origem, parcial);
+            Files.move(parcial, resolver(chave), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(parcial);
+        }
+    }
+
+    @Override
+    public boolean existe(String chave) {
+        return Files.isRegularFile(resolver(chave));
+    }
+
+    @Override
+    public InputStream abrir(String chave) throws IOException {
+        return Files.newInputStream(resolver(chave));
+    }
+
+    @Override
+    public Leitura leitura(String chave) {
+        return new ArquivoLocal(resolver(chave));
+    }
+
+    private Path resolver(String chave) {
+        return raiz.resolve(Paths.get(chave).getFileName().toString());
+    }
+}
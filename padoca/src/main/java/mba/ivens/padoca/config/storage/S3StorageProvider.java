@@ -0,0 +1,185 @@
+package mba.ivens.padoca.config.storage;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Object store compatível com S3 (AWS, MinIO, R2...). Os objetos são gravados com cache imutável e o
+ * navegador os lê direto do bucket, por URL pré-assinada ou pela {@code url-publica} (CDN/bucket público):
+ * os bytes das imagens não passam pela aplicação.
+ * <p>
+ * Arquivos maiores que {@code tamanho-parte} vão em multipart upload, uma parte mapeada do arquivo
+ * temporário por vez, sem carregar o arquivo inteiro na memória.
+ */
+@Component
+@ConditionalOnProperty(name = "padoca.storage.tipo", havingValue = "s3")
+public class S3StorageProvider implements StorageProvider {
+
+    private static final String CACHE_IMUTAVEL = "public, max-age=31536000, immutable";
+
+    private final S3Client s3;
+    private final S3Presigner presigner;
+    private final String bucket;
+    private final String prefixo;
+    private final String urlPublica;
+    private final Duration validadeUrl;
+    private final long tamanhoParte;
+
+    public S3StorageProvider(@Value("${padoca.storage.s3.bucket}") String bucket,
+                             @Value("${padoca.storage.s3.regiao:us-east-1}") String regiao,
+                             @Value("${padoca.storage.s3.endpoint:}") String endpoint,
+                             @Value("${padoca.storage.s3.access-key:}") String accessKey,
+                             @Value("${padoca.storage.s3.secret-key:}") String secretKey,
+                             @Value("${padoca.storage.s3.prefixo:uploads/}") String prefixo,
+                             @Value("${padoca.storage.s3.url-publica:}") String urlPublica,
+                             @Value("${padoca.storage.s3.validade-url:1h}") Duration validadeUrl,
+                             @Value("${padoca.storage.s3.tamanho-parte:8MB}") DataSize tamanhoParte) {
+        this.bucket = bucket;
+        this.prefixo = prefixo;
+        this.urlPublica = urlPublica.endsWith("/") ? urlPublica.substring(0, urlPublica.length() - 1) : urlPublica;
+        this.validadeUrl = validadeUrl;
+        // O S3 recusa partes menores que 5MB (exceto a última)
+        this.tamanhoParte = Math.max(tamanhoParte.toBytes(), DataSize.ofMegabytes(5).toBytes());
+
+        AwsCredentialsProvider credenciais = accessKey.isBlank()
+                ? DefaultCredentialsProvider.create()
+                : StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey));
+        // Endpoint próprio (MinIO e afins) costuma exigir path-style: http://host/bucket/chave
+        S3Configuration configuracao = S3Configuration.builder().pathStyleAccessEnabled(!endpoint.isBlank()).build();
+
+        var cliente = S3Client.builder().region(Region.of(regiao)).credentialsProvider(credenciais).serviceConfiguration(configuracao);
+        var assinador = S3Presigner.builder().region(Region.of(regiao)).credentialsProvider(credenciais).serviceConfiguration(configuracao);
+        if (!endpoint.isBlank()) {
+            cliente.endpointOverride(URI.create(endpoint));
+            assinador.endpointOverride(URI.create(endpoint));
+        }
+        this.s3 = cliente.build();
+        this.presigner = assinador.build();
+    }
+
+    @Override
+    public void gravar(String chave, Path origem, String contentType) throws IOException {
+        long tamanho = Files.size(origem);
+        try {
+            if (tamanho <= tamanhoParte) {
+                s3.putObject(b -> b.bucket(bucket).key(prefixo + chave).contentType(contentType).cacheControl(CACHE_IMUTAVEL),
+                        RequestBody.fromFile(origem));
+            } else {
+                gravarEmPartes(prefixo + chave, origem, tamanho, contentType);
+            }
+        } catch (SdkException e) {
+            throw new IOException("Falha ao gravar " + chave + " no object store: " + e.getMessage(), e);
+        }
+    }
+
+    private void gravarEmPartes(String chave, Path origem, long tamanho, String contentType) throws IOException {
+        String uploadId = s3.createMultipartUpload(b -> b.bucket(bucket).key(chave).contentType(contentType).cacheControl(CACHE_IMUTAVEL))
+                .uploadId();
+        try (FileChannel canal = FileChannel.open(origem)) {
+            List<CompletedPart> partes = new ArrayList<>();
+            for (long inicio = 0; inicio < tamanho; inicio += tamanhoParte) {
+                int numero = partes.size() + 1;
+                long quantidade = Math.min(tamanhoParte, tamanho - inicio);
+                ByteBuffer parte = canal.map(FileChannel.MapMode.READ_ONLY, inicio, quantidade);
+                // Cada tentativa (o SDK refaz em falhas) relê a parte do início
+                String etag = s3.uploadPart(b -> b.bucket(bucket).key(chave).uploadId(uploadId).partNumber(numero).contentLength(quantidade),
+                        RequestBody.fromContentProvider(() -> fluxo(parte.duplicate()), quantidade, contentType)).eTag();
+                partes.add(CompletedPart.builder().partNumber(numero).eTag(etag).build());
+            }
+            s3.completeMultipartUpload(b -> b.bucket(bucket).key(chave).uploadId(uploadId).multipartUpload(m -> m.parts(partes)));
+        } catch (IOException | RuntimeException e) {
+            s3.abortMultipartUpload(b -> b.bucket(bucket).key(chave).uploadId(uploadId));
+            throw e;
+        }
+    }
+
+    // Lê a parte mapeada direto do page cache, sem copiá-la para um array no heap
+    private static InputStream fluxo(ByteBuffer buffer) {
+        return new InputStream() {
+            @Override
+            public int read() {
+                return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+            }
+
+            @Override
+            public int read(byte[] destino, int inicio, int tamanho) {
+                if (!buffer.hasRemaining()) {
+                    return -1;
+                }
+                int lidos = Math.min(tamanho, buffer.remaining());
+                buffer.get(destino, inicio, lidos);
+                return lidos;
+            }
+        };
+    }
+
+    @Override
+    public boolean existe(String chave) throws IOException {
+        try {
+            s3.headObject(b -> b.bucket(bucket).key(prefixo + chave));
+            return true;
+        } catch (NoSuchKeyException e) {
+            return false;
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                return false;
+            }
+            throw new IOException("Falha ao consultar " + chave + " no object store: " + e.getMessage(), e);
+        } catch (SdkException e) {
+            throw new IOException("Falha ao consultar " + chave + " no object store: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public InputStream abrir(String chave) throws IOException {
+        try {
+            return s3.getObject(b -> b.bucket(bucket).key(prefixo + chave));
+        } catch (SdkException e) {
+            throw new IOException("Falha ao ler " + chave + " do object store: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Leitura leitura(String chave) {
+        if (!urlPublica.isEmpty()) {
+            return new Redirecionamento(URI.create(urlPublica + "/" + prefixo + chave), null);
+        }
+        URI url = URI.create(presigner.presignGetObject(p -> p
+                .signatureDuration(validadeUrl)
+                .getObjectRequest(g -> g.bucket(bucket).key(prefixo + chave))).url().toString());
+        return new Redirecionamento(url, validadeUrl);
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        presigner.close();
+        s3.close();
+    }
+}
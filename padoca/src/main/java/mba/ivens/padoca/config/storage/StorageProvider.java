@@ -0,0 +1,42 @@
+package mba.ivens.padoca.config.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Onde ficam os arquivos enviados (imagens dos produtos). A implementação é escolhida por
+ * {@code padoca.storage.tipo}: {@code local} (padrão, disco da instância) ou {@code s3} (object store
+ * compartilhado entre as instâncias).
+ * <p>
+ * As chaves são nomes de arquivo por hash de conteúdo: um objeto gravado nunca muda.
+ */
+public interface StorageProvider {
+
+    /**
+     * Grava o arquivo sob a chave. A implementação pode mover a origem em vez de copiá-la; se ainda existir,
+     * ela pode ser descartada pelo chamador em seguida.
+     */
+    void gravar(String chave, Path origem, String contentType) throws IOException;
+
+    boolean existe(String chave) throws IOException;
+
+    InputStream abrir(String chave) throws IOException;
+
+    /** Como entregar o objeto ao navegador. */
+    Leitura leitura(String chave);
+
+    sealed interface Leitura permits ArquivoLocal, Redirecionamento {}
+
+    /** A própria aplicação serve o arquivo do disco. */
+    record ArquivoLocal(Path caminho) implements Leitura {}
+
+    /**
+     * O navegador busca direto no object store.
+     *
+     * @param validade por quanto tempo a URL funciona; {@code null} quando não expira
+     */
+    record Redirecionamento(URI url, Duration validade) implements Leitura {}
+}
@@ -1,32 +1,58 @@
 package mba.ivens.padoca.modules.feedback.controller;
 
+import mba.ivens.padoca.config.pagination.CursorPageDTO;
 import mba.ivens.padoca.modules.feedback.dto.FeedbackDTO;
-import mba.ivens.padoca.modules.feedback.model.Feedback;
-import mba.ivens.padoca.modules.feedback.repository.FeedbackRepository;
+import mba.ivens.padoca.modules.feedback.dto.FeedbackEstatisticasDTO;
+import mba.ivens.padoca.modules.feedback.dto.FeedbackResponseDTO;
+import mba.ivens.padoca.modules.feedback.service.FeedbackEstatisticasService;
+import mba.ivens.padoca.modules.feedback.service.FeedbackService;
+import mba.ivens.padoca.modules.feedback.service.FeedbackService.FormatoExportacao;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.nio.charset.StandardCharsets;
 
 @RestController
 @RequestMapping("/api/feedbacks")
 public class FeedbackController {
 
     @Autowired
-    private FeedbackRepository repository;
+    private FeedbackService service;
+
+    @Autowired
+    private FeedbackEstatisticasService estatisticasService;
 
     @PostMapping
-    public ResponseEntity<Feedback> enviar(@RequestBody FeedbackDTO dto) {
-        Feedback f = new Feedback();
-        f.setCliente(dto.cliente());
-        f.setMensagem(dto.mensagem());
-        f.setAvaliacao(dto.avaliacao());
-        return ResponseEntity.ok(repository.save(f));
+    public ResponseEntity<FeedbackResponseDTO> enviar(@RequestBody FeedbackDTO dto) {
+        return ResponseEntity.ok(service.salvar(dto));
     }
 
+    // Mais recentes primeiro, paginado por cursor
     @GetMapping
-    public ResponseEntity<List<Feedback>> listar() {
-        return ResponseEntity.ok(repository.findAll());
+    public ResponseEntity<CursorPageDTO<FeedbackResponseDTO>> listar(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "false") boolean contar) {
+        return ResponseEntity.ok(service.listar(cursor, limit, contar));
+    }
+
+    // Médias e distribuição das notas, mantidas em memória; media7Dias e media30Dias são móveis, não por semana ou mês do calendário
+    @GetMapping("/estatisticas")
+    public ResponseEntity<FeedbackEstatisticasDTO> estatisticas() {
+        return ResponseEntity.ok(estatisticasService.estatisticas());
+    }
+
+    @GetMapping("/exportar")
+    public ResponseEntity<StreamingResponseBody> exportar(@RequestParam(defaultValue = "NDJSON") FormatoExportacao formato) {
+        boolean csv = formato == FormatoExportacao.CSV;
+        StreamingResponseBody corpo = saida -> service.exportar(formato, saida);
+        return ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8) : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"feedbacks." + (csv ? "csv" : "ndjson") + "\"")
+                .body(corpo);
     }
 }
@@ -0,0 +1,12 @@
+package mba.ivens.padoca.modules.feedback.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Map;
+
+public record FeedbackDiaDTO(
+        LocalDate data,
+        long quantidade,
+        BigDecimal media,
+        Map<Integer, Long> distribuicao
+) {}
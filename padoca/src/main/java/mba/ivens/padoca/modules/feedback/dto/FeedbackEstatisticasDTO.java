@@ -0,0 +1,14 @@
+package mba.ivens.padoca.modules.feedback.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+public record FeedbackEstatisticasDTO(
+        long total,
+        BigDecimal mediaGeral,
+        BigDecimal media7Dias,
+        BigDecimal media30Dias,
+        Map<Integer, Long> distribuicao,
+        List<FeedbackDiaDTO> ultimos30Dias
+) {}
@@ -0,0 +1,11 @@
+package mba.ivens.padoca.modules.feedback.dto;
+
+import java.time.LocalDateTime;
+
+public record FeedbackResponseDTO(
+        Long id,
+        String cliente,
+        String mensagem,
+        Integer avaliacao,
+        LocalDateTime dataHora
+) {}
@@ -1,10 +1,47 @@
 package mba.ivens.padoca.modules.feedback.repository;
 
+import jakarta.persistence.QueryHint;
+import mba.ivens.padoca.modules.feedback.dto.FeedbackResponseDTO;
 import mba.ivens.padoca.modules.feedback.model.Feedback;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface FeedbackRepository extends JpaRepository<Feedback, Long> {
-    List<Feedback> findAllByOrderByDataHoraDesc();
-}
\ No newline at end of file
+
+    @Query("SELECT f FROM Feedback f ORDER BY f.dataHora DESC, f.id DESC")
+    List<Feedback> findPagina(Limit limit);
+
+    @Query("""
+        SELECT f FROM Feedback f
+        WHERE (f.dataHora, f.id) < (:dataHora, :id)
+        ORDER BY f.dataHora DESC, f.id DESC
+    """)
+    List<Feedback> findPaginaApos(LocalDateTime dataHora, Long id, Limit limit);
+
+    // [nota, quantidade]
+    @Query("SELECT f.avaliacao, COUNT(f) FROM Feedback f WHERE f.avaliacao BETWEEN 1 AND 5 GROUP BY f.avaliacao")
+    List<Object[]> contarPorNota();
+
+    // [dia, nota, quantidade]
+    @Query("""
+        SELECT CAST(f.dataHora AS LocalDate), f.avaliacao, COUNT(f) FROM Feedback f
+        WHERE f.dataHora >= :inicio AND f.avaliacao BETWEEN 1 AND 5
+        GROUP BY CAST(f.dataHora AS LocalDate), f.avaliacao
+    """)
+    List<Object[]> contarPorDiaENota(LocalDateTime inicio);
+
+    // Projeção em DTO (nada fica no contexto de persistência) lida em blocos pelo cursor do driver
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("""
+        SELECT new mba.ivens.padoca.modules.feedback.dto.FeedbackResponseDTO(f.id, f.cliente, f.mensagem, f.avaliacao, f.dataHora)
+        FROM Feedback f ORDER BY f.dataHora DESC, f.id DESC
+    """)
+    Stream<FeedbackResponseDTO> streamTodos();
+}
@@ -0,0 +1,202 @@
+package mba.ivens.padoca.modules.feedback.service;
+
+import lombok.extern.slf4j.Slf4j;
+import mba.ivens.padoca.modules.feedback.dto.FeedbackDiaDTO;
+import mba.ivens.padoca.modules.feedback.dto.FeedbackEstatisticasDTO;
+import mba.ivens.padoca.modules.feedback.repository.FeedbackRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Contagem de avaliações (notas 1 a 5) por dia dos últimos 30 dias e no total, mantida a cada feedback salvo.
+ * Como a soma de uma nota é nota × contagem, médias e distribuições saem de no máximo 30 × 5 contadores,
+ * sem ler a tabela de feedbacks. É reconstruída a partir do banco na subida.
+ * <p>
+ * Como em {@code ContadoresVendasService}, a reconstrução lê o banco sem bloquear os registros: os feedbacks
+ * registrados enquanto ela consulta são gravados e reaplicados sobre a contagem nova.
+ */
+@Slf4j
+@Service
+public class FeedbackEstatisticasService {
+
+    static final int NOTA_MINIMA = 1;
+    static final int NOTA_MAXIMA = 5;
+    static final int DIAS_JANELA = 30;
+
+    private final FeedbackRepository repository;
+    private final Clock clock;
+
+    @Autowired
+    public FeedbackEstatisticasService(FeedbackRepository repository) {
+        this(repository, Clock.systemDefaultZone());
+    }
+
+    FeedbackEstatisticasService(FeedbackRepository repository, Clock clock) {
+        this.repository = repository;
+        this.clock = clock;
+    }
+
+    private volatile Contadores contadores = new Contadores();
+
+    // Registros: leitura; início e troca da reconstrução: escrita
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Feedbacks registrados durante a reconstrução em andamento; null fora dela
+    private Queue<Avaliacao> registradosNaReconstrucao;
+
+    private record Avaliacao(LocalDate dia, int nota) {}
+
+    private static final class Contadores {
+        private final LongAdder[] total = novasNotas();
+        private final Map<LocalDate, LongAdder[]> porDia = new ConcurrentHashMap<>();
+
+        void somar(LocalDate dia, int nota, long quantidade, LocalDate inicioJanela) {
+            total[nota - NOTA_MINIMA].add(quantidade);
+            if (!dia.isBefore(inicioJanela)) {
+                porDia.computeIfAbsent(dia, d -> novasNotas())[nota - NOTA_MINIMA].add(quantidade);
+            }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void reconstruir() {
+        Queue<Avaliacao> registrados = new ConcurrentLinkedQueue<>();
+        lock.writeLock().lock();
+        try {
+            registradosNaReconstrucao = registrados;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Contadores novos = new Contadores();
+        for (Object[] linha : repository.contarPorNota()) {
+            novos.total[((Number) linha[0]).intValue() - NOTA_MINIMA].add(((Number) linha[1]).longValue());
+        }
+        for (Object[] linha : repository.contarPorDiaENota(inicioJanela().atStartOfDay())) {
+            novos.porDia.computeIfAbsent((LocalDate) linha[0], d -> novasNotas())
+                    [((Number) linha[1]).intValue() - NOTA_MINIMA].add(((Number) linha[2]).longValue());
+        }
+
+        lock.writeLock().lock();
+        try {
+            registrados.forEach(a -> novos.somar(a.dia(), a.nota(), 1, inicioJanela()));
+            contadores = novos;
+            registradosNaReconstrucao = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Estatísticas de feedback reconstruídas: {} avaliações ({} reaplicadas)",
+                Arrays.stream(novos.total).mapToLong(LongAdder::sum).sum(), registrados.size());
+    }
+
+    /** Chamado após o feedback ser gravado. Sem nota válida, o feedback não entra nas estatísticas. */
+    public void registrar(Integer avaliacao, LocalDateTime dataHora) {
+        if (avaliacao == null || avaliacao < NOTA_MINIMA || avaliacao > NOTA_MAXIMA) {
+            return;
+        }
+        Avaliacao registro = new Avaliacao(dataHora.toLocalDate(), avaliacao);
+        lock.readLock().lock();
+        try {
+            contadores.somar(registro.dia(), registro.nota(), 1, inicioJanela());
+            Queue<Avaliacao> registrados = registradosNaReconstrucao;
+            if (registrados != null) {
+                registrados.add(registro);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * A média de 7 dias é móvel (hoje e os 6 dias anteriores), não a da semana do calendário; a de 30 dias,
+     * idem. Os dias que saem da janela deixam as médias móveis, mas continuam no total.
+     */
+    public FeedbackEstatisticasDTO estatisticas() {
+        Contadores atual = contadores;
+        LocalDate hoje = LocalDate.now(clock);
+        LocalDate inicio = inicioJanela();
+        atual.porDia.keySet().removeIf(dia -> dia.isBefore(inicio));
+
+        List<FeedbackDiaDTO> dias = new ArrayList<>(DIAS_JANELA);
+        long[] notas7 = new long[NOTA_MAXIMA];
+        long[] notas30 = new long[NOTA_MAXIMA];
+        for (LocalDate dia = inicio; !dia.isAfter(hoje); dia = dia.plusDays(1)) {
+            LongAdder[] contagem = atual.porDia.get(dia);
+            long[] notas = new long[NOTA_MAXIMA];
+            if (contagem != null) {
+                for (int i = 0; i < NOTA_MAXIMA; i++) {
+                    notas[i] = contagem[i].sum();
+                    notas30[i] += notas[i];
+                    if (dia.isAfter(hoje.minusDays(7))) {
+                        notas7[i] += notas[i];
+                    }
+                }
+            }
+            dias.add(new FeedbackDiaDTO(dia, quantidade(notas), media(notas), distribuicao(notas)));
+        }
+
+        long[] total = new long[NOTA_MAXIMA];
+        for (int i = 0; i < NOTA_MAXIMA; i++) {
+            total[i] = atual.total[i].sum();
+        }
+        return new FeedbackEstatisticasDTO(quantidade(total), media(total), media(notas7), media(notas30),
+                distribuicao(total), dias);
+    }
+
+    // Hoje mais os 29 dias anteriores
+    private LocalDate inicioJanela() {
+        return LocalDate.now(clock).minusDays(DIAS_JANELA - 1);
+    }
+
+    private static long quantidade(long[] notas) {
+        long soma = 0;
+        for (long n : notas) {
+            soma += n;
+        }
+        return soma;
+    }
+
+    private static BigDecimal media(long[] notas) {
+        long quantidade = 0;
+        long pontos = 0;
+        for (int i = 0; i < notas.length; i++) {
+            quantidade += notas[i];
+            pontos += notas[i] * (i + NOTA_MINIMA);
+        }
+        return quantidade == 0 ? null : BigDecimal.valueOf(pontos).divide(BigDecimal.valueOf(quantidade), 2, RoundingMode.HALF_UP);
+    }
+
+    private static Map<Integer, Long> distribuicao(long[] notas) {
+        Map<Integer, Long> mapa = new LinkedHashMap<>();
+        for (int i = 0; i < notas.length; i++) {
+            mapa.put(i + NOTA_MINIMA, notas[i]);
+        }
+        return mapa;
+    }
+
+    private static LongAdder[] novasNotas() {
+        LongAdder[] notas = new LongAdder[NOTA_MAXIMA];
+        for (int i = 0; i < notas.length; i++) {
+            notas[i] = new LongAdder();
+        }
+        return notas;
+    }
+}
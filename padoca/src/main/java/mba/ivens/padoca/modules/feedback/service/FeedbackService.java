@@ -1,29 +1,108 @@
 package mba.ivens.padoca.modules.feedback.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import mba.ivens.padoca.config.pagination.Cursor;
+import mba.ivens.padoca.config.pagination.CursorPageDTO;
 import mba.ivens.padoca.modules.feedback.dto.FeedbackDTO;
+import mba.ivens.padoca.modules.feedback.dto.FeedbackResponseDTO;
 import mba.ivens.padoca.modules.feedback.model.Feedback;
 import mba.ivens.padoca.modules.feedback.repository.FeedbackRepository;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class FeedbackService {
 
+    public enum FormatoExportacao { NDJSON, CSV }
+
     private final FeedbackRepository repository;
+    private final ObjectMapper objectMapper;
+    private final FeedbackEstatisticasService estatisticas;
 
-    public Feedback salvar(FeedbackDTO dto) {
+    public FeedbackResponseDTO salvar(FeedbackDTO dto) {
         Feedback feedback = new Feedback();
         feedback.setCliente(dto.cliente() != null ? dto.cliente() : "Anônimo");
         feedback.setMensagem(dto.mensagem());
         feedback.setAvaliacao(dto.avaliacao());
 
-        return repository.save(feedback);
+        Feedback salvo = repository.save(feedback);
+        estatisticas.registrar(salvo.getAvaliacao(), salvo.getDataHora());
+        return toResponse(salvo);
+    }
+
+    public CursorPageDTO<FeedbackResponseDTO> listar(String cursor, int limite, boolean contar) {
+        int limiteEfetivo = Cursor.limitar(limite);
+        Limit limit = Limit.of(limiteEfetivo + 1);
+
+        List<Feedback> feedbacks;
+        if (cursor == null) {
+            feedbacks = repository.findPagina(limit);
+        } else {
+            var chave = Cursor.decodificar(cursor, 2);
+            feedbacks = repository.findPaginaApos(chave.dataHora(0), chave.numero(1), limit);
+        }
+
+        return Cursor.pagina(feedbacks, limiteEfetivo,
+                f -> Cursor.codificar(f.getDataHora(), f.getId()),
+                this::toResponse,
+                contar ? repository.count() : null);
+    }
+
+    /**
+     * Escreve todos os feedbacks, do mais recente ao mais antigo, direto na saída. A transação mantém o
+     * cursor do banco aberto; a memória usada não depende do tamanho da tabela.
+     */
+    @Transactional
+    public void exportar(FormatoExportacao formato, OutputStream saida) {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8));
+        try (Stream<FeedbackResponseDTO> feedbacks = repository.streamTodos()) {
+            if (formato == FormatoExportacao.CSV) {
+                writer.write("id,cliente,avaliacao,dataHora,mensagem\n");
+            }
+            feedbacks.forEach(f -> escrever(writer, formato, f));
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void escrever(Writer writer, FormatoExportacao formato, FeedbackResponseDTO f) {
+        try {
+            if (formato == FormatoExportacao.NDJSON) {
+                writer.write(objectMapper.writeValueAsString(f));
+            } else {
+                writer.write(f.id() + "," + csv(f.cliente()) + "," + (f.avaliacao() != null ? f.avaliacao() : "")
+                        + "," + (f.dataHora() != null ? f.dataHora() : "") + "," + csv(f.mensagem()));
+            }
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Aspas sempre; texto iniciado por =, +, - ou @ é prefixado para não virar fórmula na planilha
+    private static String csv(String valor) {
+        if (valor == null) {
+            return "";
+        }
+        String texto = !valor.isEmpty() && "=+-@".indexOf(valor.charAt(0)) >= 0 ? "'" + valor : valor;
+        return "\"" + texto.replace("\"", "\"\"") + "\"";
     }
 
-    public List<Feedback> listarTodos() {
-        return repository.findAllByOrderByDataHoraDesc();
+    private FeedbackResponseDTO toResponse(Feedback f) {
+        return new FeedbackResponseDTO(f.getId(), f.getCliente(), f.getMensagem(), f.getAvaliacao(), f.getDataHora());
     }
 }
@@ -1,15 +1,28 @@
 package mba.ivens.padoca.modules.pedido.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import mba.ivens.padoca.config.pagination.CursorPageDTO;
 import mba.ivens.padoca.modules.pedido.dto.PedidoRequestDTO;
 import mba.ivens.padoca.modules.pedido.dto.PedidoResponseDTO;
+import mba.ivens.padoca.modules.pedido.dto.SincronizacaoFilaDTO;
+import mba.ivens.padoca.modules.pedido.model.enums.StatusPedido;
+import mba.ivens.padoca.modules.pedido.services.FilaPedidosStreamService;
+import mba.ivens.padoca.modules.pedido.services.IdempotenciaPedidoService;
+import mba.ivens.padoca.modules.pedido.services.PedidoLoteService;
 import mba.ivens.padoca.modules.pedido.services.PedidoService;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 @RestController
@@ -19,22 +32,87 @@ import java.util.List;
 public class PedidoController {
 
     private final PedidoService service;
+    private final FilaPedidosStreamService streamService;
+    private final IdempotenciaPedidoService idempotenciaService;
+    private final PedidoLoteService loteService;
 
     @GetMapping
     @Operation(summary = "Fila de Pedidos", description = "Lista pedidos em aberto para a cozinha/balcão.")
-    public ResponseEntity<List<PedidoResponseDTO>> listar() {
-        return ResponseEntity.ok(service.listarFilaCozinha());
+    public ResponseEntity<List<PedidoResponseDTO>> listar(
+            @Parameter(description = "Quantidade máxima de pedidos retornados (até 500)")
+            @RequestParam(defaultValue = "200") int limit) {
+        return ResponseEntity.ok(service.listarFilaCozinha(limit));
+    }
+
+    @GetMapping("/sincronizacao")
+    @Operation(summary = "Sincronização da Fila", description = "Sem cursor, retorna a fila em aberto e um cursor. Com o cursor recebido, retorna os pedidos alterados desde a consulta anterior, em qualquer status, e o cursor seguinte. Um mesmo pedido pode voltar em consultas seguidas; substitua-o pelo id.")
+    public ResponseEntity<SincronizacaoFilaDTO> sincronizar(
+            @Parameter(description = "Cursor opaco devolvido pela consulta anterior")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Quantidade máxima de pedidos retornados (até 500)")
+            @RequestParam(defaultValue = "200") int limit) {
+        return ResponseEntity.ok(service.sincronizarFila(cursor, limit));
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Fila de Pedidos em tempo real", description = "Server-Sent Events: envia um snapshot da fila ao conectar e depois os eventos 'pedido-criado' e 'status-avancado'. Aceita Last-Event-ID para retomar sem novo snapshot. Sem o cabeçalho Authorization (EventSource do navegador), conecte com ?ticket= obtido em POST /api/auth/stream-ticket.")
+    public SseEmitter stream(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+                             @Parameter(description = "Último id recebido, para quem reabre o EventSource e não pode enviar o cabeçalho Last-Event-ID")
+                             @RequestParam(value = "lastEventId", required = false) String lastEventIdParam) {
+        return streamService.assinar(lastEventId != null ? lastEventId : lastEventIdParam);
+    }
+
+    @GetMapping("/historico")
+    @Operation(summary = "Histórico de Pedidos", description = "Todos os pedidos, do mais recente ao mais antigo, paginados por cursor. Envie o 'proximoCursor' recebido para obter a página seguinte.")
+    public ResponseEntity<CursorPageDTO<PedidoResponseDTO>> historico(
+            @Parameter(description = "Cursor opaco devolvido pela página anterior")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Itens por página (até 100)")
+            @RequestParam(defaultValue = "20") int limit,
+            @Parameter(description = "Inclui o total de pedidos. Executa um COUNT sobre a tabela inteira: peça só na primeira página")
+            @RequestParam(defaultValue = "false") boolean contar) {
+        return ResponseEntity.ok(service.listarHistorico(cursor, limit, contar));
     }
 
     @PostMapping
-    @Operation(summary = "Novo Pedido", description = "Registra uma venda.")
-    public ResponseEntity<PedidoResponseDTO> criar(@RequestBody @Valid PedidoRequestDTO dto) {
-        return ResponseEntity.status(201).body(service.criar(dto));
+    @Operation(summary = "Novo Pedido", description = "Registra uma venda. Com Idempotency-Key, reenvios da mesma requisição devolvem o pedido original (cabeçalho Idempotent-Replayed: true) sem criar outro; a mesma chave com outro corpo retorna 409.")
+    public ResponseEntity<PedidoResponseDTO> criar(
+            @RequestBody @Valid PedidoRequestDTO dto,
+            @Parameter(description = "Chave única por venda (até 64 caracteres), repetida em reenvios")
+            @RequestHeader(value = "Idempotency-Key", required = false) String chave) {
+        IdempotenciaPedidoService.Resultado resultado = idempotenciaService.criar(chave, dto);
+        return ResponseEntity.status(201)
+                .header("Idempotent-Replayed", String.valueOf(resultado.repetido()))
+                .body(resultado.pedido());
+    }
+
+    @PostMapping(value = "/lote", consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Importar Pedidos em Lote", description = "Recebe as vendas acumuladas offline em NDJSON, um pedido por linha com 'chave' opcional (Idempotency-Key da venda). Responde em NDJSON um resultado por linha (CRIADO, REPETIDO ou REJEITADO), na ordem do envio; reenviar o lote não duplica pedidos com chave.")
+    public void importarLote(InputStream corpo, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        loteService.importar(corpo, response.getOutputStream());
     }
 
     @PatchMapping("/{id}/avancar")
-    @Operation(summary = "Avançar Status", description = "Muda o status do pedido (Pendente -> Preparando -> Concluido).")
-    public ResponseEntity<PedidoResponseDTO> avancarStatus(@PathVariable Long id) {
-        return ResponseEntity.ok(service.avancarStatus(id));
+    @Operation(summary = "Avançar Status", description = "Muda o status do pedido (Pendente -> Preparando -> Pronto -> [Em entrega] -> Concluido). Retorna 409 se o pedido não estiver mais no status 'de'; reenvios com a mesma Idempotency-Key devolvem o pedido sem avançar de novo.")
+    public ResponseEntity<PedidoResponseDTO> avancarStatus(
+            @PathVariable Long id,
+            @Parameter(description = "Status exibido no tablet no momento do toque")
+            @RequestParam StatusPedido de,
+            @Parameter(description = "Chave única por toque (até 64 caracteres), repetida em reenvios")
+            @RequestHeader(value = "Idempotency-Key", required = false) String chave) {
+        return ResponseEntity.ok(service.avancarStatus(id, de, chave));
+    }
+
+    @PatchMapping("/{id}/cancelar")
+    @Operation(summary = "Cancelar Pedido", description = "Cancela um pedido em aberto e devolve os itens ao estoque. Mesmas regras de 'de' e Idempotency-Key do avanço.")
+    public ResponseEntity<PedidoResponseDTO> cancelar(
+            @PathVariable Long id,
+            @Parameter(description = "Status exibido no tablet no momento do toque")
+            @RequestParam StatusPedido de,
+            @Parameter(description = "Chave única por toque (até 64 caracteres), repetida em reenvios")
+            @RequestHeader(value = "Idempotency-Key", required = false) String chave) {
+        return ResponseEntity.ok(service.cancelar(id, de, chave));
     }
 }
\ No newline at end of file
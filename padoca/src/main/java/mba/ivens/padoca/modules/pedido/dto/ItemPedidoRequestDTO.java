@@ -5,5 +5,5 @@ import jakarta.validation.constraints.NotNull;
 
 public record ItemPedidoRequestDTO(
         @NotNull Long produtoId,
-        @Min(1) Integer quantidade
+        @NotNull @Min(1) Integer quantidade
 ) {}
\ No newline at end of file
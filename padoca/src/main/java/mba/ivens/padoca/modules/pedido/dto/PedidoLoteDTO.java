@@ -0,0 +1,18 @@
+package mba.ivens.padoca.modules.pedido.dto;
+
+import mba.ivens.padoca.modules.pedido.model.enums.TipoPedido;
+
+import java.util.List;
+
+/** Uma linha do NDJSON de importação: o pedido e a Idempotency-Key opcional da venda no terminal. */
+public record PedidoLoteDTO(
+        String chave,
+        String cliente,
+        TipoPedido tipo,
+        List<ItemPedidoRequestDTO> itens
+) {
+
+    public PedidoRequestDTO pedido() {
+        return new PedidoRequestDTO(cliente, tipo, itens);
+    }
+}
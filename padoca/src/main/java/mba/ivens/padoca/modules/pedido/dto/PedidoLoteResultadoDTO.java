@@ -0,0 +1,25 @@
+package mba.ivens.padoca.modules.pedido.dto;
+
+/** Resultado de uma linha do lote, na mesma ordem do envio. {@code linha} começa em 1. */
+public record PedidoLoteResultadoDTO(
+        int linha,
+        String chave,
+        Situacao situacao,
+        Long pedidoId,
+        String mensagem
+) {
+
+    public enum Situacao { CRIADO, REPETIDO, REJEITADO }
+
+    public static PedidoLoteResultadoDTO criado(int linha, String chave, Long pedidoId) {
+        return new PedidoLoteResultadoDTO(linha, chave, Situacao.CRIADO, pedidoId, null);
+    }
+
+    public static PedidoLoteResultadoDTO repetido(int linha, String chave, Long pedidoId) {
+        return new PedidoLoteResultadoDTO(linha, chave, Situacao.REPETIDO, pedidoId, null);
+    }
+
+    public static PedidoLoteResultadoDTO rejeitado(int linha, String chave, String mensagem) {
+        return new PedidoLoteResultadoDTO(linha, chave, Situacao.REJEITADO, null, mensagem);
+    }
+}
@@ -1,11 +1,15 @@
 package mba.ivens.padoca.modules.pedido.dto;
 
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import mba.ivens.padoca.modules.pedido.model.enums.TipoPedido;
+
 import java.util.List;
 
 public record PedidoRequestDTO(
         @NotBlank String cliente,
-        @NotBlank String tipo, 
-        @NotEmpty List<ItemPedidoRequestDTO> itens
+        @NotNull TipoPedido tipo,
+        @NotEmpty List<@NotNull @Valid ItemPedidoRequestDTO> itens
 ) {}
@@ -1,7 +1,7 @@
 package mba.ivens.padoca.modules.pedido.dto;
 
 import java.math.BigDecimal;
-import java.time.format.DateTimeFormatter;
+import java.time.LocalDateTime;
 import java.util.List;
 
 public record PedidoResponseDTO(
@@ -11,5 +11,6 @@ public record PedidoResponseDTO(
         String tipo,
         BigDecimal total,
         String dataHora,
-        List<String> descricaoItens 
+        List<String> descricaoItens,
+        LocalDateTime dataAtualizacao
 ) {}
\ No newline at end of file
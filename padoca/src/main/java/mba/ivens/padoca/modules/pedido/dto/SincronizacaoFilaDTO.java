@@ -0,0 +1,13 @@
+package mba.ivens.padoca.modules.pedido.dto;
+
+import java.util.List;
+
+/**
+ * Uma rodada da sincronização da fila. {@code cursor} é opaco e sempre preenchido: o tablet o devolve na
+ * próxima consulta em vez de calcular um instante a partir dos pedidos recebidos.
+ */
+public record SincronizacaoFilaDTO(
+        List<PedidoResponseDTO> itens,
+        String cursor,
+        boolean temMais
+) {}
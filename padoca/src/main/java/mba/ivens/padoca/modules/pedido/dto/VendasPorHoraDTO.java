@@ -0,0 +1,9 @@
+package mba.ivens.padoca.modules.pedido.dto;
+
+import java.math.BigDecimal;
+
+public record VendasPorHoraDTO(
+        int hora,
+        BigDecimal total,
+        long pedidos
+) {}
@@ -0,0 +1,45 @@
+package mba.ivens.padoca.modules.pedido.events;
+
+import mba.ivens.padoca.modules.pedido.dto.PedidoResponseDTO;
+import mba.ivens.padoca.modules.pedido.model.Pedido;
+import mba.ivens.padoca.modules.pedido.model.enums.StatusPedido;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Publicado pelo {@code PedidoService}; os ouvintes reagem somente após o commit da transação.
+ * {@code statusAnterior} é nulo na criação.
+ */
+public record PedidoEvento(
+        Tipo tipo,
+        StatusPedido statusAnterior,
+        StatusPedido statusAtual,
+        BigDecimal total,
+        LocalDateTime dataCriacao,
+        PedidoResponseDTO pedido
+) {
+
+    public static PedidoEvento criado(Pedido pedido, PedidoResponseDTO response) {
+        return new PedidoEvento(Tipo.CRIADO, null, pedido.getStatus(), pedido.getTotal(), pedido.getDataCriacao(), response);
+    }
+
+    public static PedidoEvento statusAlterado(StatusPedido anterior, Pedido pedido, PedidoResponseDTO response) {
+        return new PedidoEvento(Tipo.STATUS_AVANCADO, anterior, pedido.getStatus(), pedido.getTotal(), pedido.getDataCriacao(), response);
+    }
+
+    public enum Tipo {
+        CRIADO("pedido-criado"),
+        STATUS_AVANCADO("status-avancado");
+
+        private final String nomeEvento;
+
+        Tipo(String nomeEvento) {
+            this.nomeEvento = nomeEvento;
+        }
+
+        public String nomeEvento() {
+            return nomeEvento;
+        }
+    }
+}
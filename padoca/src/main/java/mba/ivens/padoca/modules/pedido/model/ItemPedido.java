@@ -6,6 +6,7 @@ import lombok.NoArgsConstructor;
 import mba.ivens.padoca.modules.produto.model.Produto;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "itens_pedido", schema = "vendas")
@@ -13,17 +14,22 @@ import java.math.BigDecimal;
 @NoArgsConstructor
 public class ItemPedido {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "itens_pedido_seq")
+    @SequenceGenerator(name = "itens_pedido_seq", schema = "vendas", sequenceName = "itens_pedido_seq", allocationSize = 50)
     private Long id;
 
+    // Sem FK no banco: as tabelas particionadas não a têm
     @ManyToOne
-    @JoinColumn(name = "pedido_id")
+    @JoinColumn(name = "pedido_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private Pedido pedido;
 
     @ManyToOne
     @JoinColumn(name = "produto_id")
     private Produto produto;
 
+    // Cópia da data de criação do pedido: é a chave de partição dos itens (ver db/particionamento/pedidos.sql)
+    private LocalDateTime dataPedido;
+
     private Integer quantidade;
     private BigDecimal precoUnitario; // Preço no momento da compra
 
@@ -4,6 +4,8 @@ import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import mba.ivens.padoca.modules.pedido.model.enums.StatusPedido;
+import mba.ivens.padoca.modules.pedido.model.enums.TipoPedido;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -15,8 +17,10 @@ import java.util.List;
 @Data
 @NoArgsConstructor
 public class Pedido {
+    // Sequence com alocação em bloco: o id é conhecido antes do INSERT, o que permite o batch JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pedidos_seq")
+    @SequenceGenerator(name = "pedidos_seq", schema = "vendas", sequenceName = "pedidos_seq", allocationSize = 50)
     private Long id;
 
     private String cliente; // Nome do cliente ou "Mesa 01"
@@ -24,12 +28,20 @@ public class Pedido {
     @Enumerated(EnumType.STRING)
     private StatusPedido status = StatusPedido.PENDENTE;
 
-    private String tipo; // "BALCAO", "ENTREGA"
+    @Enumerated(EnumType.STRING)
+    private TipoPedido tipo;
+
+    // Idempotency-Key da última transição aplicada: reenvios da mesma chave não avançam de novo
+    @Column(length = 64)
+    private String chaveTransicao;
 
     private BigDecimal total = BigDecimal.ZERO;
 
     private LocalDateTime dataCriacao = LocalDateTime.now();
 
+    @UpdateTimestamp
+    private LocalDateTime dataAtualizacao = LocalDateTime.now();
+
     // Relacionamento: Um pedido tem vários itens
     @OneToMany(mappedBy = "pedido", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<ItemPedido> itens = new ArrayList<>();
@@ -37,6 +49,7 @@ public class Pedido {
     public void adicionarItem(ItemPedido item) {
         itens.add(item);
         item.setPedido(this);
+        item.setDataPedido(dataCriacao);
         this.total = this.total.add(item.getSubtotal());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,32 @@
+package mba.ivens.padoca.modules.pedido.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Idempotency-Key de criação de pedido. Gravada na mesma transação do pedido, com a resposta original,
+ * para que um reenvio após restart (ou em outra instância) devolva o mesmo pedido em vez de criar outro.
+ */
+@Data
+@Entity
+@Table(name = "pedidos_idempotencia", schema = "vendas")
+public class PedidoIdempotencia {
+
+    @Id
+    @Column(length = 64)
+    private String chave;
+
+    // SHA-256 do corpo: a mesma chave com outro pedido é recusada
+    @Column(length = 64, nullable = false)
+    private String hashRequisicao;
+
+    private Long pedidoId;
+
+    @Column(columnDefinition = "text")
+    private String resposta;
+
+    @Column(nullable = false)
+    private LocalDateTime dataCriacao;
+}
@@ -1,10 +1,31 @@
 package mba.ivens.padoca.modules.pedido.model.enums;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 public enum StatusPedido {
     PENDENTE,
     PREPARANDO,
     PRONTO,
     EM_ENTREGA,
     CONCLUIDO,
-    CANCELADO
+    CANCELADO;
+
+    // Status que ainda aparecem na fila da cozinha/balcão
+    public static final Set<StatusPedido> ABERTOS = EnumSet.of(PENDENTE, PREPARANDO, PRONTO, EM_ENTREGA);
+
+    /** Próximo status ao avançar; nulo para pedidos já encerrados. Só entregas passam por EM_ENTREGA. */
+    public StatusPedido proximo(TipoPedido tipo) {
+        return switch (this) {
+            case PENDENTE -> PREPARANDO;
+            case PREPARANDO -> PRONTO;
+            case PRONTO -> tipo == TipoPedido.ENTREGA ? EM_ENTREGA : CONCLUIDO;
+            case EM_ENTREGA -> CONCLUIDO;
+            case CONCLUIDO, CANCELADO -> null;
+        };
+    }
+
+    public boolean cancelavel() {
+        return ABERTOS.contains(this);
+    }
 }
@@ -0,0 +1,7 @@
+package mba.ivens.padoca.modules.pedido.model.enums;
+
+public enum TipoPedido {
+    BALCAO,
+    ENTREGA,
+    ENCOMENDA
+}
@@ -0,0 +1,102 @@
+package mba.ivens.padoca.modules.pedido.repository;
+
+import lombok.RequiredArgsConstructor;
+import mba.ivens.padoca.modules.pedido.model.enums.StatusPedido;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * DDL das partições mensais de {@code vendas.pedidos} e {@code vendas.itens_pedido}. As partições se chamam
+ * {@code pedidos_AAAA_MM} e {@code itens_pedido_AAAA_MM}; os meses arquivados vão para {@code vendas_arquivo}.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ParticaoPedidosRepository {
+
+    private static final DateTimeFormatter SUFIXO = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    // Uma única instância da API mexe nas partições por vez; as outras pulam a rodada
+    private static final String BLOQUEAR = "SELECT pg_try_advisory_xact_lock(hashtext('vendas.pedidos.particoes'))";
+
+    private static final String PARTICIONADA = """
+            SELECT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = to_regclass('vendas.pedidos'))
+            """;
+
+    private static final String PARTICOES = """
+            SELECT c.relname FROM pg_inherits h JOIN pg_class c ON c.oid = h.inhrelid
+            WHERE h.inhparent = 'vendas.pedidos'::regclass
+            ORDER BY c.relname
+            """;
+
+    private static final String CONVERSAO = "db/particionamento/pedidos.sql";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** Advisory lock da transação corrente; {@code false} se outra instância já está mantendo as partições. */
+    public boolean bloquear() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(BLOQUEAR, Boolean.class));
+    }
+
+    public boolean particionada() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(PARTICIONADA, Boolean.class));
+    }
+
+    /** Reescreve as tabelas atuais como tabelas particionadas, com as partições dos meses que já têm pedidos. */
+    public void converter() {
+        try {
+            jdbcTemplate.execute(new ClassPathResource(CONVERSAO).getContentAsString(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao ler " + CONVERSAO, e);
+        }
+    }
+
+    /** Meses com partição ligada a {@code vendas.pedidos}, em ordem. */
+    public List<YearMonth> meses() {
+        return jdbcTemplate.queryForList(PARTICOES, String.class).stream()
+                .filter(nome -> nome.matches("pedidos_\\d{4}_\\d{2}"))
+                .map(nome -> YearMonth.parse(nome.substring("pedidos_".length()), SUFIXO))
+                .toList();
+    }
+
+    public void criar(YearMonth mes) {
+        String inicio = mes.atDay(1).toString();
+        String fim = mes.plusMonths(1).atDay(1).toString();
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS vendas." + pedidos(mes)
+                + " PARTITION OF vendas.pedidos FOR VALUES FROM ('" + inicio + "') TO ('" + fim + "')");
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS vendas." + itens(mes)
+                + " PARTITION OF vendas.itens_pedido FOR VALUES FROM ('" + inicio + "') TO ('" + fim + "')");
+    }
+
+    public boolean possuiPedidos(YearMonth mes, Collection<StatusPedido> status) {
+        String sql = "SELECT EXISTS (SELECT 1 FROM vendas." + pedidos(mes) + " WHERE status = ANY (?))";
+        return Boolean.TRUE.equals(jdbcTemplate.query(sql,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("varchar", status.stream().map(Enum::name).toArray())),
+                rs -> rs.next() && rs.getBoolean(1)));
+    }
+
+    /** Desanexa as partições do mês e as move para {@code vendas_arquivo}, sem copiar linhas. */
+    public void arquivar(YearMonth mes) {
+        jdbcTemplate.execute("CREATE SCHEMA IF NOT EXISTS vendas_arquivo");
+        jdbcTemplate.execute("ALTER TABLE vendas.itens_pedido DETACH PARTITION vendas." + itens(mes));
+        jdbcTemplate.execute("ALTER TABLE vendas.pedidos DETACH PARTITION vendas." + pedidos(mes));
+        jdbcTemplate.execute("ALTER TABLE vendas." + pedidos(mes) + " SET SCHEMA vendas_arquivo");
+        jdbcTemplate.execute("ALTER TABLE vendas." + itens(mes) + " SET SCHEMA vendas_arquivo");
+    }
+
+    private static String pedidos(YearMonth mes) {
+        return "pedidos_" + mes.format(SUFIXO);
+    }
+
+    private static String itens(YearMonth mes) {
+        return "itens_pedido_" + mes.format(SUFIXO);
+    }
+}
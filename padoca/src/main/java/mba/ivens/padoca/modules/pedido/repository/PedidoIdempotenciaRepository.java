@@ -0,0 +1,129 @@
+package mba.ivens.padoca.modules.pedido.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Chaves de idempotência em SQL direto: a reserva é um INSERT ... ON CONFLICT. Uma segunda transação com a
+ * mesma chave fica bloqueada no índice único até a primeira terminar, então duplicatas entre instâncias
+ * também não correm em paralelo.
+ */
+@Repository
+@RequiredArgsConstructor
+public class PedidoIdempotenciaRepository {
+
+    public record Registro(String chave, String hashRequisicao, Long pedidoId, String resposta) {}
+
+    // Uma chave vencida ainda não removida pela limpeza é reaproveitada
+    private static final String RESERVAR = """
+            INSERT INTO vendas.pedidos_idempotencia (chave, hash_requisicao, data_criacao)
+            VALUES (?, ?, ?)
+            ON CONFLICT (chave) DO UPDATE
+            SET hash_requisicao = EXCLUDED.hash_requisicao, pedido_id = NULL, resposta = NULL,
+                data_criacao = EXCLUDED.data_criacao
+            WHERE vendas.pedidos_idempotencia.data_criacao < ?
+            """;
+
+    // Mesma regra para várias chaves em um comando; devolve as que foram reservadas
+    private static final String RESERVAR_LOTE = """
+            INSERT INTO vendas.pedidos_idempotencia (chave, hash_requisicao, data_criacao)
+            SELECT t.chave, t.hash, ? FROM unnest(?::varchar[], ?::varchar[]) AS t(chave, hash)
+            ON CONFLICT (chave) DO UPDATE
+            SET hash_requisicao = EXCLUDED.hash_requisicao, pedido_id = NULL, resposta = NULL,
+                data_criacao = EXCLUDED.data_criacao
+            WHERE vendas.pedidos_idempotencia.data_criacao < ?
+            RETURNING chave
+            """;
+
+    private static final String CONCLUIR = """
+            UPDATE vendas.pedidos_idempotencia SET pedido_id = ?, resposta = ? WHERE chave = ?
+            """;
+
+    private static final String CONCLUIR_LOTE = """
+            UPDATE vendas.pedidos_idempotencia i SET pedido_id = t.pedido_id, resposta = t.resposta
+            FROM unnest(?::varchar[], ?::bigint[], ?::text[]) AS t(chave, pedido_id, resposta)
+            WHERE i.chave = t.chave
+            """;
+
+    private static final String BUSCAR = """
+            SELECT chave, hash_requisicao, pedido_id, resposta FROM vendas.pedidos_idempotencia
+            """;
+
+    private static final String REMOVER_VENCIDAS = """
+            DELETE FROM vendas.pedidos_idempotencia WHERE data_criacao < ?
+            """;
+
+    private static final RowMapper<Registro> REGISTRO = (rs, i) -> new Registro(
+            rs.getString(1), rs.getString(2), rs.getObject(3, Long.class), rs.getString(4));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** @return {@code false} se a chave já pertence a outro pedido ainda válido */
+    public boolean reservar(String chave, String hashRequisicao, LocalDateTime agora, LocalDateTime vencidasAntesDe) {
+        return jdbcTemplate.update(RESERVAR, chave, hashRequisicao, agora, vencidasAntesDe) > 0;
+    }
+
+    /**
+     * Reserva várias chaves em um único comando. A ordem do mapa é a ordem de inserção, para que lotes
+     * concorrentes travem as mesmas chaves na mesma ordem.
+     *
+     * @param hashes hash da requisição por chave
+     * @return chaves reservadas; as demais já pertencem a pedidos ainda válidos
+     */
+    public Set<String> reservarLote(SortedMap<String, String> hashes, LocalDateTime agora, LocalDateTime vencidasAntesDe) {
+        return new HashSet<>(jdbcTemplate.query(RESERVAR_LOTE, ps -> {
+            ps.setObject(1, agora);
+            ps.setArray(2, ps.getConnection().createArrayOf("varchar", hashes.keySet().toArray()));
+            ps.setArray(3, ps.getConnection().createArrayOf("varchar", hashes.values().toArray()));
+            ps.setObject(4, vencidasAntesDe);
+        }, (rs, i) -> rs.getString(1)));
+    }
+
+    public void concluir(String chave, Long pedidoId, String resposta) {
+        jdbcTemplate.update(CONCLUIR, pedidoId, resposta, chave);
+    }
+
+    /** Grava em um único comando o pedido e a resposta de cada chave reservada. */
+    public void concluirLote(List<Registro> registros) {
+        jdbcTemplate.update(CONCLUIR_LOTE, ps -> {
+            ps.setArray(1, ps.getConnection().createArrayOf("varchar", registros.stream().map(Registro::chave).toArray()));
+            ps.setArray(2, ps.getConnection().createArrayOf("bigint", registros.stream().map(Registro::pedidoId).toArray()));
+            ps.setArray(3, ps.getConnection().createArrayOf("text", registros.stream().map(Registro::resposta).toArray()));
+        });
+    }
+
+    public Optional<Registro> buscar(String chave) {
+        return jdbcTemplate.query(BUSCAR + " WHERE chave = ?", REGISTRO, chave).stream().findFirst();
+    }
+
+    public Map<String, Registro> buscarLote(Collection<String> chaves) {
+        return jdbcTemplate.query(BUSCAR + " WHERE chave = ANY(?)",
+                        ps -> ps.setArray(1, ps.getConnection().createArrayOf("varchar", chaves.toArray())),
+                        REGISTRO)
+                .stream()
+                .collect(Collectors.toMap(Registro::chave, Function.identity()));
+    }
+
+    /** Libera chaves reservadas na transação atual para pedidos que acabaram recusados. */
+    public void remover(Collection<String> chaves) {
+        jdbcTemplate.update("DELETE FROM vendas.pedidos_idempotencia WHERE chave = ANY(?)",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("varchar", chaves.toArray())));
+    }
+
+    public int removerVencidas(LocalDateTime vencidasAntesDe) {
+        return jdbcTemplate.update(REMOVER_VENCIDAS, vencidasAntesDe);
+    }
+}
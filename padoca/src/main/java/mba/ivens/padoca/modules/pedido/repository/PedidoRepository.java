@@ -2,16 +2,116 @@ package mba.ivens.padoca.modules.pedido.repository;
 
 import mba.ivens.padoca.modules.pedido.model.Pedido;
 import mba.ivens.padoca.modules.pedido.model.enums.StatusPedido;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface PedidoRepository extends JpaRepository<Pedido, Long> {
 
-    List<Pedido> findByStatusNot(StatusPedido status);
-
     long countByStatusNot(StatusPedido status);
+
+    // Compare-and-set do status: só altera se o pedido ainda estiver em :de. Devolve 0 para quem perdeu a corrida
+    @Modifying
+    @Query("""
+        UPDATE Pedido p
+        SET p.status = CASE WHEN p.tipo = mba.ivens.padoca.modules.pedido.model.enums.TipoPedido.ENTREGA
+                THEN :paraEntrega ELSE :para END,
+            p.chaveTransicao = :chave,
+            p.dataAtualizacao = :agora
+        WHERE p.id = :id AND p.status = :de
+    """)
+    int transicionar(
+            @Param("id") Long id,
+            @Param("de") StatusPedido de,
+            @Param("para") StatusPedido para,
+            @Param("paraEntrega") StatusPedido paraEntrega,
+            @Param("chave") String chave,
+            @Param("agora") LocalDateTime agora
+    );
+
+    // [hora, soma do total, quantidade de pedidos]
+    @Query("""
+        SELECT EXTRACT(HOUR FROM p.dataCriacao), COALESCE(SUM(p.total), 0), COUNT(p) FROM Pedido p
+        WHERE p.dataCriacao >= :inicio AND p.dataCriacao < :fim
+        AND p.status <> :ignorado
+        GROUP BY EXTRACT(HOUR FROM p.dataCriacao)
+    """)
+    List<Object[]> somarVendasPorHora(
+            @Param("inicio") LocalDateTime inicio,
+            @Param("fim") LocalDateTime fim,
+            @Param("ignorado") StatusPedido ignorado
+    );
+
+    // [status, quantidade de pedidos]. O limite em dataCriacao restringe a busca às partições recentes
+    @Query("""
+        SELECT p.status, COUNT(p) FROM Pedido p
+        WHERE p.status IN :status AND p.dataCriacao >= :criadosDesde
+        GROUP BY p.status
+    """)
+    List<Object[]> contarPorStatus(
+            @Param("status") Collection<StatusPedido> status,
+            @Param("criadosDesde") LocalDateTime criadosDesde
+    );
+
+    @Query("""
+        SELECT p.id FROM Pedido p
+        WHERE p.status IN :status
+        AND p.dataCriacao >= :criadosDesde
+        ORDER BY p.dataCriacao, p.id
+    """)
+    List<Long> findIdsFila(
+            @Param("status") Collection<StatusPedido> status,
+            @Param("criadosDesde") LocalDateTime criadosDesde,
+            Limit limit
+    );
+
+    // Alterações da fila por keyset em (dataAtualizacao, id), devolvendo [id, dataAtualizacao] para montar o cursor
+    @Query("""
+        SELECT p.id, p.dataAtualizacao FROM Pedido p
+        WHERE p.dataCriacao >= :criadosDesde
+        AND p.dataAtualizacao >= :dataAtualizacao
+        AND (p.dataAtualizacao, p.id) > (:dataAtualizacao, :id)
+        ORDER BY p.dataAtualizacao, p.id
+    """)
+    List<Object[]> findAlteracoesFila(
+            @Param("criadosDesde") LocalDateTime criadosDesde,
+            @Param("dataAtualizacao") LocalDateTime dataAtualizacao,
+            @Param("id") Long id,
+            Limit limit
+    );
+
+    @Query("""
+        SELECT DISTINCT p FROM Pedido p
+        LEFT JOIN FETCH p.itens i
+        LEFT JOIN FETCH i.produto pr
+        LEFT JOIN FETCH pr.categoria
+        WHERE p.id IN :ids
+        ORDER BY p.dataCriacao, p.id
+    """)
+    List<Pedido> findComItensByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Histórico por keyset: mais recentes primeiro, desempate pelo id
+    @Query("SELECT p.id FROM Pedido p ORDER BY p.dataCriacao DESC, p.id DESC")
+    List<Long> findIdsHistorico(Limit limit);
+
+    // A comparação de tupla não poda partições; a condição só em dataCriacao sim
+    @Query("""
+        SELECT p.id FROM Pedido p
+        WHERE p.dataCriacao <= :dataCriacao
+        AND (p.dataCriacao, p.id) < (:dataCriacao, :id)
+        ORDER BY p.dataCriacao DESC, p.id DESC
+    """)
+    List<Long> findIdsHistoricoApos(
+            @Param("dataCriacao") LocalDateTime dataCriacao,
+            @Param("id") Long id,
+            Limit limit
+    );
 }
@@ -0,0 +1,216 @@
+package mba.ivens.padoca.modules.pedido.services;
+
+import lombok.extern.slf4j.Slf4j;
+import mba.ivens.padoca.modules.pedido.dto.VendasPorHoraDTO;
+import mba.ivens.padoca.modules.pedido.events.PedidoEvento;
+import mba.ivens.padoca.modules.pedido.model.enums.StatusPedido;
+import mba.ivens.padoca.modules.pedido.repository.PedidoRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Totais de vendas mantidos em memória a cada pedido criado ou alterado, para que o dashboard
+ * não precise reagregar a tabela de pedidos. Valores em centavos em {@link LongAdder}s; os eventos só disputam
+ * o lock de leitura entre si. É reconstruído a partir do banco na subida e na virada do dia.
+ * <p>
+ * A reconstrução lê o banco sem bloquear os eventos. Os que chegam enquanto ela consulta (pedidos confirmados
+ * depois da leitura, ou antes da subida terminar) são gravados e reaplicados sobre a contagem nova, em vez de
+ * se perderem na troca.
+ * <p>
+ * A fila conta apenas pedidos criados dentro de {@code padoca.pedidos.janela-abertos}, como a tela da cozinha.
+ * O corte da janela é fixado na reconstrução: os eventos seguem o mesmo corte da contagem inicial, então um pedido
+ * que envelhece além da janela continua sendo acompanhado até a próxima virada do dia, que move o corte.
+ */
+@Slf4j
+@Service
+public class ContadoresVendasService {
+
+    private final PedidoRepository pedidoRepository;
+    private final Duration janelaAbertos;
+
+    public ContadoresVendasService(PedidoRepository pedidoRepository,
+                                   @Value("${padoca.pedidos.janela-abertos:30d}") Duration janelaAbertos) {
+        this.pedidoRepository = pedidoRepository;
+        this.janelaAbertos = janelaAbertos;
+    }
+
+    private final Map<StatusPedido, LongAdder> pedidosPorStatus = novoMapaPorStatus();
+    private volatile LocalDateTime contandoDesde = LocalDateTime.now();
+    private volatile VendasDoDia dia = new VendasDoDia(LocalDate.now());
+
+    // Eventos: leitura; início e troca da reconstrução: escrita
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Eventos recebidos durante a reconstrução em andamento; null fora dela
+    private Queue<PedidoEvento> recebidosNaReconstrucao;
+
+    private static final class VendasDoDia {
+        private final LocalDate data;
+        private final LongAdder totalCentavos = new LongAdder();
+        private final LongAdder[] centavosPorHora = new LongAdder[24];
+        private final LongAdder[] pedidosPorHora = new LongAdder[24];
+
+        private VendasDoDia(LocalDate data) {
+            this.data = data;
+            for (int h = 0; h < 24; h++) {
+                centavosPorHora[h] = new LongAdder();
+                pedidosPorHora[h] = new LongAdder();
+            }
+        }
+
+        void somar(int hora, long centavos, int pedidos) {
+            totalCentavos.add(centavos);
+            centavosPorHora[hora].add(centavos);
+            pedidosPorHora[hora].add(pedidos);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void reconstruir() {
+        Queue<PedidoEvento> recebidos = new ConcurrentLinkedQueue<>();
+        lock.writeLock().lock();
+        try {
+            recebidosNaReconstrucao = recebidos;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Map<StatusPedido, LongAdder> contagem = novoMapaPorStatus();
+        LocalDateTime criadosDesde = LocalDateTime.now().minus(janelaAbertos);
+        for (Object[] linha : pedidoRepository.contarPorStatus(StatusPedido.ABERTOS, criadosDesde)) {
+            if (linha[0] != null) {
+                contagem.get((StatusPedido) linha[0]).add(((Number) linha[1]).longValue());
+            }
+        }
+        VendasDoDia novoDia = carregarDia(LocalDate.now());
+
+        lock.writeLock().lock();
+        try {
+            contandoDesde = criadosDesde;
+            pedidosPorStatus.forEach((status, contador) -> {
+                contador.reset();
+                contador.add(contagem.get(status).sum());
+            });
+            dia = novoDia;
+            recebidos.forEach(this::aplicar);
+            recebidosNaReconstrucao = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Contadores de vendas reconstruídos: {} em vendas hoje, {} pedidos na fila ({} eventos reaplicados)",
+                vendasHoje(), filaPedidos(), recebidos.size());
+    }
+
+    @Scheduled(cron = "0 0 0 * * *")
+    public void virarDia() {
+        reconstruir();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPedidoEvento(PedidoEvento evento) {
+        diaAtual();
+        lock.readLock().lock();
+        try {
+            aplicar(evento);
+            Queue<PedidoEvento> recebidos = recebidosNaReconstrucao;
+            if (recebidos != null) {
+                recebidos.add(evento);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void aplicar(PedidoEvento evento) {
+        if (!evento.dataCriacao().isBefore(contandoDesde)) {
+            if (evento.statusAnterior() != null) {
+                pedidosPorStatus.get(evento.statusAnterior()).decrement();
+            }
+            pedidosPorStatus.get(evento.statusAtual()).increment();
+        }
+
+        int sinal = 0;
+        if (evento.tipo() == PedidoEvento.Tipo.CRIADO && evento.statusAtual() != StatusPedido.CANCELADO) {
+            sinal = 1;
+        } else if (evento.statusAtual() == StatusPedido.CANCELADO && evento.statusAnterior() != StatusPedido.CANCELADO) {
+            sinal = -1;
+        }
+        VendasDoDia atual = dia;
+        if (sinal != 0 && evento.dataCriacao().toLocalDate().equals(atual.data)) {
+            atual.somar(evento.dataCriacao().getHour(), sinal * centavos(evento.total()), sinal);
+        }
+    }
+
+    public BigDecimal vendasHoje() {
+        return BigDecimal.valueOf(diaAtual().totalCentavos.sum(), 2);
+    }
+
+    public long filaPedidos() {
+        return StatusPedido.ABERTOS.stream()
+                .mapToLong(status -> pedidosPorStatus.get(status).sum())
+                .sum();
+    }
+
+    public List<VendasPorHoraDTO> vendasPorHora() {
+        VendasDoDia atual = diaAtual();
+        List<VendasPorHoraDTO> horas = new ArrayList<>(24);
+        for (int h = 0; h < 24; h++) {
+            horas.add(new VendasPorHoraDTO(h, BigDecimal.valueOf(atual.centavosPorHora[h].sum(), 2), atual.pedidosPorHora[h].sum()));
+        }
+        return horas;
+    }
+
+    // Passou da meia-noite sem o agendamento ter rodado: reconstrói antes de responder
+    private VendasDoDia diaAtual() {
+        VendasDoDia atual = dia;
+        LocalDate hoje = LocalDate.now();
+        if (atual.data.equals(hoje)) {
+            return atual;
+        }
+        synchronized (this) {
+            if (!dia.data.equals(hoje)) {
+                reconstruir();
+            }
+            return dia;
+        }
+    }
+
+    private VendasDoDia carregarDia(LocalDate data) {
+        VendasDoDia novo = new VendasDoDia(data);
+        LocalDateTime inicio = data.atStartOfDay();
+        for (Object[] linha : pedidoRepository.somarVendasPorHora(inicio, inicio.plusDays(1), StatusPedido.CANCELADO)) {
+            novo.somar(((Number) linha[0]).intValue(), centavos((BigDecimal) linha[1]), ((Number) linha[2]).intValue());
+        }
+        return novo;
+    }
+
+    private static long centavos(BigDecimal valor) {
+        return valor.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private static Map<StatusPedido, LongAdder> novoMapaPorStatus() {
+        Map<StatusPedido, LongAdder> mapa = new EnumMap<>(StatusPedido.class);
+        for (StatusPedido status : StatusPedido.values()) {
+            mapa.put(status, new LongAdder());
+        }
+        return mapa;
+    }
+}
@@ -0,0 +1,76 @@
+package mba.ivens.padoca.modules.pedido.services;
+
+import mba.ivens.padoca.modules.pedido.dto.DashboardStatsDTO;
+import mba.ivens.padoca.modules.pedido.dto.VendasPorHoraDTO;
+import mba.ivens.padoca.modules.produto.repository.ProdutoRepository;
+import mba.ivens.padoca.modules.produto.services.EstoqueCriticoService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.List;
+
+@Service
+public class DashboardService {
+
+    private final ContadoresVendasService contadores;
+    private final EstoqueCriticoService estoqueCritico;
+    private final ProdutoRepository produtoRepository;
+    private final long ttlNanos;
+
+    private volatile MargemEmCache cache;
+
+    public DashboardService(ContadoresVendasService contadores,
+                            EstoqueCriticoService estoqueCritico,
+                            ProdutoRepository produtoRepository,
+                            @Value("${padoca.dashboard.cache-ttl:10s}") Duration ttl) {
+        this.contadores = contadores;
+        this.estoqueCritico = estoqueCritico;
+        this.produtoRepository = produtoRepository;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    private record MargemEmCache(double margemMedia, long expiraEm) {
+        boolean valido() {
+            return System.nanoTime() - expiraEm < 0;
+        }
+    }
+
+    /**
+     * Vendas, fila e estoque crítico vêm dos índices em memória. A margem é uma consulta agregada
+     * compartilhada por todos os painéis durante a janela configurada.
+     */
+    public DashboardStatsDTO obterEstatisticas() {
+        return new DashboardStatsDTO(
+                contadores.vendasHoje(),
+                estoqueCritico.total(),
+                contadores.filaPedidos(),
+                margemMedia()
+        );
+    }
+
+    public List<VendasPorHoraDTO> vendasPorHora() {
+        return contadores.vendasPorHora();
+    }
+
+    private double margemMedia() {
+        MargemEmCache atual = cache;
+        if (atual != null && atual.valido()) {
+            return atual.margemMedia();
+        }
+        synchronized (this) {
+            atual = cache;
+            if (atual != null && atual.valido()) {
+                return atual.margemMedia();
+            }
+            Double margem = produtoRepository.margemMedia();
+            cache = new MargemEmCache(
+                    margem == null ? 0.0 : BigDecimal.valueOf(margem).setScale(1, RoundingMode.HALF_UP).doubleValue(),
+                    System.nanoTime() + ttlNanos
+            );
+            return cache.margemMedia();
+        }
+    }
+}
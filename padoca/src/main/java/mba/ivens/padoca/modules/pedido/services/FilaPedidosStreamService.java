@@ -0,0 +1,48 @@
+package mba.ivens.padoca.modules.pedido.services;
+
+import mba.ivens.padoca.config.sse.SseBroadcaster;
+import mba.ivens.padoca.modules.pedido.events.PedidoEvento;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+
+@Service
+public class FilaPedidosStreamService {
+
+    private final PedidoService pedidoService;
+    private final SseBroadcaster broadcaster;
+
+    public FilaPedidosStreamService(PedidoService pedidoService,
+                                    @Value("${padoca.pedidos.stream.buffer-por-assinante:256}") int bufferPorAssinante,
+                                    @Value("${padoca.pedidos.stream.historico:1000}") int historico,
+                                    @Value("${padoca.pedidos.stream.timeout:30m}") Duration timeout) {
+        this.pedidoService = pedidoService;
+        this.broadcaster = new SseBroadcaster("fila-pedidos", bufferPorAssinante, historico, timeout.toMillis());
+    }
+
+    public SseEmitter assinar(String lastEventId) {
+        return broadcaster.assinar(lastEventId, "snapshot", pedidoService::listarFilaCozinha);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPedidoEvento(PedidoEvento evento) {
+        broadcaster.publicar(evento.tipo().nomeEvento(), evento.pedido());
+    }
+
+    @Scheduled(fixedRateString = "${padoca.pedidos.stream.heartbeat:20s}")
+    public void heartbeat() {
+        broadcaster.enviarHeartbeat();
+    }
+
+    // Antes do graceful shutdown do Tomcat, que esperaria as conexões SSE abertas até o timeout
+    @EventListener(ContextClosedEvent.class)
+    public void encerrar() {
+        broadcaster.encerrar();
+    }
+}
@@ -0,0 +1,196 @@
+package mba.ivens.padoca.modules.pedido.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import mba.ivens.padoca.config.exception.exeption.BusinessException;
+import mba.ivens.padoca.modules.pedido.dto.PedidoRequestDTO;
+import mba.ivens.padoca.modules.pedido.dto.PedidoResponseDTO;
+import mba.ivens.padoca.modules.pedido.repository.PedidoIdempotenciaRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Idempotency-Key na criação de pedidos, para terminais que reenviam o POST em conexões ruins.
+ * <p>
+ * A primeira requisição de uma chave executa {@link PedidoService#criar}; as repetições simultâneas aguardam
+ * o mesmo resultado em memória e as posteriores recebem a resposta original. As chaves em memória são
+ * limitadas e vencem; sem a chave em memória (restart, outra instância) vale o registro gravado junto com o
+ * pedido em {@code vendas.pedidos_idempotencia}.
+ */
+@Slf4j
+@Service
+public class IdempotenciaPedidoService {
+
+    public record Resultado(PedidoResponseDTO pedido, boolean repetido) {}
+
+    private record Entrada(String hashRequisicao, CompletableFuture<PedidoResponseDTO> resposta, long expiraEm) {}
+
+    static final int TAMANHO_MAXIMO_CHAVE = 64;
+
+    private final PedidoService pedidoService;
+    private final PedidoIdempotenciaRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration validade;
+    private final int maxChaves;
+    private final Duration espera;
+
+    // Todas as chaves têm a mesma validade: na ordem de inserção, as vencidas estão sempre no início
+    private final LinkedHashMap<String, Entrada> entradas = new LinkedHashMap<>();
+
+    public IdempotenciaPedidoService(PedidoService pedidoService,
+                                     PedidoIdempotenciaRepository repository,
+                                     TransactionTemplate transactionTemplate,
+                                     ObjectMapper objectMapper,
+                                     @Value("${padoca.pedidos.idempotencia.validade:24h}") Duration validade,
+                                     @Value("${padoca.pedidos.idempotencia.max-chaves:10000}") int maxChaves,
+                                     @Value("${padoca.pedidos.idempotencia.espera:30s}") Duration espera) {
+        this.pedidoService = pedidoService;
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.validade = validade;
+        this.maxChaves = maxChaves;
+        this.espera = espera;
+    }
+
+    public Resultado criar(String chave, PedidoRequestDTO dto) {
+        if (chave == null || chave.isBlank()) {
+            return new Resultado(pedidoService.criar(dto), false);
+        }
+        if (chave.length() > TAMANHO_MAXIMO_CHAVE) {
+            throw new BusinessException("Idempotency-Key deve ter no máximo " + TAMANHO_MAXIMO_CHAVE + " caracteres");
+        }
+        String hash = hash(dto);
+
+        Entrada nova = new Entrada(hash, new CompletableFuture<>(), System.nanoTime() + validade.toNanos());
+        Entrada existente = registrar(chave, nova);
+        if (existente != null) {
+            conferirHash(existente.hashRequisicao(), hash);
+            return new Resultado(aguardar(existente.resposta()), true);
+        }
+
+        try {
+            Resultado resultado = transactionTemplate.execute(status -> executar(chave, hash, dto));
+            nova.resposta().complete(resultado.pedido());
+            return resultado;
+        } catch (RuntimeException e) {
+            // Falhou (ex.: sem estoque): quem aguardava recebe o mesmo erro e um novo reenvio executa de novo
+            synchronized (entradas) {
+                entradas.remove(chave, nova);
+            }
+            nova.resposta().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${padoca.pedidos.idempotencia.intervalo-limpeza:1h}")
+    public void removerVencidas() {
+        int removidas = repository.removerVencidas(LocalDateTime.now().minus(validade));
+        if (removidas > 0) {
+            log.debug("{} chaves de idempotência de pedidos removidas", removidas);
+        }
+    }
+
+    // Roda na transação do pedido: a chave só fica gravada se o pedido for confirmado
+    private Resultado executar(String chave, String hash, PedidoRequestDTO dto) {
+        LocalDateTime agora = LocalDateTime.now();
+        if (!repository.reservar(chave, hash, agora, agora.minus(validade))) {
+            PedidoIdempotenciaRepository.Registro registro = repository.buscar(chave)
+                    .orElseThrow(() -> new IllegalStateException("Chave de idempotência sem registro: " + chave));
+            conferirHash(registro.hashRequisicao(), hash);
+            return new Resultado(ler(registro.resposta()), true);
+        }
+        PedidoResponseDTO response = pedidoService.criar(dto);
+        repository.concluir(chave, response.id(), escrever(response));
+        return new Resultado(response, false);
+    }
+
+    /** @return a entrada já existente para a chave, ou {@code null} se {@code nova} foi registrada */
+    private Entrada registrar(String chave, Entrada nova) {
+        synchronized (entradas) {
+            long agora = System.nanoTime();
+            Iterator<Entrada> iterator = entradas.values().iterator();
+            while (iterator.hasNext()) {
+                Entrada maisAntiga = iterator.next();
+                if (entradas.size() < maxChaves && maisAntiga.expiraEm() - agora > 0) {
+                    break;
+                }
+                // Descartar uma chave ainda em execução é seguro: a reserva no banco segura a duplicata
+                iterator.remove();
+            }
+            Entrada existente = entradas.get(chave);
+            if (existente == null) {
+                entradas.put(chave, nova);
+            }
+            return existente;
+        }
+    }
+
+    private PedidoResponseDTO aguardar(CompletableFuture<PedidoResponseDTO> resposta) {
+        try {
+            return resposta.get(espera.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new BusinessException("Pedido com esta Idempotency-Key ainda está em processamento");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException("Pedido com esta Idempotency-Key ainda está em processamento");
+        }
+    }
+
+    private static void conferirHash(String registrado, String recebido) {
+        if (!registrado.equals(recebido)) {
+            throw new BusinessException("Idempotency-Key já utilizada em outro pedido");
+        }
+    }
+
+    Duration validade() {
+        return validade;
+    }
+
+    // Usados também pelo lote: a mesma chave e o mesmo pedido têm o mesmo registro nos dois caminhos
+    String hash(PedidoRequestDTO dto) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(dto));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("Falha ao calcular hash do pedido", e);
+        }
+    }
+
+    String escrever(PedidoResponseDTO response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Falha ao serializar pedido " + response.id(), e);
+        }
+    }
+
+    private PedidoResponseDTO ler(String resposta) {
+        try {
+            return objectMapper.readValue(resposta, PedidoResponseDTO.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Resposta de idempotência inválida", e);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package mba.ivens.padoca.modules.pedido.services;
+
+import lombok.extern.slf4j.Slf4j;
+import mba.ivens.padoca.modules.pedido.model.enums.StatusPedido;
+import mba.ivens.padoca.modules.pedido.repository.ParticaoPedidosRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.YearMonth;
+
+/**
+ * Particionamento mensal dos pedidos pela data de criação, para que as consultas do dia a dia (fila, vendas
+ * de hoje) leiam só as partições recentes.
+ * <p>
+ * Na subida e uma vez por dia, cria as partições dos próximos meses e arquiva os meses antigos: a partição
+ * em que todos os pedidos estão encerrados é desanexada e movida para o schema {@code vendas_arquivo}, sem
+ * copiar nem apagar linhas. A conversão das tabelas existentes é opcional, porque as reescreve com lock
+ * exclusivo.
+ */
+@Slf4j
+@Service
+public class ParticaoPedidosService {
+
+    private final ParticaoPedidosRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean converter;
+    private final int mesesAFrente;
+    private final int arquivarAposMeses;
+
+    public ParticaoPedidosService(ParticaoPedidosRepository repository,
+                                  TransactionTemplate transactionTemplate,
+                                  @Value("${padoca.pedidos.particoes.converter:false}") boolean converter,
+                                  @Value("${padoca.pedidos.particoes.meses-a-frente:3}") int mesesAFrente,
+                                  @Value("${padoca.pedidos.particoes.arquivar-apos-meses:12}") int arquivarAposMeses) {
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+        this.converter = converter;
+        this.mesesAFrente = mesesAFrente;
+        this.arquivarAposMeses = arquivarAposMeses;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${padoca.pedidos.particoes.cron:0 30 3 * * *}")
+    public void manter() {
+        YearMonth atual = YearMonth.now();
+        boolean particionada = Boolean.TRUE.equals(transactionTemplate.execute(status -> criarParticoes(atual)));
+        if (!particionada || arquivarAposMeses <= 0) {
+            return;
+        }
+        YearMonth limite = atual.minusMonths(arquivarAposMeses);
+        for (YearMonth mes : repository.meses()) {
+            if (mes.isBefore(limite)) {
+                transactionTemplate.executeWithoutResult(status -> arquivar(mes));
+            }
+        }
+    }
+
+    private boolean criarParticoes(YearMonth atual) {
+        if (!repository.bloquear()) {
+            return false;
+        }
+        if (!repository.particionada()) {
+            if (!converter) {
+                return false;
+            }
+            long inicio = System.nanoTime();
+            repository.converter();
+            log.info("vendas.pedidos convertida em tabela particionada em {} ms", (System.nanoTime() - inicio) / 1_000_000);
+        }
+        for (int i = 0; i <= mesesAFrente; i++) {
+            repository.criar(atual.plusMonths(i));
+        }
+        return true;
+    }
+
+    private void arquivar(YearMonth mes) {
+        if (!repository.bloquear()) {
+            return;
+        }
+        // Pedido esquecido em aberto segura o mês inteiro: arquivado, sairia da fila sem ser encerrado
+        if (repository.possuiPedidos(mes, StatusPedido.ABERTOS)) {
+            log.warn("Pedidos de {} ainda em aberto; partição mantida em vendas.pedidos", mes);
+            return;
+        }
+        repository.arquivar(mes);
+        log.info("Pedidos de {} arquivados em vendas_arquivo", mes);
+    }
+}
@@ -0,0 +1,321 @@
+package mba.ivens.padoca.modules.pedido.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import mba.ivens.padoca.modules.pedido.dto.ItemPedidoRequestDTO;
+import mba.ivens.padoca.modules.pedido.dto.PedidoLoteDTO;
+import mba.ivens.padoca.modules.pedido.dto.PedidoLoteResultadoDTO;
+import mba.ivens.padoca.modules.pedido.dto.PedidoRequestDTO;
+import mba.ivens.padoca.modules.pedido.dto.PedidoResponseDTO;
+import mba.ivens.padoca.modules.pedido.events.PedidoEvento;
+import mba.ivens.padoca.modules.pedido.model.Pedido;
+import mba.ivens.padoca.modules.pedido.repository.PedidoIdempotenciaRepository;
+import mba.ivens.padoca.modules.pedido.repository.PedidoIdempotenciaRepository.Registro;
+import mba.ivens.padoca.modules.pedido.repository.PedidoRepository;
+import mba.ivens.padoca.modules.produto.model.Produto;
+import mba.ivens.padoca.modules.produto.repository.ProdutoRepository;
+import mba.ivens.padoca.modules.produto.services.EstoqueService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static mba.ivens.padoca.modules.pedido.dto.PedidoLoteResultadoDTO.Situacao.REJEITADO;
+
+/**
+ * Importação em lote das vendas que um terminal acumulou offline.
+ * <p>
+ * O NDJSON é lido linha a linha e gravado em blocos, cada um em uma transação: os preços vêm de uma consulta
+ * só (produtos já resolvidos valem para os blocos seguintes), o estoque é baixado em batch e pedidos e itens
+ * entram pelos inserts em lote do Hibernate. O resultado de cada linha é escrito assim que o bloco dela é
+ * confirmado, então a memória usada não depende do tamanho do lote.
+ */
+@Slf4j
+@Service
+public class PedidoLoteService {
+
+    private record Linha(int numero, String chave, PedidoRequestDTO pedido, String erro) {}
+
+    private record Candidato(int posicao, Linha linha, String hash, Pedido pedido, Map<Long, Integer> quantidades) {}
+
+    private final PedidoService pedidoService;
+    private final PedidoRepository pedidoRepository;
+    private final ProdutoRepository produtoRepository;
+    private final EstoqueService estoqueService;
+    private final IdempotenciaPedidoService idempotencia;
+    private final PedidoIdempotenciaRepository idempotenciaRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final int tamanhoBloco;
+    private final int maxPedidos;
+
+    public PedidoLoteService(PedidoService pedidoService,
+                             PedidoRepository pedidoRepository,
+                             ProdutoRepository produtoRepository,
+                             EstoqueService estoqueService,
+                             IdempotenciaPedidoService idempotencia,
+                             PedidoIdempotenciaRepository idempotenciaRepository,
+                             ApplicationEventPublisher eventPublisher,
+                             TransactionTemplate transactionTemplate,
+                             EntityManager entityManager,
+                             ObjectMapper objectMapper,
+                             Validator validator,
+                             @Value("${padoca.pedidos.lote.tamanho-bloco:500}") int tamanhoBloco,
+                             @Value("${padoca.pedidos.lote.max-pedidos:5000}") int maxPedidos) {
+        this.pedidoService = pedidoService;
+        this.pedidoRepository = pedidoRepository;
+        this.produtoRepository = produtoRepository;
+        this.estoqueService = estoqueService;
+        this.idempotencia = idempotencia;
+        this.idempotenciaRepository = idempotenciaRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.tamanhoBloco = tamanhoBloco;
+        this.maxPedidos = maxPedidos;
+    }
+
+    public void importar(InputStream entrada, OutputStream saida) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8));
+        Writer writer = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8));
+        Map<Long, Produto> produtos = new HashMap<>();
+        List<Linha> bloco = new ArrayList<>(tamanhoBloco);
+
+        int numero = 0;
+        int pedidos = 0;
+        String texto;
+        while ((texto = reader.readLine()) != null) {
+            numero++;
+            if (texto.isBlank()) {
+                continue;
+            }
+            bloco.add(++pedidos > maxPedidos
+                    ? new Linha(numero, null, null, "Limite de " + maxPedidos + " pedidos por lote excedido")
+                    : ler(numero, texto));
+            if (bloco.size() == tamanhoBloco) {
+                processar(bloco, produtos, writer);
+                bloco.clear();
+            }
+        }
+        if (!bloco.isEmpty()) {
+            processar(bloco, produtos, writer);
+        }
+        writer.flush();
+    }
+
+    private Linha ler(int numero, String texto) {
+        PedidoLoteDTO dto;
+        try {
+            dto = objectMapper.readValue(texto, PedidoLoteDTO.class);
+        } catch (JsonProcessingException e) {
+            return new Linha(numero, null, null, "JSON inválido: " + e.getOriginalMessage());
+        }
+        // A linha "null" é JSON válido e vira dto nulo
+        if (dto == null) {
+            return new Linha(numero, null, null, "Linha sem pedido");
+        }
+        PedidoRequestDTO pedido = dto.pedido();
+        Set<ConstraintViolation<PedidoRequestDTO>> violacoes = validator.validate(pedido);
+        if (!violacoes.isEmpty()) {
+            return new Linha(numero, dto.chave(), null, violacoes.stream()
+                    .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+        }
+        if (dto.chave() != null && dto.chave().length() > IdempotenciaPedidoService.TAMANHO_MAXIMO_CHAVE) {
+            return new Linha(numero, null, null,
+                    "chave deve ter no máximo " + IdempotenciaPedidoService.TAMANHO_MAXIMO_CHAVE + " caracteres");
+        }
+        return new Linha(numero, dto.chave() == null || dto.chave().isBlank() ? null : dto.chave(), pedido, null);
+    }
+
+    private void processar(List<Linha> bloco, Map<Long, Produto> produtos, Writer writer) throws IOException {
+        PedidoLoteResultadoDTO[] resultados;
+        try {
+            resultados = transactionTemplate.execute(status -> gravar(bloco, produtos));
+        } catch (RuntimeException e) {
+            log.error("Falha ao gravar bloco de {} pedidos a partir da linha {}", bloco.size(), bloco.getFirst().numero(), e);
+            resultados = bloco.stream()
+                    .map(l -> PedidoLoteResultadoDTO.rejeitado(l.numero(), l.chave(), "Falha ao gravar o bloco; reenvie o pedido"))
+                    .toArray(PedidoLoteResultadoDTO[]::new);
+        }
+        for (PedidoLoteResultadoDTO resultado : resultados) {
+            writer.write(objectMapper.writeValueAsString(resultado));
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+
+    private PedidoLoteResultadoDTO[] gravar(List<Linha> bloco, Map<Long, Produto> produtos) {
+        PedidoLoteResultadoDTO[] resultados = new PedidoLoteResultadoDTO[bloco.size()];
+
+        // Uma consulta para todos os produtos ainda não resolvidos neste lote
+        Set<Long> faltantes = bloco.stream()
+                .filter(l -> l.erro() == null)
+                .flatMap(l -> l.pedido().itens().stream())
+                .map(ItemPedidoRequestDTO::produtoId)
+                .filter(id -> !produtos.containsKey(id))
+                .collect(Collectors.toSet());
+        if (!faltantes.isEmpty()) {
+            produtoRepository.findComCategoriaByIdIn(faltantes).forEach(p -> produtos.put(p.getId(), p));
+        }
+
+        List<Candidato> candidatos = new ArrayList<>();
+        Map<String, Integer> primeiraPorChave = new HashMap<>();
+        Map<Integer, Integer> repeticoesNoBloco = new LinkedHashMap<>();
+        Map<Integer, String> hashes = new HashMap<>();
+        for (int i = 0; i < bloco.size(); i++) {
+            Linha linha = bloco.get(i);
+            if (linha.erro() != null) {
+                resultados[i] = PedidoLoteResultadoDTO.rejeitado(linha.numero(), linha.chave(), linha.erro());
+                continue;
+            }
+            // Falha de uma linha recusa só ela: o resto do bloco continua na mesma transação
+            try {
+                String hash = linha.chave() == null ? null : idempotencia.hash(linha.pedido());
+                hashes.put(i, hash);
+                if (linha.chave() != null) {
+                    Integer primeira = primeiraPorChave.putIfAbsent(linha.chave(), i);
+                    if (primeira != null) {
+                        repeticoesNoBloco.put(i, primeira);
+                        continue;
+                    }
+                }
+                Map<Long, Integer> quantidades = PedidoService.quantidades(linha.pedido());
+                candidatos.add(new Candidato(i, linha, hash, PedidoService.montar(linha.pedido(), quantidades, produtos), quantidades));
+            } catch (EntityNotFoundException e) {
+                resultados[i] = PedidoLoteResultadoDTO.rejeitado(linha.numero(), linha.chave(), e.getMessage());
+            } catch (RuntimeException e) {
+                log.warn("Linha {} do lote recusada", linha.numero(), e);
+                resultados[i] = PedidoLoteResultadoDTO.rejeitado(linha.numero(), linha.chave(), "Pedido inválido");
+            }
+        }
+
+        candidatos = descartarJaEnviados(candidatos, resultados);
+
+        Map<Integer, List<Long>> semEstoque = estoqueService.baixarLote(
+                candidatos.stream().map(Candidato::quantidades).toList(), produtos);
+        List<Candidato> aceitos = new ArrayList<>();
+        List<String> chavesLiberadas = new ArrayList<>();
+        for (int i = 0; i < candidatos.size(); i++) {
+            Candidato candidato = candidatos.get(i);
+            List<Long> ids = semEstoque.get(i);
+            if (ids == null) {
+                aceitos.add(candidato);
+                continue;
+            }
+            String nomes = ids.stream().map(id -> produtos.get(id).getNome()).collect(Collectors.joining(", "));
+            resultados[candidato.posicao()] = PedidoLoteResultadoDTO.rejeitado(
+                    candidato.linha().numero(), candidato.linha().chave(), "Estoque insuficiente para: " + nomes);
+            if (candidato.linha().chave() != null) {
+                chavesLiberadas.add(candidato.linha().chave());
+            }
+        }
+        if (!chavesLiberadas.isEmpty()) {
+            idempotenciaRepository.remover(chavesLiberadas);
+        }
+
+        // Um bloco inteiro por batch JDBC, em vez dos 50 configurados para a criação avulsa
+        entityManager.unwrap(Session.class).setJdbcBatchSize(tamanhoBloco);
+        pedidoRepository.saveAll(aceitos.stream().map(Candidato::pedido).toList());
+        // Com open-in-view o contexto de persistência dura a requisição inteira: sem limpar, cada flush
+        // voltaria a verificar os pedidos de todos os blocos anteriores
+        entityManager.flush();
+        entityManager.clear();
+
+        List<Registro> registros = new ArrayList<>();
+        for (Candidato candidato : aceitos) {
+            Pedido pedido = candidato.pedido();
+            PedidoResponseDTO response = pedidoService.toResponse(pedido);
+            eventPublisher.publishEvent(PedidoEvento.criado(pedido, response));
+            resultados[candidato.posicao()] = PedidoLoteResultadoDTO.criado(
+                    candidato.linha().numero(), candidato.linha().chave(), pedido.getId());
+            if (candidato.linha().chave() != null) {
+                registros.add(new Registro(candidato.linha().chave(), candidato.hash(), pedido.getId(),
+                        idempotencia.escrever(response)));
+            }
+        }
+        if (!registros.isEmpty()) {
+            idempotenciaRepository.concluirLote(registros);
+        }
+
+        // A mesma chave repetida dentro do bloco recebe o resultado da primeira ocorrência
+        repeticoesNoBloco.forEach((posicao, primeira) -> {
+            Linha linha = bloco.get(posicao);
+            PedidoLoteResultadoDTO original = resultados[primeira];
+            resultados[posicao] = !hashes.get(posicao).equals(hashes.get(primeira))
+                    ? PedidoLoteResultadoDTO.rejeitado(linha.numero(), linha.chave(), "Idempotency-Key já utilizada em outro pedido")
+                    : original.situacao() == REJEITADO
+                    ? PedidoLoteResultadoDTO.rejeitado(linha.numero(), linha.chave(), original.mensagem())
+                    : PedidoLoteResultadoDTO.repetido(linha.numero(), linha.chave(), original.pedidoId());
+        });
+        return resultados;
+    }
+
+    // Reserva as chaves do bloco; as que já têm pedido (envio anterior interrompido) viram REPETIDO
+    private List<Candidato> descartarJaEnviados(List<Candidato> candidatos, PedidoLoteResultadoDTO[] resultados) {
+        TreeMap<String, String> hashes = new TreeMap<>();
+        candidatos.stream()
+                .filter(c -> c.linha().chave() != null)
+                .forEach(c -> hashes.put(c.linha().chave(), c.hash()));
+        if (hashes.isEmpty()) {
+            return candidatos;
+        }
+
+        LocalDateTime agora = LocalDateTime.now();
+        Set<String> reservadas = idempotenciaRepository.reservarLote(hashes, agora, agora.minus(idempotencia.validade()));
+        if (reservadas.size() == hashes.size()) {
+            return candidatos;
+        }
+        Set<String> existentes = new HashSet<>(hashes.keySet());
+        existentes.removeAll(reservadas);
+        Map<String, Registro> registros = idempotenciaRepository.buscarLote(existentes);
+
+        List<Candidato> restantes = new ArrayList<>();
+        for (Candidato candidato : candidatos) {
+            Linha linha = candidato.linha();
+            if (linha.chave() == null || reservadas.contains(linha.chave())) {
+                restantes.add(candidato);
+                continue;
+            }
+            Registro registro = registros.get(linha.chave());
+            resultados[candidato.posicao()] = registro == null
+                    ? PedidoLoteResultadoDTO.rejeitado(linha.numero(), linha.chave(), "Chave em uso por outra requisição; reenvie o pedido")
+                    : !registro.hashRequisicao().equals(candidato.hash())
+                    ? PedidoLoteResultadoDTO.rejeitado(linha.numero(), linha.chave(), "Idempotency-Key já utilizada em outro pedido")
+                    : PedidoLoteResultadoDTO.repetido(linha.numero(), linha.chave(), registro.pedidoId());
+        }
+        return restantes;
+    }
+}
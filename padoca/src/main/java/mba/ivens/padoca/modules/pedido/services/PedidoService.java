@@ -1,73 +1,274 @@
 package mba.ivens.padoca.modules.pedido.services;
 
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
-import lombok.RequiredArgsConstructor;
+import mba.ivens.padoca.config.exception.exeption.BusinessException;
+import mba.ivens.padoca.config.pagination.Cursor;
+import mba.ivens.padoca.config.pagination.CursorPageDTO;
 import mba.ivens.padoca.modules.pedido.dto.PedidoRequestDTO;
 import mba.ivens.padoca.modules.pedido.dto.PedidoResponseDTO;
+import mba.ivens.padoca.modules.pedido.dto.SincronizacaoFilaDTO;
+import mba.ivens.padoca.modules.pedido.events.PedidoEvento;
 import mba.ivens.padoca.modules.pedido.model.ItemPedido;
 import mba.ivens.padoca.modules.pedido.model.Pedido;
 import mba.ivens.padoca.modules.pedido.model.enums.StatusPedido;
+import mba.ivens.padoca.modules.pedido.model.enums.TipoPedido;
 import mba.ivens.padoca.modules.pedido.repository.PedidoRepository;
 import mba.ivens.padoca.modules.produto.model.Produto;
 import mba.ivens.padoca.modules.produto.repository.ProdutoRepository;
+import mba.ivens.padoca.modules.produto.services.EstoqueService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
-@RequiredArgsConstructor
 public class PedidoService {
 
     private final PedidoRepository pedidoRepository;
     private final ProdutoRepository produtoRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EstoqueService estoqueService;
+    private final EntityManager entityManager;
+    private final Duration janelaAbertos;
+    private final Duration sobreposicaoFila;
+
+    public PedidoService(PedidoRepository pedidoRepository,
+                         ProdutoRepository produtoRepository,
+                         ApplicationEventPublisher eventPublisher,
+                         EstoqueService estoqueService,
+                         EntityManager entityManager,
+                         @Value("${padoca.pedidos.janela-abertos:30d}") Duration janelaAbertos,
+                         @Value("${padoca.pedidos.fila.sobreposicao:30s}") Duration sobreposicaoFila) {
+        this.pedidoRepository = pedidoRepository;
+        this.produtoRepository = produtoRepository;
+        this.eventPublisher = eventPublisher;
+        this.estoqueService = estoqueService;
+        this.entityManager = entityManager;
+        this.janelaAbertos = janelaAbertos;
+        this.sobreposicaoFila = sobreposicaoFila;
+    }
+
+    private static final int LIMITE_MAXIMO_FILA = 500;
 
     public List<PedidoResponseDTO> listarFilaCozinha() {
-        return pedidoRepository.findByStatusNot(StatusPedido.CONCLUIDO).stream()
-                .filter(p -> p.getStatus() != StatusPedido.CANCELADO)
+        return listarFilaCozinha(LIMITE_MAXIMO_FILA);
+    }
+
+    /**
+     * Pedidos em aberto, na ordem da fila. Só entram pedidos criados dentro de
+     * {@code padoca.pedidos.janela-abertos}, o que limita a busca às partições recentes.
+     */
+    public List<PedidoResponseDTO> listarFilaCozinha(int limite) {
+        int limiteEfetivo = Math.clamp(limite, 1, LIMITE_MAXIMO_FILA);
+        List<Long> ids = pedidoRepository.findIdsFila(StatusPedido.ABERTOS, criadosDesde(), Limit.of(limiteEfetivo));
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return pedidoRepository.findComItensByIdIn(ids).stream()
                 .map(this::toResponse)
                 .toList();
     }
 
+    /**
+     * Atualização incremental da fila do tablet. Sem {@code cursor}, devolve a fila em aberto e o cursor a partir
+     * do qual acompanhar as alterações. Com {@code cursor}, devolve todo pedido alterado depois dele (inclusive
+     * concluídos e cancelados, para que o tablet remova da tela o que saiu da fila), em ordem de
+     * {@code (dataAtualizacao, id)}.
+     * <p>
+     * {@code dataAtualizacao} é carimbada pela aplicação antes do commit, então uma transação lenta pode aparecer
+     * com um carimbo anterior ao de pedidos já entregues. Por isso o cursor devolvido nunca passa de
+     * agora menos {@code padoca.pedidos.fila.sobreposicao}: o trecho mais recente volta na consulta seguinte e o
+     * tablet substitui o pedido pelo id. Se a página inteira cair dentro da sobreposição, o cursor só avança
+     * quando ela passar.
+     */
+    @Transactional
+    public SincronizacaoFilaDTO sincronizarFila(String cursor, int limite) {
+        int limiteEfetivo = Math.clamp(limite, 1, LIMITE_MAXIMO_FILA);
+        // Tomado antes da leitura: o que for gravado depois dele chega na próxima consulta
+        LocalDateTime horizonte = LocalDateTime.now().minus(sobreposicaoFila);
+        if (cursor == null) {
+            return new SincronizacaoFilaDTO(listarFilaCozinha(limiteEfetivo), Cursor.codificar(horizonte, 0L), false);
+        }
+
+        var chave = Cursor.decodificar(cursor, 2);
+        LocalDateTime desde = chave.dataHora(0);
+        List<Object[]> linhas = pedidoRepository.findAlteracoesFila(criadosDesde(), desde, chave.numero(1),
+                Limit.of(limiteEfetivo + 1));
+        boolean temMais = linhas.size() > limiteEfetivo;
+        List<Object[]> pagina = temMais ? linhas.subList(0, limiteEfetivo) : linhas;
+
+        String proximo = cursor;
+        if (!pagina.isEmpty()) {
+            Object[] ultima = pagina.get(pagina.size() - 1);
+            LocalDateTime ultimaAtualizacao = (LocalDateTime) ultima[1];
+            if (ultimaAtualizacao.isBefore(horizonte)) {
+                proximo = Cursor.codificar(ultimaAtualizacao, ultima[0]);
+            } else if (horizonte.isAfter(desde)) {
+                proximo = Cursor.codificar(horizonte, 0L);
+            }
+        }
+
+        List<Long> ids = pagina.stream().map(linha -> (Long) linha[0]).toList();
+        Map<Long, Pedido> porId = ids.isEmpty() ? Map.of() : pedidoRepository.findComItensByIdIn(ids).stream()
+                .collect(Collectors.toMap(Pedido::getId, Function.identity()));
+        List<PedidoResponseDTO> itens = ids.stream()
+                .map(porId::get)
+                .filter(Objects::nonNull)
+                .map(this::toResponse)
+                .toList();
+        return new SincronizacaoFilaDTO(itens, proximo, temMais);
+    }
+
+    private LocalDateTime criadosDesde() {
+        return LocalDateTime.now().minus(janelaAbertos);
+    }
+
+    /**
+     * Histórico por keyset em {@code (dataCriacao, id)}, do mais recente ao mais antigo. Com {@code contar}, o total
+     * vem de um COUNT sobre todas as partições de {@code vendas.pedidos}, que cresce com a tabela; as páginas seguintes
+     * não precisam dele.
+     */
+    @Transactional
+    public CursorPageDTO<PedidoResponseDTO> listarHistorico(String cursor, int limite, boolean contar) {
+        int limiteEfetivo = Cursor.limitar(limite);
+        Limit limit = Limit.of(limiteEfetivo + 1);
+
+        List<Long> ids;
+        if (cursor == null) {
+            ids = pedidoRepository.findIdsHistorico(limit);
+        } else {
+            var chave = Cursor.decodificar(cursor, 2);
+            ids = pedidoRepository.findIdsHistoricoApos(chave.dataHora(0), chave.numero(1), limit);
+        }
+
+        // A busca com itens ordena de forma crescente; reaplica a ordem do keyset
+        Map<Long, Pedido> porId = ids.isEmpty() ? Map.of() : pedidoRepository.findComItensByIdIn(ids).stream()
+                .collect(Collectors.toMap(Pedido::getId, Function.identity()));
+        // Um pedido arquivado entre as duas consultas não volta na segunda: a página sai menor, mas se há mais
+        // continua decidido pela consulta de ids
+        List<Pedido> pedidos = ids.stream().map(porId::get).filter(Objects::nonNull).toList();
+        List<Pedido> pagina = pedidos.subList(0, Math.min(pedidos.size(), limiteEfetivo));
+        Pedido ultimo = pagina.isEmpty() ? null : pagina.get(pagina.size() - 1);
+        boolean temMais = ids.size() > limiteEfetivo && ultimo != null;
+
+        return new CursorPageDTO<>(pagina.stream().map(this::toResponse).toList(),
+                temMais ? Cursor.codificar(ultimo.getDataCriacao(), ultimo.getId()) : null,
+                temMais,
+                contar ? pedidoRepository.count() : null);
+    }
+
     @Transactional
     public PedidoResponseDTO criar(PedidoRequestDTO dto) {
+        Map<Long, Integer> quantidades = quantidades(dto);
+        Map<Long, Produto> produtos = produtoRepository.findComCategoriaByIdIn(quantidades.keySet()).stream()
+                .collect(Collectors.toMap(Produto::getId, Function.identity()));
+        Pedido pedido = montar(dto, quantidades, produtos);
+
+        estoqueService.baixar(quantidades, produtos);
+
+        // Todos os itens em um batch só, também acima do hibernate.jdbc.batch_size
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        if (pedido.getItens().size() > session.getConfiguredJdbcBatchSize()) {
+            session.setJdbcBatchSize(pedido.getItens().size());
+        }
+        Pedido salvo = pedidoRepository.save(pedido);
+        PedidoResponseDTO response = toResponse(salvo);
+        eventPublisher.publishEvent(PedidoEvento.criado(salvo, response));
+        return response;
+    }
+
+    /**
+     * Avança o pedido a partir do status que o tablet está exibindo ({@code de}). A transição é um único
+     * UPDATE condicional, sem leitura prévia: entre dois toques simultâneos apenas um altera a linha e o
+     * outro recebe 409. Um reenvio com a mesma {@code chave} da transição aplicada devolve o pedido sem
+     * avançar de novo.
+     */
+    @Transactional
+    public PedidoResponseDTO avancarStatus(Long id, StatusPedido de, String chave) {
+        if (de.proximo(TipoPedido.BALCAO) == null) {
+            throw new BusinessException("Pedido " + de.name().toLowerCase() + " não pode ser avançado");
+        }
+        return transicionar(id, de, de.proximo(TipoPedido.BALCAO), de.proximo(TipoPedido.ENTREGA), chave).response();
+    }
+
+    /** Cancela um pedido em aberto e devolve os itens ao estoque, com as mesmas garantias de {@link #avancarStatus}. */
+    @Transactional
+    public PedidoResponseDTO cancelar(Long id, StatusPedido de, String chave) {
+        if (!de.cancelavel()) {
+            throw new BusinessException("Pedido " + de.name().toLowerCase() + " não pode ser cancelado");
+        }
+        Transicao transicao = transicionar(id, de, StatusPedido.CANCELADO, StatusPedido.CANCELADO, chave);
+        // Só quem venceu o UPDATE devolve o estoque; reenvios e concorrentes não repõem duas vezes
+        if (transicao.aplicada()) {
+            Map<Long, Integer> quantidades = transicao.pedido().getItens().stream()
+                    .collect(Collectors.toMap(i -> i.getProduto().getId(), ItemPedido::getQuantidade, Integer::sum));
+            estoqueService.liberar(quantidades);
+        }
+        return transicao.response();
+    }
+
+    private Transicao transicionar(Long id, StatusPedido de, StatusPedido para, StatusPedido paraEntrega, String chave) {
+        if (chave != null && chave.length() > 64) {
+            throw new BusinessException("Idempotency-Key deve ter no máximo 64 caracteres");
+        }
+        int alterados = pedidoRepository.transicionar(id, de, para, paraEntrega, chave, LocalDateTime.now());
+
+        Pedido pedido = pedidoRepository.findComItensByIdIn(List.of(id)).stream().findFirst()
+                .orElseThrow(() -> new EntityNotFoundException("Pedido não encontrado"));
+        PedidoResponseDTO response = toResponse(pedido);
+        if (alterados == 0) {
+            if (chave != null && chave.equals(pedido.getChaveTransicao())) {
+                return new Transicao(pedido, response, false);
+            }
+            throw new BusinessException("Pedido já está " + pedido.getStatus().name().toLowerCase());
+        }
+        eventPublisher.publishEvent(PedidoEvento.statusAlterado(de, pedido, response));
+        return new Transicao(pedido, response, true);
+    }
+
+    private record Transicao(Pedido pedido, PedidoResponseDTO response, boolean aplicada) {}
+
+    // Linhas repetidas do mesmo produto viram um único item
+    static Map<Long, Integer> quantidades(PedidoRequestDTO dto) {
+        Map<Long, Integer> quantidades = new LinkedHashMap<>();
+        dto.itens().forEach(itemDto -> quantidades.merge(itemDto.produtoId(), itemDto.quantidade(), Integer::sum));
+        return quantidades;
+    }
+
+    static Pedido montar(PedidoRequestDTO dto, Map<Long, Integer> quantidades, Map<Long, Produto> produtos) {
         Pedido pedido = new Pedido();
         pedido.setCliente(dto.cliente());
         pedido.setTipo(dto.tipo());
 
-        dto.itens().forEach(itemDto -> {
-            Produto produto = produtoRepository.findById(itemDto.produtoId())
-                    .orElseThrow(() -> new EntityNotFoundException("Produto não encontrado: " + itemDto.produtoId()));
+        quantidades.forEach((produtoId, quantidade) -> {
+            Produto produto = produtos.get(produtoId);
+            if (produto == null) {
+                throw new EntityNotFoundException("Produto não encontrado: " + produtoId);
+            }
             ItemPedido item = new ItemPedido();
             item.setProduto(produto);
-            item.setQuantidade(itemDto.quantidade());
+            item.setQuantidade(quantidade);
             item.setPrecoUnitario(produto.getPreco());
 
             pedido.adicionarItem(item);
         });
-
-        Pedido salvo = pedidoRepository.save(pedido);
-        return toResponse(salvo);
-    }
-
-    @Transactional
-    public PedidoResponseDTO avancarStatus(Long id) {
-        Pedido pedido = pedidoRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException("Pedido não encontrado"));
-        switch (pedido.getStatus()) {
-            case PENDENTE -> pedido.setStatus(StatusPedido.PREPARANDO);
-            case PREPARANDO -> pedido.setStatus(StatusPedido.PRONTO);
-            case PRONTO -> pedido.setStatus(pedido.getTipo().equals("ENTREGA") ? StatusPedido.EM_ENTREGA : StatusPedido.CONCLUIDO);
-            case EM_ENTREGA -> pedido.setStatus(StatusPedido.CONCLUIDO);
-            default -> throw new IllegalStateException("Status não pode ser avançado");
-        }
-
-        return toResponse(pedidoRepository.save(pedido));
+        return pedido;
     }
 
-    private PedidoResponseDTO toResponse(Pedido pedido) {
+    PedidoResponseDTO toResponse(Pedido pedido) {
         List<String> descricaoItens = pedido.getItens().stream()
                 .map(i -> i.getQuantidade() + "x " + i.getProduto().getNome())
                 .collect(Collectors.toList());
@@ -76,10 +277,11 @@ public class PedidoService {
                 pedido.getId(),
                 pedido.getCliente(),
                 pedido.getStatus().name().toLowerCase(),
-                pedido.getTipo(),
+                pedido.getTipo() == null ? null : pedido.getTipo().name(),
                 pedido.getTotal(),
                 pedido.getDataCriacao().format(DateTimeFormatter.ofPattern("HH:mm")),
-                descricaoItens
+                descricaoItens,
+                pedido.getDataAtualizacao()
         );
     }
 }
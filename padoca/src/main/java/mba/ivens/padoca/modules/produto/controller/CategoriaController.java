@@ -6,9 +6,12 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import mba.ivens.padoca.modules.produto.dto.CategoriaRequestDTO;
 import mba.ivens.padoca.modules.produto.dto.CategoriaResponseDTO;
+import mba.ivens.padoca.modules.produto.services.CatalogoCacheService;
 import mba.ivens.padoca.modules.produto.services.CategoriaService;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.net.URI;
@@ -21,11 +24,16 @@ import java.util.List;
 public class CategoriaController {
 
     private final CategoriaService service;
+    private final CatalogoCacheService catalogoCache;
 
     @GetMapping
-    @Operation(summary = "Listar Categorias", description = "Retorna todas as categorias ativas.")
-    public ResponseEntity<List<CategoriaResponseDTO>> listar() {
-        return ResponseEntity.ok(service.listarTodas());
+    @Operation(summary = "Listar Categorias", description = "Retorna todas as categorias ativas. Responde 304 quando o If-None-Match corresponde à versão atual do catálogo.")
+    public ResponseEntity<List<CategoriaResponseDTO>> listar(WebRequest request) {
+        String etag = catalogoCache.etag();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(service.listarTodas());
     }
 
     @PostMapping
@@ -0,0 +1,37 @@
+package mba.ivens.padoca.modules.produto.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import mba.ivens.padoca.modules.produto.dto.EstoqueCriticoDTO;
+import mba.ivens.padoca.modules.produto.services.EstoqueCriticoService;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/estoque")
+@RequiredArgsConstructor
+@Tag(name = "Estoque", description = "Alertas de estoque crítico")
+public class EstoqueController {
+
+    private final EstoqueCriticoService criticoService;
+
+    @GetMapping("/criticos")
+    @Operation(summary = "Estoque Crítico", description = "Produtos ativos com estoque no mínimo ou abaixo dele, do menor estoque para o maior.")
+    public ResponseEntity<List<EstoqueCriticoDTO>> criticos() {
+        return ResponseEntity.ok(criticoService.listar());
+    }
+
+    @GetMapping(value = "/criticos/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Alertas de Estoque em tempo real", description = "Server-Sent Events: envia um snapshot dos críticos ao conectar e depois os eventos 'estoque-critico' e 'estoque-normalizado'. Aceita Last-Event-ID.")
+    public SseEmitter stream(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return criticoService.assinar(lastEventId);
+    }
+}
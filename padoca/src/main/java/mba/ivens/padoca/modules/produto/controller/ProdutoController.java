@@ -7,13 +7,18 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import mba.ivens.padoca.modules.produto.dto.CacheEstatisticasDTO;
+import mba.ivens.padoca.modules.produto.dto.ProdutoCustoDTO;
 import mba.ivens.padoca.modules.produto.dto.ProdutoRequestDTO;
 import mba.ivens.padoca.modules.produto.dto.ProdutoResponseDTO;
+import mba.ivens.padoca.modules.produto.services.CatalogoCacheService;
 import mba.ivens.padoca.modules.produto.services.FileStorageService;
 import mba.ivens.padoca.modules.produto.services.ProdutoService;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
@@ -26,6 +31,7 @@ public class ProdutoController {
 
     private final ProdutoService service;
     private final FileStorageService fileService;
+    private final CatalogoCacheService catalogoCache;
 
     @Operation(summary = "Cadastrar Produto", description = "Cria um item de menu, mercado ou almoço.")
     @ApiResponses(value = {
@@ -45,16 +51,28 @@ public class ProdutoController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
-    @Operation(summary = "Listar Produtos", description = "Lista todos os produtos ativos. Use o parâmetro opcional 'categoriaNome' para filtrar.")
+    @Operation(summary = "Listar Produtos", description = "Lista todos os produtos ativos. Use o parâmetro opcional 'categoriaNome' para filtrar. Responde 304 quando o If-None-Match corresponde à versão atual do catálogo. A versão (ETag) é própria de cada instância da aplicação.")
     @GetMapping
     public ResponseEntity<List<ProdutoResponseDTO>> listar(
             @Parameter(description = "Nome da categoria. Ex: CONFEITARIA, BEBIDAS, MERCEARIA")
-            @RequestParam(required = false) String categoriaNome) {
+            @RequestParam(required = false) String categoriaNome,
+            WebRequest request) {
 
-        if (categoriaNome != null) {
-            return ResponseEntity.ok(service.listarPorCategoria(categoriaNome));
+        String etag = catalogoCache.etag();
+        if (request.checkNotModified(etag)) {
+            return null;
         }
-        return ResponseEntity.ok(service.listarTodosAtivos());
+
+        var produtos = categoriaNome != null
+                ? service.listarPorCategoria(categoriaNome)
+                : service.listarTodosAtivos();
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(produtos);
+    }
+
+    @Operation(summary = "Estatísticas do Cache", description = "Acertos, falhas e invalidações do cache do catálogo.")
+    @GetMapping("/cache/estatisticas")
+    public ResponseEntity<CacheEstatisticasDTO> estatisticasCache() {
+        return ResponseEntity.ok(catalogoCache.estatisticas());
     }
 
     @Operation(summary = "Buscar Produto por ID", description = "Retorna um produto específico pelo seu ID.")
@@ -68,6 +86,16 @@ public class ProdutoController {
         return ResponseEntity.ok(response);
     }
 
+    @Operation(summary = "Custo do Produto", description = "Preço de custo do produto, fora do catálogo público. Restrito a gestores.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Produto encontrado"),
+            @ApiResponse(responseCode = "404", description = "Produto não encontrado")
+    })
+    @GetMapping("/{id}/custo")
+    public ResponseEntity<ProdutoCustoDTO> buscarCusto(@PathVariable Long id) {
+        return ResponseEntity.ok(service.buscarCusto(id));
+    }
+
     @Operation(summary = "Atualizar Produto", description = "Atualiza um produto existente, incluindo a imagem opcional.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Produto atualizado com sucesso"),
@@ -0,0 +1,138 @@
+package mba.ivens.padoca.modules.produto.controller;
+
+import io.swagger.v3.oas.annotations.Hidden;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import mba.ivens.padoca.config.storage.StorageProvider;
+import mba.ivens.padoca.modules.produto.services.FileStorageService;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Serve as imagens com nome por hash de conteúdo. Como a URL nunca muda de conteúdo, a resposta é
+ * cacheável por um ano ({@code immutable}) e o próprio hash é o ETag. Suporta um intervalo de bytes por
+ * requisição (Range). No Tomcat com sendfile, arquivos a partir de 48KB vão por sendfile, sem passar os bytes
+ * pela JVM; os menores, e todos em conectores sem sendfile, são copiados pelo heap para a resposta.
+ * Com um object store, apenas redireciona para a URL de leitura do objeto.
+ * <p>
+ * Arquivos com nomes antigos (anteriores ao hash) continuam no resource handler do {@code StorageConfig}.
+ */
+@Hidden
+@RestController
+@RequiredArgsConstructor
+public class UploadController {
+
+    private static final String CACHE_CONTROL = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable().getHeaderValue();
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d*)-(\\d*)");
+
+    // Atributos do Tomcat (org.apache.coyote.Constants) para entregar o arquivo por sendfile
+    private static final String SENDFILE_SUPORTADO = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_ARQUIVO = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_INICIO = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_FIM = "org.apache.tomcat.sendfile.end";
+    // Abaixo disso a cópia comum é mais barata que preparar o sendfile (mesmo limite do DefaultServlet)
+    private static final long SENDFILE_MINIMO = 48 * 1024;
+
+    private final StorageProvider storage;
+
+    @GetMapping("/uploads/{nome:[0-9a-f]{64}(?:-[a-z]+)?\\.[a-z]+}")
+    public void servir(@PathVariable String nome, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        switch (storage.leitura(nome)) {
+            case StorageProvider.Redirecionamento(URI url, Duration validade) -> redirecionar(url, validade, response);
+            case StorageProvider.ArquivoLocal(Path arquivo) -> servirArquivo(nome, arquivo, request, response);
+        }
+    }
+
+    // O redirecionamento pode ficar em cache enquanto a URL assinada ainda tem folga de validade
+    private static void redirecionar(URI url, Duration validade, HttpServletResponse response) {
+        response.setStatus(HttpServletResponse.SC_FOUND);
+        response.setHeader(HttpHeaders.LOCATION, url.toString());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, validade == null
+                ? CACHE_CONTROL
+                : CacheControl.maxAge(validade.dividedBy(2)).cachePublic().getHeaderValue());
+    }
+
+    private static void servirArquivo(String nome, Path arquivo, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!Files.isRegularFile(arquivo)) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        String etag = "\"" + nome + "\"";
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null && (ifNoneMatch.contains(etag) || ifNoneMatch.trim().equals("*"))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long tamanho = Files.size(arquivo);
+        long inicio = 0;
+        long fim = tamanho - 1;
+
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        Matcher intervalo = range != null ? RANGE.matcher(range.trim()) : null;
+        // Múltiplos intervalos ou formatos desconhecidos recebem o arquivo inteiro, como permite a RFC 9110
+        if (intervalo != null && intervalo.matches() && (ifRange == null || ifRange.equals(etag))) {
+            String de = intervalo.group(1);
+            String ate = intervalo.group(2);
+            if (de.isEmpty() && !ate.isEmpty()) {
+                inicio = Math.max(0, tamanho - Long.parseLong(ate));
+            } else if (!de.isEmpty()) {
+                inicio = Long.parseLong(de);
+                fim = ate.isEmpty() ? tamanho - 1 : Math.min(Long.parseLong(ate), tamanho - 1);
+            }
+            if (inicio >= tamanho || inicio > fim || (de.isEmpty() && ate.isEmpty())) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + tamanho);
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + inicio + "-" + fim + "/" + tamanho);
+        }
+
+        long quantidade = fim - inicio + 1;
+        response.setContentType(FileStorageService.tipoConteudo(nome));
+        response.setContentLengthLong(quantidade);
+
+        if (quantidade >= SENDFILE_MINIMO && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPORTADO))) {
+            request.setAttribute(SENDFILE_ARQUIVO, arquivo.toAbsolutePath().normalize().toString());
+            request.setAttribute(SENDFILE_INICIO, inicio);
+            request.setAttribute(SENDFILE_FIM, fim + 1);
+            return;
+        }
+
+        // O destino é o stream do servlet, não um socket: o transferTo lê o arquivo em um buffer no heap e o escreve
+        try (FileChannel canal = FileChannel.open(arquivo)) {
+            WritableByteChannel saida = Channels.newChannel(response.getOutputStream());
+            long enviado = 0;
+            while (enviado < quantidade) {
+                long transferidos = canal.transferTo(inicio + enviado, quantidade - enviado, saida);
+                // Só acontece se o arquivo encolheu depois do Files.size: repetir não avançaria nunca
+                if (transferidos == 0) {
+                    throw new IOException("Arquivo " + nome + " terminou antes do esperado: " + (inicio + enviado)
+                            + " de " + (inicio + quantidade) + " bytes");
+                }
+                enviado += transferidos;
+            }
+        }
+    }
+}
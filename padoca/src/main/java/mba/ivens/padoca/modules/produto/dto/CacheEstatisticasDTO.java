@@ -0,0 +1,9 @@
+package mba.ivens.padoca.modules.produto.dto;
+
+public record CacheEstatisticasDTO(
+        long acertos,
+        long falhas,
+        double taxaAcerto,
+        long invalidacoes,
+        int entradas
+) {}
@@ -0,0 +1,9 @@
+package mba.ivens.padoca.modules.produto.dto;
+
+public record EstoqueCriticoDTO(
+        Long produtoId,
+        String nome,
+        String categoria,
+        int quantidadeEstoque,
+        int estoqueMinimo
+) {}
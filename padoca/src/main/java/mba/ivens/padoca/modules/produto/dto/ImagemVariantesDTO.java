@@ -0,0 +1,29 @@
+package mba.ivens.padoca.modules.produto.dto;
+
+/**
+ * URLs das versões redimensionadas da imagem de um produto. Enquanto as variantes não foram geradas,
+ * todas apontam para o original.
+ */
+public record ImagemVariantesDTO(
+        String thumb,
+        String card,
+        String full
+) {
+
+    public static ImagemVariantesDTO de(String imagemUrl, boolean processada) {
+        if (imagemUrl == null) {
+            return null;
+        }
+        if (!processada) {
+            return new ImagemVariantesDTO(imagemUrl, imagemUrl, imagemUrl);
+        }
+        return new ImagemVariantesDTO(variante(imagemUrl, "thumb"), variante(imagemUrl, "card"), variante(imagemUrl, "full"));
+    }
+
+    // /uploads/abc.png -> /uploads/abc-thumb.jpg
+    public static String variante(String imagemUrl, String nome) {
+        int ponto = imagemUrl.lastIndexOf('.');
+        String base = ponto > imagemUrl.lastIndexOf('/') ? imagemUrl.substring(0, ponto) : imagemUrl;
+        return base + "-" + nome + ".jpg";
+    }
+}
@@ -0,0 +1,11 @@
+package mba.ivens.padoca.modules.produto.dto;
+
+import java.math.BigDecimal;
+
+/** Preço de custo de um produto: só para gestores, fora do catálogo público. */
+public record ProdutoCustoDTO(
+        Long id,
+        String nome,
+        BigDecimal preco,
+        BigDecimal precoCusto
+) {}
@@ -17,6 +17,10 @@ public record ProdutoRequestDTO(
         @DecimalMin(value = "0.01", message = "O preço deve ser maior que zero")
         BigDecimal preco,
 
+        // Opcional; na atualização, ausente mantém o custo já cadastrado
+        @DecimalMin(value = "0.00", message = "O preço de custo não pode ser negativo")
+        BigDecimal precoCusto,
+
         @NotNull(message = "A categoria é obrigatória")
         Long categoriaId,
 
@@ -13,5 +13,6 @@ public record ProdutoResponseDTO(
         Long categoriaId,
         Integer quantidadeEstoque,
         Integer estoqueMinimo,
-        String diaDaSemanaDisponivel
+        String diaDaSemanaDisponivel,
+        ImagemVariantesDTO imagens
 ) {}
@@ -1,5 +1,7 @@
 package mba.ivens.padoca.modules.produto.dtoMapper;
 
+import mba.ivens.padoca.modules.produto.dto.ImagemVariantesDTO;
+import mba.ivens.padoca.modules.produto.dto.ProdutoCustoDTO;
 import mba.ivens.padoca.modules.produto.dto.ProdutoRequestDTO;
 import mba.ivens.padoca.modules.produto.dto.ProdutoResponseDTO;
 import mba.ivens.padoca.modules.produto.model.Produto;
@@ -21,8 +23,13 @@ public class ProdutoMapper {
                 entity.getCategoria() != null ? entity.getCategoria().getId() : null,
                 entity.getQuantidadeEstoque(),
                 entity.getEstoqueMinimo(),
-                entity.getDiaDaSemanaDisponivel()
+                entity.getDiaDaSemanaDisponivel(),
+                ImagemVariantesDTO.de(entity.getImagemUrl(), Boolean.TRUE.equals(entity.getImagemProcessada()))
         );
     }
 
+    public ProdutoCustoDTO toCusto(Produto entity) {
+        return new ProdutoCustoDTO(entity.getId(), entity.getNome(), entity.getPreco(), entity.getPrecoCusto());
+    }
+
 }
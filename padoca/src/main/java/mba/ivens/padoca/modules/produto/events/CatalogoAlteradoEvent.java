@@ -0,0 +1,34 @@
+package mba.ivens.padoca.modules.produto.events;
+
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Publicado nas escritas de produtos e categorias. Indica exatamente quais listagens do catálogo
+ * ficaram desatualizadas; os ouvintes reagem somente após o commit.
+ */
+public record CatalogoAlteradoEvent(
+        Set<String> categoriasAfetadas,
+        boolean todosProdutos,
+        boolean listaCategorias
+) {
+
+    // Aceita repetições: a categoria anterior e a nova costumam ser a mesma
+    public static CatalogoAlteradoEvent produto(String... categorias) {
+        return new CatalogoAlteradoEvent(Set.copyOf(Arrays.asList(categorias)), false, false);
+    }
+
+    public static CatalogoAlteradoEvent listaDeCategorias() {
+        return new CatalogoAlteradoEvent(Set.of(), false, true);
+    }
+
+    // Estoque devolvido sem as categorias dos produtos à mão
+    public static CatalogoAlteradoEvent todosOsProdutos() {
+        return new CatalogoAlteradoEvent(Set.of(), true, false);
+    }
+
+    // Renomear uma categoria muda o categoriaNome de todos os produtos dela
+    public static CatalogoAlteradoEvent tudo() {
+        return new CatalogoAlteradoEvent(Set.of(), true, true);
+    }
+}
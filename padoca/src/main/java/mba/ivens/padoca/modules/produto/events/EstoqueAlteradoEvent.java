@@ -0,0 +1,26 @@
+package mba.ivens.padoca.modules.produto.events;
+
+import mba.ivens.padoca.modules.produto.dto.EstoqueCriticoDTO;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Publicado sempre que o estoque (ou o estoque mínimo) de produtos muda: pedidos, devoluções,
+ * flush de reservas e cadastro.
+ * <p>
+ * Quem já tem o saldo resultante (o RETURNING da baixa, a entidade salva) o envia em {@code saldos}: um por
+ * produto ativo dentre {@code produtoIds}; os inativos ficam de fora. Sem {@code saldos}, os ouvintes releem
+ * os produtos informados após o commit.
+ */
+public record EstoqueAlteradoEvent(Set<Long> produtoIds, List<EstoqueCriticoDTO> saldos) {
+
+    public static EstoqueAlteradoEvent produtos(Collection<Long> ids) {
+        return new EstoqueAlteradoEvent(Set.copyOf(ids), null);
+    }
+
+    public static EstoqueAlteradoEvent saldos(Collection<Long> ids, List<EstoqueCriticoDTO> saldos) {
+        return new EstoqueAlteradoEvent(Set.copyOf(ids), List.copyOf(saldos));
+    }
+}
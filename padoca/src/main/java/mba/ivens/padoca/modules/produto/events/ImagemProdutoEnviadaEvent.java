@@ -0,0 +1,4 @@
+package mba.ivens.padoca.modules.produto.events;
+
+/** Publicado quando um produto recebe uma nova imagem; as variantes são geradas após o commit. */
+public record ImagemProdutoEnviadaEvent(Long produtoId, String imagemUrl, String categoria) {}
@@ -0,0 +1,35 @@
+package mba.ivens.padoca.modules.produto.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Diário das reservas de estoque feitas em memória (modo de reservas). Cada linha é gravada na transação
+ * do pedido e aplicada depois em {@code produtos.quantidade_estoque}; as pendentes sobrevivem a um crash.
+ */
+@Data
+@Entity
+@Table(name = "movimentos_estoque", schema = "estoque")
+public class MovimentoEstoque {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long produtoId;
+
+    // Negativo na reserva, positivo na devolução
+    @Column(nullable = false)
+    private Integer quantidade;
+
+    @Column(nullable = false)
+    private boolean aplicado = false;
+
+    @CreationTimestamp
+    @Column(updatable = false)
+    private LocalDateTime dataHora;
+}
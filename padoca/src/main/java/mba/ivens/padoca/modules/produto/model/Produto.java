@@ -28,8 +28,14 @@ public class Produto {
     @Column(nullable = false, precision = 10, scale = 2)
     private BigDecimal preco;
 
+    @Column(precision = 10, scale = 2)
+    private BigDecimal precoCusto;
+
     private String imagemUrl;
 
+    // Variantes thumb/card/full geradas a partir de imagemUrl
+    private Boolean imagemProcessada = false;
+
     @ManyToOne
     @JoinColumn(name = "categoria_id", nullable = false)
     @EqualsAndHashCode.Exclude
@@ -0,0 +1,162 @@
+package mba.ivens.padoca.modules.produto.repository;
+
+import lombok.RequiredArgsConstructor;
+import mba.ivens.padoca.modules.produto.dto.EstoqueCriticoDTO;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+
+/**
+ * Escritas de estoque em SQL direto: a baixa é um UPDATE condicional, sem ler a linha antes
+ * e sem SELECT ... FOR UPDATE.
+ */
+@Repository
+@RequiredArgsConstructor
+public class EstoqueRepository {
+
+    public record Saldo(int quantidade, int estoqueMinimo) {}
+
+    public record SaldoProduto(Long produtoId, int quantidade, int estoqueMinimo, String categoria, String nome, boolean ativo) {}
+
+    private static final String BAIXAR = """
+            UPDATE estoque.produtos
+            SET quantidade_estoque = quantidade_estoque - ?, data_atualizacao = LOCALTIMESTAMP
+            WHERE id = ? AND quantidade_estoque >= ?
+            RETURNING id, quantidade_estoque, estoque_minimo
+            """;
+
+    private static final String REPOR = """
+            UPDATE estoque.produtos
+            SET quantidade_estoque = quantidade_estoque + ?, data_atualizacao = LOCALTIMESTAMP
+            WHERE id = ?
+            """;
+
+    private static final String REGISTRAR_MOVIMENTO = """
+            INSERT INTO estoque.movimentos_estoque (produto_id, quantidade, aplicado, data_hora)
+            VALUES (?, ?, false, LOCALTIMESTAMP)
+            """;
+
+    // Marca e soma as mesmas linhas em um único comando: um movimento nunca é marcado sem ser aplicado
+    private static final String APLICAR_MOVIMENTOS = """
+            WITH aplicados AS (
+                UPDATE estoque.movimentos_estoque SET aplicado = true
+                WHERE aplicado = false
+                RETURNING produto_id, quantidade
+            )
+            UPDATE estoque.produtos p
+            SET quantidade_estoque = p.quantidade_estoque + d.delta, data_atualizacao = LOCALTIMESTAMP
+            FROM (SELECT produto_id, SUM(quantidade) AS delta FROM aplicados GROUP BY produto_id) d
+            WHERE p.id = d.produto_id
+            RETURNING p.id, p.quantidade_estoque, p.estoque_minimo,
+                      (SELECT c.nome FROM estoque.categorias c WHERE c.id = p.categoria_id), p.nome, p.ativo
+            """;
+
+    private static final String SALDO_COM_PENDENTES = """
+            SELECT p.quantidade_estoque + COALESCE(
+                (SELECT SUM(m.quantidade) FROM estoque.movimentos_estoque m
+                 WHERE m.produto_id = p.id AND m.aplicado = false), 0)
+            FROM estoque.produtos p WHERE p.id = ?
+            """;
+
+    private static final String CRITICOS = """
+            SELECT p.id, p.nome, c.nome, p.quantidade_estoque, p.estoque_minimo
+            FROM estoque.produtos p JOIN estoque.categorias c ON c.id = p.categoria_id
+            WHERE p.ativo AND p.quantidade_estoque <= p.estoque_minimo
+            """;
+
+    private static final RowMapper<EstoqueCriticoDTO> CRITICO = (rs, i) -> new EstoqueCriticoDTO(
+            rs.getLong(1), rs.getString(2), rs.getString(3), rs.getInt(4), rs.getInt(5));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Baixa todas as quantidades em um único batch JDBC. As linhas seguem a ordem dos ids, para que pedidos
+     * concorrentes travem as mesmas linhas na mesma ordem e não entrem em deadlock.
+     *
+     * @return saldo e estoque mínimo de cada produto logo após a própria baixa; os ids ausentes não tinham
+     * estoque suficiente
+     */
+    public Map<Long, Saldo> baixar(SortedMap<Long, Integer> quantidades) {
+        List<Map.Entry<Long, Integer>> itens = new ArrayList<>(quantidades.entrySet());
+        KeyHolder baixados = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(con -> con.prepareStatement(BAIXAR, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        ps.setInt(1, itens.get(i).getValue());
+                        ps.setLong(2, itens.get(i).getKey());
+                        ps.setInt(3, itens.get(i).getValue());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return itens.size();
+                    }
+                }, baixados);
+
+        Map<Long, Saldo> saldos = new HashMap<>();
+        baixados.getKeyList().forEach(linha -> saldos.put(((Number) linha.get("id")).longValue(),
+                new Saldo(((Number) linha.get("quantidade_estoque")).intValue(), ((Number) linha.get("estoque_minimo")).intValue())));
+        return saldos;
+    }
+
+    public void repor(SortedMap<Long, Integer> quantidades) {
+        List<Map.Entry<Long, Integer>> itens = new ArrayList<>(quantidades.entrySet());
+        jdbcTemplate.batchUpdate(REPOR, itens, itens.size(), (ps, item) -> {
+            ps.setInt(1, item.getValue());
+            ps.setLong(2, item.getKey());
+        });
+    }
+
+    /** Grava no diário as variações de estoque (negativas para reservas), em um único batch. */
+    public void registrarMovimentos(Map<Long, Integer> variacoes) {
+        List<Map.Entry<Long, Integer>> itens = new ArrayList<>(variacoes.entrySet());
+        jdbcTemplate.batchUpdate(REGISTRAR_MOVIMENTO, itens, itens.size(), (ps, item) -> {
+            ps.setLong(1, item.getKey());
+            ps.setInt(2, item.getValue());
+        });
+    }
+
+    /** Aplica nos produtos a soma dos movimentos pendentes, uma linha de UPDATE por produto. */
+    public List<SaldoProduto> aplicarMovimentos() {
+        return jdbcTemplate.query(APLICAR_MOVIMENTOS, (rs, i) ->
+                new SaldoProduto(rs.getLong(1), rs.getInt(2), rs.getInt(3), rs.getString(4), rs.getString(5), rs.getBoolean(6)));
+    }
+
+    /** Saldo que o produto terá depois de aplicados os movimentos pendentes. */
+    public Optional<Integer> saldoComPendentes(Long produtoId) {
+        return jdbcTemplate.query(SALDO_COM_PENDENTES, (rs, i) -> rs.getInt(1), produtoId).stream().findFirst();
+    }
+
+    /** Todos os produtos ativos com estoque no mínimo ou abaixo dele. */
+    public List<EstoqueCriticoDTO> criticos() {
+        return jdbcTemplate.query(CRITICOS, CRITICO);
+    }
+
+    /** Dentre os ids informados, os que estão com estoque crítico. Uma consulta pela chave primária. */
+    public List<EstoqueCriticoDTO> criticos(Collection<Long> produtoIds) {
+        return jdbcTemplate.query(CRITICOS + " AND p.id = ANY(?)",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", produtoIds.toArray())),
+                CRITICO);
+    }
+
+    /** Descarta os movimentos pendentes de um produto cujo estoque foi redefinido manualmente. */
+    public void descartarPendentes(Long produtoId) {
+        jdbcTemplate.update("UPDATE estoque.movimentos_estoque SET aplicado = true WHERE produto_id = ? AND aplicado = false",
+                produtoId);
+    }
+}
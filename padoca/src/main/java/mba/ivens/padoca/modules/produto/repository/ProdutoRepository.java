@@ -1,21 +1,28 @@
 package mba.ivens.padoca.modules.produto.repository;
 
+import jakarta.transaction.Transactional;
 import mba.ivens.padoca.modules.produto.model.Produto;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface ProdutoRepository extends JpaRepository<Produto, Long> {
 
+    @EntityGraph(attributePaths = "categoria")
     List<Produto> findByAtivoTrue();
 
+    @EntityGraph(attributePaths = "categoria")
     List<Produto> findByCategoria_NomeAndAtivoTrue(String categoriaNome);
 
+    @EntityGraph(attributePaths = "categoria")
     @Query("""
         SELECT p FROM Produto p 
         WHERE p.ativo = true 
@@ -29,4 +36,20 @@ public interface ProdutoRepository extends JpaRepository<Produto, Long> {
 
     Optional<Produto> findByIdAndAtivoTrue(Long id);
 
+    // Produtos dos itens de um pedido, com a categoria na mesma consulta (findAllById faria um SELECT por categoria)
+    @EntityGraph(attributePaths = "categoria")
+    List<Produto> findComCategoriaByIdIn(Collection<Long> ids);
+
+    // Margem percentual média dos produtos ativos que têm preço de custo informado
+    @Query("""
+        SELECT AVG((p.preco - p.precoCusto) * 100 / p.preco) FROM Produto p
+        WHERE p.ativo = true AND p.precoCusto IS NOT NULL AND p.preco > 0
+    """)
+    Double margemMedia();
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Produto p SET p.imagemProcessada = true WHERE p.id = :id AND p.imagemUrl = :imagemUrl")
+    int marcarImagemProcessada(@Param("id") Long id, @Param("imagemUrl") String imagemUrl);
+
 }
@@ -0,0 +1,121 @@
+package mba.ivens.padoca.modules.produto.services;
+
+import mba.ivens.padoca.modules.produto.dto.CacheEstatisticasDTO;
+import mba.ivens.padoca.modules.produto.dto.CategoriaResponseDTO;
+import mba.ivens.padoca.modules.produto.dto.ProdutoResponseDTO;
+import mba.ivens.padoca.modules.produto.events.CatalogoAlteradoEvent;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Cache em processo das listagens públicas do catálogo, já convertidas em DTO.
+ * <p>
+ * A invalidação é feita pelo {@link CatalogoAlteradoEvent} após o commit. Toda invalidação incrementa
+ * a geração; uma carga iniciada antes dela não é guardada, para não republicar dados antigos.
+ * A mesma geração é a versão do catálogo usada como ETag nas listagens. Como o catálogo mostra a quantidade
+ * em estoque, toda baixa, devolução ou flush de reservas também invalida as categorias envolvidas.
+ * <p>
+ * Cache, geração e ETag são de cada instância: com várias atrás de um balanceador, um ETag só é reconhecido
+ * pela instância que o gerou (nas outras a resposta é um 200 completo), e a invalidação só alcança a instância
+ * onde a escrita aconteceu; as demais podem servir a listagem anterior até a próxima escrita que passe por elas.
+ */
+@Service
+public class CatalogoCacheService {
+
+    static final String TODOS = "todos";
+    static final String CATEGORIA = "categoria:";
+    static final String ALMOCO = "almoco:";
+    static final String CATEGORIAS = "categorias";
+    private static final String CATEGORIA_ALMOCO = "ALMOCO";
+
+    private final Map<String, List<?>> entradas = new ConcurrentHashMap<>();
+    // Semeada com o horário de início para que um restart não repita ETags já entregues
+    private final AtomicLong geracao = new AtomicLong(System.currentTimeMillis());
+
+    private final LongAdder acertos = new LongAdder();
+    private final LongAdder falhas = new LongAdder();
+    private final LongAdder invalidacoes = new LongAdder();
+
+    public List<ProdutoResponseDTO> todosAtivos(Supplier<List<ProdutoResponseDTO>> carregar) {
+        return obter(TODOS, carregar, true);
+    }
+
+    // Nomes inexistentes não são guardados: a chave vem da query string
+    public List<ProdutoResponseDTO> porCategoria(String categoriaNome, Supplier<List<ProdutoResponseDTO>> carregar) {
+        return obter(CATEGORIA + categoriaNome, carregar, false);
+    }
+
+    public List<ProdutoResponseDTO> almoco(String diaSemana, Supplier<List<ProdutoResponseDTO>> carregar) {
+        return obter(ALMOCO + diaSemana, carregar, false);
+    }
+
+    public List<CategoriaResponseDTO> categorias(Supplier<List<CategoriaResponseDTO>> carregar) {
+        return obter(CATEGORIAS, carregar, true);
+    }
+
+    // Deve ser lida antes de carregar os dados: no pior caso o cliente recebe dados novos com ETag antiga
+    public String etag() {
+        return "\"" + Long.toString(geracao.get(), 36) + "\"";
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> List<T> obter(String chave, Supplier<List<T>> carregar, boolean guardarVazio) {
+        List<?> emCache = entradas.get(chave);
+        if (emCache != null) {
+            acertos.increment();
+            return (List<T>) emCache;
+        }
+        falhas.increment();
+
+        long geracaoInicial = geracao.get();
+        List<T> carregado = List.copyOf(carregar.get());
+        if (carregado.isEmpty() && !guardarVazio) {
+            return carregado;
+        }
+        if (geracao.get() == geracaoInicial) {
+            entradas.put(chave, carregado);
+            // Uma invalidação pode ter ocorrido entre a checagem e o put
+            if (geracao.get() != geracaoInicial) {
+                entradas.remove(chave, carregado);
+            }
+        }
+        return carregado;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogoAlterado(CatalogoAlteradoEvent evento) {
+        geracao.incrementAndGet();
+        invalidacoes.increment();
+
+        if (evento.listaCategorias()) {
+            entradas.remove(CATEGORIAS);
+        }
+        if (evento.todosProdutos()) {
+            entradas.keySet().removeIf(chave -> !chave.equals(CATEGORIAS));
+            return;
+        }
+        if (evento.categoriasAfetadas().isEmpty()) {
+            return;
+        }
+        entradas.remove(TODOS);
+        for (String categoria : evento.categoriasAfetadas()) {
+            entradas.remove(CATEGORIA + categoria);
+            if (CATEGORIA_ALMOCO.equals(categoria)) {
+                entradas.keySet().removeIf(chave -> chave.startsWith(ALMOCO));
+            }
+        }
+    }
+
+    public CacheEstatisticasDTO estatisticas() {
+        long a = acertos.sum();
+        long f = falhas.sum();
+        return new CacheEstatisticasDTO(a, f, a + f == 0 ? 0.0 : (double) a / (a + f), invalidacoes.sum(), entradas.size());
+    }
+}
@@ -6,8 +6,10 @@ import lombok.RequiredArgsConstructor;
 import mba.ivens.padoca.modules.produto.dto.CategoriaRequestDTO;
 import mba.ivens.padoca.modules.produto.dto.CategoriaResponseDTO;
 import mba.ivens.padoca.modules.produto.dtoMapper.CategoriaMapper;
+import mba.ivens.padoca.modules.produto.events.CatalogoAlteradoEvent;
 import mba.ivens.padoca.modules.produto.model.Categoria;
 import mba.ivens.padoca.modules.produto.repository.CategoriaRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -18,17 +20,20 @@ public class CategoriaService {
 
     private final CategoriaRepository repository;
     private final CategoriaMapper mapper;
+    private final CatalogoCacheService catalogoCache;
+    private final ApplicationEventPublisher eventPublisher;
 
     public List<CategoriaResponseDTO> listarTodas() {
-        return repository.findByAtivoTrue().stream()
+        return catalogoCache.categorias(() -> repository.findByAtivoTrue().stream()
                 .map(mapper::toResponse)
-                .toList();
+                .toList());
     }
 
     @Transactional
     public CategoriaResponseDTO salvar(CategoriaRequestDTO dto) {
         Categoria categoria = mapper.toEntity(dto);
         Categoria salvo = repository.save(categoria);
+        eventPublisher.publishEvent(CatalogoAlteradoEvent.listaDeCategorias());
         return mapper.toResponse(salvo);
     }
 
@@ -42,6 +47,7 @@ public class CategoriaService {
         categoria.setTipoExibicao(dto.tipoExibicao());
 
         Categoria atualizado = repository.save(categoria);
+        eventPublisher.publishEvent(CatalogoAlteradoEvent.tudo());
         return mapper.toResponse(atualizado);
     }
 
@@ -51,6 +57,7 @@ public class CategoriaService {
                 .orElseThrow(() -> new EntityNotFoundException("Categoria não encontrada"));
         categoria.setAtivo(false);
         repository.save(categoria);
+        eventPublisher.publishEvent(CatalogoAlteradoEvent.listaDeCategorias());
     }
 
 }
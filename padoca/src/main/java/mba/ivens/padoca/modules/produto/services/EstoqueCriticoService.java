@@ -0,0 +1,119 @@
+package mba.ivens.padoca.modules.produto.services;
+
+import lombok.extern.slf4j.Slf4j;
+import mba.ivens.padoca.config.sse.SseBroadcaster;
+import mba.ivens.padoca.modules.produto.dto.EstoqueCriticoDTO;
+import mba.ivens.padoca.modules.produto.events.EstoqueAlteradoEvent;
+import mba.ivens.padoca.modules.produto.repository.EstoqueRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Índice em memória dos produtos com estoque crítico ({@code quantidadeEstoque <= estoqueMinimo}).
+ * <p>
+ * É carregado uma vez na subida e depois mantido a cada {@link EstoqueAlteradoEvent}: pelos saldos que o
+ * evento traz (baixas, flush de reservas, cadastro) ou, sem eles, relendo só os produtos alterados (devoluções).
+ * Listar e contar os críticos não consulta o banco. Entradas e saídas do índice
+ * são enviadas aos gestores por SSE. Uma reconciliação periódica completa corrige eventos aplicados fora de ordem.
+ */
+@Slf4j
+@Service
+public class EstoqueCriticoService {
+
+    private static final Comparator<EstoqueCriticoDTO> ORDEM = Comparator
+            .comparingInt(EstoqueCriticoDTO::quantidadeEstoque)
+            .thenComparing(EstoqueCriticoDTO::nome);
+
+    private final EstoqueRepository estoqueRepository;
+    private final SseBroadcaster broadcaster;
+
+    private final Map<Long, EstoqueCriticoDTO> criticos = new ConcurrentHashMap<>();
+
+    public EstoqueCriticoService(EstoqueRepository estoqueRepository,
+                                 @Value("${padoca.estoque.criticos.stream.buffer-por-assinante:64}") int bufferPorAssinante,
+                                 @Value("${padoca.estoque.criticos.stream.historico:200}") int historico,
+                                 @Value("${padoca.estoque.criticos.stream.timeout:30m}") Duration timeout) {
+        this.estoqueRepository = estoqueRepository;
+        this.broadcaster = new SseBroadcaster("estoque-critico", bufferPorAssinante, historico, timeout.toMillis());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconstruir() {
+        aplicar(estoqueRepository.criticos(), Set.copyOf(criticos.keySet()));
+        log.info("Índice de estoque crítico carregado: {} produtos", criticos.size());
+    }
+
+    @Scheduled(initialDelayString = "${padoca.estoque.criticos.reconciliacao:10m}",
+            fixedDelayString = "${padoca.estoque.criticos.reconciliacao:10m}")
+    public void reconciliar() {
+        aplicar(estoqueRepository.criticos(), Set.copyOf(criticos.keySet()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEstoqueAlterado(EstoqueAlteradoEvent evento) {
+        List<EstoqueCriticoDTO> atuais = evento.saldos() == null
+                ? estoqueRepository.criticos(evento.produtoIds())
+                : evento.saldos().stream().filter(s -> s.quantidadeEstoque() <= s.estoqueMinimo()).toList();
+        aplicar(atuais, evento.produtoIds());
+    }
+
+    public List<EstoqueCriticoDTO> listar() {
+        return criticos.values().stream().sorted(ORDEM).toList();
+    }
+
+    public long total() {
+        return criticos.size();
+    }
+
+    public SseEmitter assinar(String lastEventId) {
+        return broadcaster.assinar(lastEventId, "snapshot", this::listar);
+    }
+
+    @Scheduled(fixedRateString = "${padoca.estoque.criticos.stream.heartbeat:20s}")
+    public void heartbeat() {
+        broadcaster.enviarHeartbeat();
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public void encerrar() {
+        broadcaster.encerrar();
+    }
+
+    /**
+     * @param atuais      críticos encontrados no banco dentre os {@code verificados}
+     * @param verificados ids consultados: os que não voltaram em {@code atuais} deixaram de ser críticos
+     */
+    private synchronized void aplicar(List<EstoqueCriticoDTO> atuais, Collection<Long> verificados) {
+        Map<Long, EstoqueCriticoDTO> porId = atuais.stream()
+                .collect(Collectors.toMap(EstoqueCriticoDTO::produtoId, Function.identity()));
+
+        Set<Long> ids = new HashSet<>(verificados);
+        ids.addAll(porId.keySet());
+        for (Long id : ids) {
+            EstoqueCriticoDTO atual = porId.get(id);
+            EstoqueCriticoDTO anterior = atual != null ? criticos.put(id, atual) : criticos.remove(id);
+            if (atual != null && !atual.equals(anterior)) {
+                broadcaster.publicar("estoque-critico", atual);
+            } else if (atual == null && anterior != null) {
+                broadcaster.publicar("estoque-normalizado", anterior);
+            }
+        }
+    }
+}
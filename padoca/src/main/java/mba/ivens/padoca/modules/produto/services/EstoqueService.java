@@ -0,0 +1,151 @@
+package mba.ivens.padoca.modules.produto.services;
+
+import lombok.RequiredArgsConstructor;
+import mba.ivens.padoca.config.exception.exeption.BusinessException;
+import mba.ivens.padoca.modules.produto.dto.EstoqueCriticoDTO;
+import mba.ivens.padoca.modules.produto.events.CatalogoAlteradoEvent;
+import mba.ivens.padoca.modules.produto.events.EstoqueAlteradoEvent;
+import mba.ivens.padoca.modules.produto.model.Produto;
+import mba.ivens.padoca.modules.produto.repository.EstoqueRepository;
+import mba.ivens.padoca.modules.produto.repository.EstoqueRepository.Saldo;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Ponto único de baixa e devolução de estoque. Por padrão grava direto em {@code produtos};
+ * com o modo de reservas habilitado delega ao {@link ReservaEstoqueService}.
+ */
+@Service
+@RequiredArgsConstructor
+public class EstoqueService {
+
+    private final EstoqueRepository estoqueRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Optional<ReservaEstoqueService> reservas;
+
+    /**
+     * Baixa o estoque dos produtos de um pedido. Deve rodar dentro da transação do pedido: se algum item
+     * não tiver saldo, a exceção desfaz as baixas já feitas junto com o pedido.
+     *
+     * @param quantidades quantidade por id de produto
+     * @param produtos    produtos já carregados pelo pedido, usados nas mensagens e no catálogo
+     */
+    public void baixar(Map<Long, Integer> quantidades, Map<Long, Produto> produtos) {
+        // No modo de reservas o banco só muda no flush, que publica os próprios eventos
+        if (reservas.isPresent()) {
+            recusarSemEstoque(reservas.get().reservar(new TreeMap<>(quantidades)), produtos);
+            return;
+        }
+
+        Map<Long, Saldo> saldos = estoqueRepository.baixar(new TreeMap<>(quantidades));
+        recusarSemEstoque(quantidades.keySet().stream().filter(id -> !saldos.containsKey(id)).toList(), produtos);
+
+        eventPublisher.publishEvent(estoqueAlterado(saldos, produtos));
+        // O catálogo público mostra a quantidade em estoque: toda baixa invalida as categorias dos produtos
+        eventPublisher.publishEvent(CatalogoAlteradoEvent.produto(quantidades.keySet().stream()
+                .map(id -> produtos.get(id).getCategoria().getNome())
+                .distinct()
+                .toArray(String[]::new)));
+    }
+
+    // Saldos vindos do RETURNING da baixa; nome, categoria e situação, do produto carregado pelo pedido
+    private static EstoqueAlteradoEvent estoqueAlterado(Map<Long, Saldo> saldos, Map<Long, Produto> produtos) {
+        return EstoqueAlteradoEvent.saldos(saldos.keySet(), saldos.entrySet().stream()
+                .filter(e -> Boolean.TRUE.equals(produtos.get(e.getKey()).getAtivo()))
+                .map(e -> {
+                    Produto produto = produtos.get(e.getKey());
+                    return new EstoqueCriticoDTO(produto.getId(), produto.getNome(), produto.getCategoria().getNome(),
+                            e.getValue().quantidade(), e.getValue().estoqueMinimo());
+                })
+                .toList());
+    }
+
+    private static void recusarSemEstoque(List<Long> semEstoque, Map<Long, Produto> produtos) {
+        if (!semEstoque.isEmpty()) {
+            String nomes = semEstoque.stream()
+                    .map(id -> produtos.get(id).getNome())
+                    .collect(Collectors.joining(", "));
+            throw new BusinessException("Estoque insuficiente para: " + nomes);
+        }
+    }
+
+    /**
+     * Baixa o estoque de vários pedidos na mesma transação, aceitando cada pedido inteiro ou nenhum item dele.
+     * Tenta primeiro a soma de todos em um único batch; só quando falta saldo decide pedido a pedido, na ordem.
+     *
+     * @return posição dos pedidos recusados, com os ids de produto sem saldo
+     */
+    public Map<Integer, List<Long>> baixarLote(List<Map<Long, Integer>> pedidos, Map<Long, Produto> produtos) {
+        Map<Integer, List<Long>> recusados = new LinkedHashMap<>();
+        if (pedidos.isEmpty()) {
+            return recusados;
+        }
+        SortedMap<Long, Integer> total = new TreeMap<>();
+        pedidos.forEach(quantidades -> quantidades.forEach((id, quantidade) -> total.merge(id, quantidade, Integer::sum)));
+        Map<Long, Saldo> saldos = new HashMap<>();
+        boolean baixouTudo = tentarBaixar(total, saldos).isEmpty();
+        if (!baixouTudo) {
+            for (int i = 0; i < pedidos.size(); i++) {
+                List<Long> semEstoque = tentarBaixar(new TreeMap<>(pedidos.get(i)), new HashMap<>());
+                if (!semEstoque.isEmpty()) {
+                    recusados.put(i, semEstoque);
+                }
+            }
+        }
+
+        if (reservas.isEmpty()) {
+            // Pedido a pedido, com baixas desfeitas no meio, o saldo final só é conhecido relendo os produtos
+            eventPublisher.publishEvent(baixouTudo ? estoqueAlterado(saldos, produtos) : EstoqueAlteradoEvent.produtos(total.keySet()));
+            // Como na baixa de um pedido, invalida as categorias tocadas pelo lote
+            eventPublisher.publishEvent(CatalogoAlteradoEvent.produto(total.keySet().stream()
+                    .map(id -> produtos.get(id).getCategoria().getNome())
+                    .distinct()
+                    .toArray(String[]::new)));
+        }
+        return recusados;
+    }
+
+    /** Devolve ao estoque as quantidades de um pedido cancelado. */
+    public void liberar(Map<Long, Integer> quantidades) {
+        if (reservas.isPresent()) {
+            reservas.get().liberar(quantidades);
+        } else {
+            estoqueRepository.repor(new TreeMap<>(quantidades));
+            eventPublisher.publishEvent(EstoqueAlteradoEvent.produtos(quantidades.keySet()));
+            // Sem as categorias dos produtos; cancelamentos são raros perto das vendas
+            eventPublisher.publishEvent(CatalogoAlteradoEvent.todosOsProdutos());
+        }
+    }
+
+    // Tudo ou nada sem depender do rollback da transação: no modo direto desfaz as baixas parciais.
+    // Quando baixa tudo, deixa em saldos o resultado de cada produto
+    private List<Long> tentarBaixar(SortedMap<Long, Integer> quantidades, Map<Long, Saldo> saldos) {
+        if (reservas.isPresent()) {
+            return reservas.get().reservar(quantidades);
+        }
+        Map<Long, Saldo> baixados = estoqueRepository.baixar(quantidades);
+        List<Long> semEstoque = quantidades.keySet().stream().filter(id -> !baixados.containsKey(id)).toList();
+        if (semEstoque.isEmpty()) {
+            saldos.putAll(baixados);
+        } else if (!baixados.isEmpty()) {
+            SortedMap<Long, Integer> baixadas = new TreeMap<>(quantidades);
+            baixadas.keySet().retainAll(baixados.keySet());
+            estoqueRepository.repor(baixadas);
+        }
+        return semEstoque;
+    }
+
+    /** Chamado quando o estoque de um produto é definido manualmente no cadastro. */
+    public void estoqueRedefinido(Long produtoId) {
+        reservas.ifPresent(r -> r.redefinido(produtoId));
+    }
+}
@@ -1,31 +1,123 @@
 package mba.ivens.padoca.modules.produto.services;
 
+import mba.ivens.padoca.config.exception.exeption.BusinessException;
+import mba.ivens.padoca.config.storage.StorageProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
 public class FileStorageService {
 
-    private final Path root = Paths.get("uploads");
+    private static final Set<String> FORMATOS_ACEITOS = Set.of("jpeg", "png", "gif");
+
+    private final StorageProvider storage;
+    private final Path temporarios = Paths.get(".uploads-tmp");
+    private final long maxPixels;
+
+    public FileStorageService(StorageProvider storage,
+                              @Value("${padoca.imagens.max-pixels:24000000}") long maxPixels) {
+        this.storage = storage;
+        this.maxPixels = maxPixels;
+    }
 
+    /**
+     * Grava a imagem enviada no {@link StorageProvider} e devolve a URL pública do original. O conteúdo é copiado
+     * em streaming para um arquivo temporário, calculando o SHA-256 no caminho, e só o cabeçalho é decodificado
+     * na validação; as variantes redimensionadas são geradas depois, pelo {@link ImagemVariantesService}.
+     * <p>
+     * O nome do arquivo é o hash do conteúdo: a URL nunca muda de conteúdo (pode ser cacheada para sempre)
+     * e a mesma foto enviada de novo reaproveita o arquivo existente.
+     */
     public String salvarArquivo(MultipartFile arquivo) {
+        Path temporario = null;
         try {
-            if (!Files.exists(root)) {
-                Files.createDirectory(root);
-            }
+            temporario = novoTemporario();
 
-            String nomeArquivo = UUID.randomUUID() + "_" + arquivo.getOriginalFilename();
-            Files.copy(arquivo.getInputStream(), this.root.resolve(nomeArquivo));
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            try (InputStream entrada = new DigestInputStream(arquivo.getInputStream(), sha256)) {
+                Files.copy(entrada, temporario);
+            }
 
+            // O nome enviado pelo cliente não é usado: evita colisões e caminhos maliciosos
+            String nomeArquivo = HexFormat.of().formatHex(sha256.digest()) + "." + validarImagem(temporario);
+            if (!storage.existe(nomeArquivo)) {
+                storage.gravar(nomeArquivo, temporario, tipoConteudo(nomeArquivo));
+            }
             return "/uploads/" + nomeArquivo;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
         } catch (IOException e) {
             throw new RuntimeException("Não foi possível salvar a imagem: " + e.getMessage());
+        } finally {
+            apagar(temporario);
+        }
+    }
+
+    /** Chave no {@link StorageProvider} de uma URL devolvida por {@link #salvarArquivo} ou de uma de suas variantes. */
+    public String chave(String url) {
+        return url.substring(url.lastIndexOf('/') + 1);
+    }
+
+    public Path novoTemporario() throws IOException {
+        Files.createDirectories(temporarios);
+        return temporarios.resolve(UUID.randomUUID() + ".tmp");
+    }
+
+    public static String tipoConteudo(String nomeArquivo) {
+        return MediaTypeFactory.getMediaType(nomeArquivo).orElse(MediaType.APPLICATION_OCTET_STREAM).toString();
+    }
+
+    /** @return extensão do arquivo conforme o formato detectado pelo conteúdo */
+    private String validarImagem(Path arquivo) throws IOException {
+        try (ImageInputStream entrada = ImageIO.createImageInputStream(arquivo.toFile())) {
+            Iterator<ImageReader> leitores = entrada != null ? ImageIO.getImageReaders(entrada) : null;
+            if (leitores == null || !leitores.hasNext()) {
+                throw new BusinessException("O arquivo enviado não é uma imagem válida.");
+            }
+            ImageReader leitor = leitores.next();
+            try {
+                String formato = leitor.getFormatName().toLowerCase();
+                if (!FORMATOS_ACEITOS.contains(formato)) {
+                    throw new BusinessException("Formato de imagem não suportado: " + formato + ". Envie JPEG, PNG ou GIF.");
+                }
+                leitor.setInput(entrada, true, true);
+                if ((long) leitor.getWidth(0) * leitor.getHeight(0) > maxPixels) {
+                    throw new BusinessException("Resolução da imagem acima do permitido (" + maxPixels / 1_000_000 + " megapixels).");
+                }
+                return formato.equals("jpeg") ? "jpg" : formato;
+            } finally {
+                leitor.dispose();
+            }
         }
     }
 
+    public static void apagar(Path arquivo) {
+        if (arquivo == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(arquivo);
+        } catch (IOException ignorado) {
+            // Um temporário órfão não deve transformar a resposta em erro
+        }
+    }
 }
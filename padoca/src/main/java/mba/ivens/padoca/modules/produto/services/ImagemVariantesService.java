@@ -0,0 +1,183 @@
+package mba.ivens.padoca.modules.produto.services;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import mba.ivens.padoca.config.storage.StorageProvider;
+import mba.ivens.padoca.modules.produto.dto.ImagemVariantesDTO;
+import mba.ivens.padoca.modules.produto.events.CatalogoAlteradoEvent;
+import mba.ivens.padoca.modules.produto.events.ImagemProdutoEnviadaEvent;
+import mba.ivens.padoca.modules.produto.repository.ProdutoRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gera as variantes thumb, card e full (JPEG, sem ampliar) da imagem de um produto.
+ * <p>
+ * Roda depois do commit, num pool com threads e fila limitadas: o cadastro do produto não espera o
+ * redimensionamento e uploads em rajada não disputam CPU com as requisições. Só quando as três variantes
+ * estão gravadas o produto passa a anunciá-las; até lá o catálogo usa o original.
+ */
+@Slf4j
+@Service
+public class ImagemVariantesService {
+
+    private static final Map<String, Integer> LARGURAS = new LinkedHashMap<>();
+
+    static {
+        LARGURAS.put("thumb", 200);
+        LARGURAS.put("card", 600);
+        LARGURAS.put("full", 1600);
+    }
+
+    private final FileStorageService fileStorage;
+    private final StorageProvider storage;
+    private final ProdutoRepository produtoRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final float qualidadeJpeg;
+    private final ExecutorService executor;
+
+    public ImagemVariantesService(FileStorageService fileStorage,
+                                  StorageProvider storage,
+                                  ProdutoRepository produtoRepository,
+                                  ApplicationEventPublisher eventPublisher,
+                                  @Value("${padoca.imagens.processamento.threads:2}") int threads,
+                                  @Value("${padoca.imagens.processamento.fila:100}") int fila,
+                                  @Value("${padoca.imagens.qualidade-jpeg:0.82}") float qualidadeJpeg) {
+        this.fileStorage = fileStorage;
+        this.storage = storage;
+        this.produtoRepository = produtoRepository;
+        this.eventPublisher = eventPublisher;
+        this.qualidadeJpeg = qualidadeJpeg;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(fila),
+                Thread.ofPlatform().name("imagens-", 0).daemon().factory());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onImagemEnviada(ImagemProdutoEnviadaEvent evento) {
+        try {
+            executor.execute(() -> processar(evento));
+        } catch (RejectedExecutionException e) {
+            log.warn("Fila de imagens cheia: produto {} seguirá com a imagem original", evento.produtoId());
+        }
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        executor.shutdownNow();
+    }
+
+    private void processar(ImagemProdutoEnviadaEvent evento) {
+        String url = evento.imagemUrl();
+        try {
+            // Nomes por hash: uma imagem repetida já tem as variantes prontas
+            if (!variantesProntas(url) && !gerarVariantes(url)) {
+                log.warn("Imagem {} do produto {} não pôde ser decodificada", url, evento.produtoId());
+                return;
+            }
+            // Se o produto já trocou de imagem, o UPDATE não afeta nada
+            if (produtoRepository.marcarImagemProcessada(evento.produtoId(), url) > 0) {
+                eventPublisher.publishEvent(CatalogoAlteradoEvent.produto(evento.categoria()));
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("Falha ao gerar variantes da imagem {} do produto {}", url, evento.produtoId(), e);
+        }
+    }
+
+    private boolean variantesProntas(String url) throws IOException {
+        for (String nome : LARGURAS.keySet()) {
+            if (!storage.existe(fileStorage.chave(ImagemVariantesDTO.variante(url, nome)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean gerarVariantes(String url) throws IOException {
+        BufferedImage original;
+        try (InputStream entrada = storage.abrir(fileStorage.chave(url))) {
+            original = ImageIO.read(entrada);
+        }
+        if (original == null) {
+            return false;
+        }
+        for (Map.Entry<String, Integer> variante : LARGURAS.entrySet()) {
+            Path temporario = fileStorage.novoTemporario();
+            try {
+                gravarJpeg(redimensionar(original, variante.getValue()), temporario);
+                storage.gravar(fileStorage.chave(ImagemVariantesDTO.variante(url, variante.getKey())), temporario, "image/jpeg");
+            } finally {
+                FileStorageService.apagar(temporario);
+            }
+        }
+        return true;
+    }
+
+    private static BufferedImage redimensionar(BufferedImage origem, int larguraMaxima) {
+        int largura = Math.min(larguraMaxima, origem.getWidth());
+        int altura = Math.max(1, (int) Math.round((double) origem.getHeight() * largura / origem.getWidth()));
+
+        // Reduções sucessivas pela metade: uma única passada bilinear de 4000px para 200px serrilha a imagem
+        BufferedImage atual = origem;
+        int w = origem.getWidth();
+        int h = origem.getHeight();
+        do {
+            boolean ultima = w / 2 < largura;
+            w = ultima ? largura : w / 2;
+            h = ultima ? altura : Math.max(altura, h / 2);
+            atual = desenhar(atual, w, h);
+        } while (w != largura);
+        return atual;
+    }
+
+    // JPEG não tem transparência: o fundo de PNGs e GIFs vira branco
+    private static BufferedImage desenhar(BufferedImage origem, int largura, int altura) {
+        BufferedImage destino = new BufferedImage(largura, altura, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = destino.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, largura, altura);
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(origem, 0, 0, largura, altura, null);
+        } finally {
+            g.dispose();
+        }
+        return destino;
+    }
+
+    private void gravarJpeg(BufferedImage imagem, Path destino) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream saida = ImageIO.createImageOutputStream(destino.toFile())) {
+            ImageWriteParam parametros = writer.getDefaultWriteParam();
+            parametros.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            parametros.setCompressionQuality(qualidadeJpeg);
+            writer.setOutput(saida);
+            writer.write(null, new IIOImage(imagem, null, null), parametros);
+        } finally {
+            writer.dispose();
+        }
+    }
+}
@@ -4,16 +4,23 @@ import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import mba.ivens.padoca.config.exception.exeption.BusinessException;
+import mba.ivens.padoca.modules.produto.dto.EstoqueCriticoDTO;
+import mba.ivens.padoca.modules.produto.dto.ProdutoCustoDTO;
 import mba.ivens.padoca.modules.produto.dto.ProdutoRequestDTO;
 import mba.ivens.padoca.modules.produto.dto.ProdutoResponseDTO;
 import mba.ivens.padoca.modules.produto.dtoMapper.ProdutoMapper;
+import mba.ivens.padoca.modules.produto.events.CatalogoAlteradoEvent;
+import mba.ivens.padoca.modules.produto.events.EstoqueAlteradoEvent;
+import mba.ivens.padoca.modules.produto.events.ImagemProdutoEnviadaEvent;
 import mba.ivens.padoca.modules.produto.model.Categoria;
 import mba.ivens.padoca.modules.produto.model.Produto;
 import mba.ivens.padoca.modules.produto.repository.CategoriaRepository;
 import mba.ivens.padoca.modules.produto.repository.ProdutoRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -22,6 +29,9 @@ public class ProdutoService {
     private final ProdutoRepository repository;
     private final ProdutoMapper mapper;
     private final CategoriaRepository categoriaRepository;
+    private final CatalogoCacheService catalogoCache;
+    private final EstoqueService estoqueService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public ProdutoResponseDTO criarProduto(ProdutoRequestDTO dto, String caminhoImagem) {
@@ -29,6 +39,7 @@ public class ProdutoService {
         produto.setNome(dto.nome());
         produto.setDescricao(dto.descricao());
         produto.setPreco(dto.preco());
+        produto.setPrecoCusto(dto.precoCusto());
         produto.setQuantidadeEstoque(dto.quantidadeEstoque());
         produto.setDiaDaSemanaDisponivel(dto.diaDaSemanaDisponivel());
         produto.setAtivo(true);
@@ -40,6 +51,11 @@ public class ProdutoService {
         
         produto.setImagemUrl(caminhoImagem);
         Produto salvo = repository.save(produto);
+        eventPublisher.publishEvent(CatalogoAlteradoEvent.produto(categoria.getNome()));
+        eventPublisher.publishEvent(estoqueAlterado(salvo));
+        if (caminhoImagem != null) {
+            eventPublisher.publishEvent(new ImagemProdutoEnviadaEvent(salvo.getId(), caminhoImagem, categoria.getNome()));
+        }
         return mapper.toResponse(salvo);
     }
 
@@ -49,14 +65,25 @@ public class ProdutoService {
         return mapper.toResponse(produto);
     }
 
+    public ProdutoCustoDTO buscarCusto(Long id) {
+        Produto produto = repository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Produto não encontrado com ID: " + id));
+        return mapper.toCusto(produto);
+    }
+
     @Transactional
     public ProdutoResponseDTO atualizarProduto(Long id, ProdutoRequestDTO dto, String novoCaminhoImagem) {
         Produto produto = repository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Produto não encontrado com ID: " + id));
+        String categoriaAnterior = produto.getCategoria().getNome();
 
         produto.setNome(dto.nome());
         produto.setDescricao(dto.descricao());
         produto.setPreco(dto.preco());
+        // O formulário do catálogo não conhece o custo: sem o campo, o custo gravado é mantido
+        if (dto.precoCusto() != null) {
+            produto.setPrecoCusto(dto.precoCusto());
+        }
         produto.setQuantidadeEstoque(dto.quantidadeEstoque());
         produto.setEstoqueMinimo(dto.estoqueMinimo());
         produto.setDiaDaSemanaDisponivel(dto.diaDaSemanaDisponivel());
@@ -68,29 +95,36 @@ public class ProdutoService {
 
         if (novoCaminhoImagem != null) {
             produto.setImagemUrl(novoCaminhoImagem);
+            produto.setImagemProcessada(false);
         }
 
         Produto atualizado = repository.save(produto);
+        estoqueService.estoqueRedefinido(id);
+        eventPublisher.publishEvent(CatalogoAlteradoEvent.produto(categoriaAnterior, categoria.getNome()));
+        eventPublisher.publishEvent(estoqueAlterado(atualizado));
+        if (novoCaminhoImagem != null) {
+            eventPublisher.publishEvent(new ImagemProdutoEnviadaEvent(id, novoCaminhoImagem, categoria.getNome()));
+        }
         return mapper.toResponse(atualizado);
     }
 
     public List<ProdutoResponseDTO> listarTodosAtivos() {
-        return repository.findByAtivoTrue().stream()
+        return catalogoCache.todosAtivos(() -> repository.findByAtivoTrue().stream()
                 .map(mapper::toResponse)
-                .toList();
+                .toList());
     }
 
     public List<ProdutoResponseDTO> listarPorCategoria(String categoriaNome) {
-        return repository.findByCategoria_NomeAndAtivoTrue(categoriaNome).stream()
+        return catalogoCache.porCategoria(categoriaNome, () -> repository.findByCategoria_NomeAndAtivoTrue(categoriaNome).stream()
                 .map(mapper::toResponse)
-                .toList();
+                .toList());
     }
 
     public List<ProdutoResponseDTO> listarAlmoco(String diaSemana) {
-        return repository.findAlmocoDoDia("ALMOCO", diaSemana)
+        return catalogoCache.almoco(diaSemana, () -> repository.findAlmocoDoDia("ALMOCO", diaSemana)
                 .stream()
                 .map(mapper::toResponse)
-                .toList();
+                .toList());
     }
 
     @Transactional
@@ -99,6 +133,15 @@ public class ProdutoService {
                 .orElseThrow(() -> new EntityNotFoundException("Produto não encontrado"));
         p.setAtivo(false);
         repository.save(p);
+        eventPublisher.publishEvent(CatalogoAlteradoEvent.produto(p.getCategoria().getNome()));
+        eventPublisher.publishEvent(estoqueAlterado(p));
     }
 
+    // O índice de críticos usa o estoque que acabou de ser gravado, sem reler o produto
+    private static EstoqueAlteradoEvent estoqueAlterado(Produto produto) {
+        return EstoqueAlteradoEvent.saldos(Set.of(produto.getId()), Boolean.TRUE.equals(produto.getAtivo())
+                ? List.of(new EstoqueCriticoDTO(produto.getId(), produto.getNome(), produto.getCategoria().getNome(),
+                        produto.getQuantidadeEstoque(), produto.getEstoqueMinimo()))
+                : List.of());
+    }
 }
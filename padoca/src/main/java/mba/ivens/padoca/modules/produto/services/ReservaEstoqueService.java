@@ -0,0 +1,184 @@
+package mba.ivens.padoca.modules.produto.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import mba.ivens.padoca.modules.produto.dto.EstoqueCriticoDTO;
+import mba.ivens.padoca.modules.produto.events.CatalogoAlteradoEvent;
+import mba.ivens.padoca.modules.produto.events.EstoqueAlteradoEvent;
+import mba.ivens.padoca.modules.produto.repository.EstoqueRepository;
+import mba.ivens.padoca.modules.produto.repository.EstoqueRepository.SaldoProduto;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Modo de reservas de estoque ({@code padoca.estoque.reservas.habilitado=true}).
+ * <p>
+ * O saldo disponível de cada produto fica em um {@link AtomicInteger} próprio e a reserva é um
+ * compare-and-set, sem tocar na linha do produto. Cada reserva grava um {@link mba.ivens.padoca.modules.produto.model.MovimentoEstoque}
+ * na transação do pedido; um job aplica periodicamente a soma dos movimentos em {@code produtos}, uma linha
+ * de UPDATE por produto em vez de uma por pedido. Na subida os pendentes são aplicados antes de qualquer reserva.
+ * <p>
+ * O saldo em memória é da instância: o modo pressupõe uma única instância da API.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "padoca.estoque.reservas.habilitado", havingValue = "true")
+public class ReservaEstoqueService {
+
+    private final EstoqueRepository estoqueRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Map<Long, AtomicInteger> disponivel = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconciliar() {
+        int aplicados = aplicarPendentes().size();
+        disponivel.clear();
+        log.info("Reservas de estoque reconciliadas: {} produtos atualizados a partir do diário", aplicados);
+    }
+
+    /**
+     * Reserva todas as quantidades ou nenhuma. Deve ser chamado na transação do pedido: se ela for desfeita,
+     * as reservas voltam ao saldo em memória.
+     *
+     * @return ids sem saldo suficiente; vazio quando a reserva foi feita
+     */
+    public List<Long> reservar(SortedMap<Long, Integer> quantidades) {
+        List<Long> semEstoque = new ArrayList<>();
+        List<Map.Entry<Long, Integer>> feitas = new ArrayList<>();
+        for (Map.Entry<Long, Integer> item : quantidades.entrySet()) {
+            if (tentarReservar(contador(item.getKey()), item.getValue())) {
+                feitas.add(item);
+            } else {
+                semEstoque.add(item.getKey());
+            }
+        }
+        if (!semEstoque.isEmpty()) {
+            feitas.forEach(this::devolverEmMemoria);
+            return semEstoque;
+        }
+
+        estoqueRepository.registrarMovimentos(negativos(quantidades));
+        aoDesfazer(() -> quantidades.entrySet().forEach(this::devolverEmMemoria));
+        return semEstoque;
+    }
+
+    /** Devolve ao estoque as quantidades de um pedido cancelado. O saldo em memória só cresce após o commit. */
+    public void liberar(Map<Long, Integer> quantidades) {
+        estoqueRepository.registrarMovimentos(quantidades);
+        aoConfirmar(() -> quantidades.entrySet().forEach(this::devolverEmMemoria));
+    }
+
+    /** O estoque foi definido à mão: os pendentes perdem o sentido e o saldo é recarregado na próxima reserva. */
+    public void redefinido(Long produtoId) {
+        estoqueRepository.descartarPendentes(produtoId);
+        aoConfirmar(() -> disponivel.remove(produtoId));
+    }
+
+    @Scheduled(fixedDelayString = "${padoca.estoque.reservas.intervalo-flush:2s}")
+    public void flush() {
+        List<SaldoProduto> saldos = aplicarPendentes();
+        if (!saldos.isEmpty()) {
+            log.debug("Flush de reservas: {} produtos atualizados", saldos.size());
+        }
+    }
+
+    public Integer disponivel(Long produtoId) {
+        AtomicInteger contador = disponivel.get(produtoId);
+        return contador != null ? contador.get() : null;
+    }
+
+    private List<SaldoProduto> aplicarPendentes() {
+        List<SaldoProduto> saldos = estoqueRepository.aplicarMovimentos();
+        if (saldos.isEmpty()) {
+            return saldos;
+        }
+        eventPublisher.publishEvent(EstoqueAlteradoEvent.saldos(saldos.stream().map(SaldoProduto::produtoId).toList(),
+                saldos.stream()
+                        .filter(SaldoProduto::ativo)
+                        .map(s -> new EstoqueCriticoDTO(s.produtoId(), s.nome(), s.categoria(), s.quantidade(), s.estoqueMinimo()))
+                        .toList()));
+        // O catálogo lê o estoque do banco: só agora as quantidades vendidas aparecem nele
+        eventPublisher.publishEvent(CatalogoAlteradoEvent.produto(saldos.stream()
+                .map(SaldoProduto::categoria)
+                .distinct()
+                .toArray(String[]::new)));
+        return saldos;
+    }
+
+    private AtomicInteger contador(Long produtoId) {
+        AtomicInteger contador = disponivel.get(produtoId);
+        if (contador != null) {
+            return contador;
+        }
+        // Produto inexistente fica com saldo zero
+        int saldo = estoqueRepository.saldoComPendentes(produtoId).orElse(0);
+        AtomicInteger existente = disponivel.putIfAbsent(produtoId, new AtomicInteger(saldo));
+        return existente != null ? existente : disponivel.get(produtoId);
+    }
+
+    private static boolean tentarReservar(AtomicInteger contador, int quantidade) {
+        int atual;
+        do {
+            atual = contador.get();
+            if (atual < quantidade) {
+                return false;
+            }
+        } while (!contador.compareAndSet(atual, atual - quantidade));
+        return true;
+    }
+
+    private void devolverEmMemoria(Map.Entry<Long, Integer> item) {
+        AtomicInteger contador = disponivel.get(item.getKey());
+        if (contador != null) {
+            contador.addAndGet(item.getValue());
+        }
+    }
+
+    private static Map<Long, Integer> negativos(Map<Long, Integer> quantidades) {
+        Map<Long, Integer> variacoes = new TreeMap<>();
+        quantidades.forEach((id, qtd) -> variacoes.put(id, -qtd));
+        return variacoes;
+    }
+
+    private static void aoDesfazer(Runnable acao) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        acao.run();
+                    }
+                }
+            });
+        }
+    }
+
+    private static void aoConfirmar(Runnable acao) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    acao.run();
+                }
+            });
+        } else {
+            acao.run();
+        }
+    }
+}
@@ -4,13 +4,16 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import mba.ivens.padoca.modules.usuarios.dto.LoginDTO;
 import mba.ivens.padoca.modules.usuarios.dto.LoginResponseDTO;
+import mba.ivens.padoca.modules.usuarios.dto.TicketStreamDTO;
 import mba.ivens.padoca.modules.usuarios.dto.UsuarioResponseDTO;
-import mba.ivens.padoca.modules.usuarios.dtoMapper.UsuarioMapper;
-import mba.ivens.padoca.modules.usuarios.model.Usuario;
+import mba.ivens.padoca.modules.usuarios.model.CredenciaisUsuario;
+import mba.ivens.padoca.modules.usuarios.service.TicketStreamService;
 import mba.ivens.padoca.modules.usuarios.service.TokenService;
+import mba.ivens.padoca.modules.usuarios.service.UsuarioService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -22,23 +25,33 @@ public class AuthController {
 
     private final TokenService tokenService;
     private final AuthenticationManager authenticationManager;
-    private final UsuarioMapper usuarioMapper;
+    private final UsuarioService usuarioService;
+    private final TicketStreamService ticketStreamService;
 
     public AuthController(TokenService tokenService,
                           AuthenticationManager authenticationManager,
-                          UsuarioMapper usuarioMapper) {
+                          UsuarioService usuarioService,
+                          TicketStreamService ticketStreamService) {
         this.tokenService = tokenService;
         this.authenticationManager = authenticationManager;
-        this.usuarioMapper = usuarioMapper;
+        this.usuarioService = usuarioService;
+        this.ticketStreamService = ticketStreamService;
     }
 
     @PostMapping("/login")
     public ResponseEntity<LoginResponseDTO> login(@RequestBody @Valid LoginDTO data) {
         var usernamePassword = new UsernamePasswordAuthenticationToken(data.email(), data.senha());
         var auth = authenticationManager.authenticate(usernamePassword);
-        var usuario = (Usuario) auth.getPrincipal();
-        var token = tokenService.gerarToken(usuario);
-        UsuarioResponseDTO usuarioDTO = usuarioMapper.toResponse(usuario);
+        var credenciais = (CredenciaisUsuario) auth.getPrincipal();
+        var token = tokenService.gerarToken(credenciais);
+        UsuarioResponseDTO usuarioDTO = usuarioService.buscarPorEmail(credenciais.email());
         return ResponseEntity.ok(new LoginResponseDTO(token, usuarioDTO));
     }
+
+    // Autenticado pelo cabeçalho; o ticket abre uma vez /api/pedidos/stream?ticket=...
+    @PostMapping("/stream-ticket")
+    public ResponseEntity<TicketStreamDTO> ticketStream(Authentication autenticacao) {
+        return ResponseEntity.ok(new TicketStreamDTO(ticketStreamService.emitir(autenticacao),
+                ticketStreamService.validade().toSeconds()));
+    }
 }
@@ -7,6 +7,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import mba.ivens.padoca.config.pagination.CursorPageDTO;
 import mba.ivens.padoca.modules.usuarios.dto.EnderecoDTO;
 import mba.ivens.padoca.modules.usuarios.dto.UsuarioRequestDTO;
 import mba.ivens.padoca.modules.usuarios.dto.UsuarioResponseDTO;
@@ -49,6 +50,20 @@ public class UsuarioController {
         return ResponseEntity.ok(service.listarAtivosPaginado(tipo, pageable));
     }
 
+    @Operation(summary = "Listar usuários ativos por cursor", description = "Mesma listagem ordenada por nome, paginada por cursor: sem COUNT e com custo constante em páginas profundas.")
+    @ApiResponse(responseCode = "200", description = "Página retornada com sucesso")
+    @GetMapping("/cursor")
+    public ResponseEntity<CursorPageDTO<UsuarioResponseDTO>> listarUsuariosPorCursor(
+            @Parameter(description = "Cursor opaco devolvido pela página anterior")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Itens por página (até 100)")
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(required = false) TipoUsuario tipo,
+            @Parameter(description = "Inclui o total de usuários (executa um COUNT)")
+            @RequestParam(defaultValue = "false") boolean contar) {
+        return ResponseEntity.ok(service.listarAtivosPorCursor(tipo, cursor, limit, contar));
+    }
+
     @Operation(summary = "Buscar usuário por ID", description = "Retorna os detalhes de um usuário específico. Se o usuário estiver inativo ou não existir, retorna 404.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Usuário encontrado"),
@@ -0,0 +1,3 @@
+package mba.ivens.padoca.modules.usuarios.dto;
+
+public record TicketStreamDTO(String ticket, long validadeSegundos) {}
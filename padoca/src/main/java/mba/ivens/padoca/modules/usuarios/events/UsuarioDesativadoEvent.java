@@ -0,0 +1,3 @@
+package mba.ivens.padoca.modules.usuarios.events;
+
+public record UsuarioDesativadoEvent(Long usuarioId) {}
@@ -0,0 +1,35 @@
+package mba.ivens.padoca.modules.usuarios.model;
+
+import mba.ivens.padoca.modules.usuarios.model.enums.TipoUsuario;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Somente o que o login precisa, lido por projeção: não carrega endereços nem as tabelas das subclasses de {@link Usuario}.
+ */
+public record CredenciaisUsuario(Long id, String email, String senha, TipoUsuario tipo, boolean ativo) implements UserDetails {
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return List.of(new SimpleGrantedAuthority("ROLE_" + tipo.name()));
+    }
+
+    @Override
+    public String getPassword() {
+        return senha;
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return ativo;
+    }
+}
@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 import mba.ivens.padoca.modules.usuarios.model.enums.TipoUsuario;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 import org.springframework.security.core.GrantedAuthority;
@@ -56,7 +57,9 @@ public class Usuario implements UserDetails {
     private LocalDateTime dataAtualizacao;
 
 
-    @OneToMany(mappedBy = "usuario", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    // Carregados sob demanda; em listagens os endereços de uma página vêm em um único IN
+    @OneToMany(mappedBy = "usuario", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
+    @BatchSize(size = 50)
     @JsonManagedReference
     @ToString.Exclude
     @EqualsAndHashCode.Exclude
@@ -0,0 +1,24 @@
+package mba.ivens.padoca.modules.usuarios.model;
+
+import mba.ivens.padoca.modules.usuarios.model.enums.TipoUsuario;
+import org.springframework.security.core.AuthenticatedPrincipal;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+
+/**
+ * Principal montado a partir das claims do JWT, sem consultar o banco.
+ * {@link #getName()} devolve o e-mail, então {@code Authentication.getName()} continua igual ao do {@link Usuario}.
+ */
+public record UsuarioAutenticado(Long id, String email, TipoUsuario tipo) implements AuthenticatedPrincipal {
+
+    @Override
+    public String getName() {
+        return email;
+    }
+
+    public List<GrantedAuthority> authorities() {
+        return List.of(new SimpleGrantedAuthority("ROLE_" + tipo.name()));
+    }
+}
@@ -2,6 +2,17 @@ package mba.ivens.padoca.modules.usuarios.repository;
 
 import mba.ivens.padoca.modules.usuarios.model.Endereco;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
 public interface EnderecoRepository extends JpaRepository<Endereco, Long> {
+
+    // A posse é checada no próprio DELETE: endereço de outro usuário simplesmente não é afetado
+    @Modifying
+    @Query("""
+        DELETE FROM Endereco e
+        WHERE e.id = :id
+        AND e.usuario.id = (SELECT u.id FROM Usuario u WHERE u.email = :email)
+    """)
+    int deleteByIdAndUsuarioEmail(Long id, String email);
 }
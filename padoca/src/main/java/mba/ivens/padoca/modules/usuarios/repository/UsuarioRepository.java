@@ -1,12 +1,17 @@
 package mba.ivens.padoca.modules.usuarios.repository;
 
+import mba.ivens.padoca.modules.usuarios.model.CredenciaisUsuario;
 import mba.ivens.padoca.modules.usuarios.model.Usuario;
 import mba.ivens.padoca.modules.usuarios.model.enums.TipoUsuario;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,6 +20,15 @@ public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
 
     Optional<Usuario> findByEmail(String email);
 
+    @EntityGraph(attributePaths = "enderecos")
+    Optional<Usuario> findComEnderecosByEmail(String email);
+
+    @Query("""
+        SELECT new mba.ivens.padoca.modules.usuarios.model.CredenciaisUsuario(u.id, u.email, u.senha, u.tipo, u.ativo)
+        FROM Usuario u WHERE u.email = :email
+    """)
+    Optional<CredenciaisUsuario> findCredenciaisByEmail(String email);
+
     boolean existsByEmail(String email);
 
     boolean existsByCpf(String cpf);
@@ -23,5 +37,23 @@ public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
     Page<Usuario> findAllByAtivoTrue(Pageable pageable);
     Page<Usuario> findAllByTipoAndAtivoTrue(TipoUsuario tipo, Pageable pageable);
 
+    long countByTipoInAndAtivoTrue(Collection<TipoUsuario> tipos);
+
+    // Keyset por (nome, id): o custo de qualquer página é o mesmo da primeira
+    @Query("SELECT u FROM Usuario u WHERE u.ativo = true AND u.tipo IN :tipos ORDER BY u.nome, u.id")
+    List<Usuario> findPaginaAtivos(Collection<TipoUsuario> tipos, Limit limit);
+
+    @Query("""
+        SELECT u FROM Usuario u
+        WHERE u.ativo = true AND u.tipo IN :tipos
+        AND (u.nome, u.id) > (:nome, :id)
+        ORDER BY u.nome, u.id
+    """)
+    List<Usuario> findPaginaAtivosApos(Collection<TipoUsuario> tipos, String nome, Long id, Limit limit);
+
+    @EntityGraph(attributePaths = "enderecos")
     Optional<Usuario> findByIdAndAtivoTrue(Long id);
+
+    @Query("SELECT u.ativo FROM Usuario u WHERE u.id = :id")
+    Optional<Boolean> findAtivoById(Long id);
 }
@@ -0,0 +1,64 @@
+package mba.ivens.padoca.modules.usuarios.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tickets para abrir o stream SSE da fila. O EventSource do navegador não envia cabeçalhos, então a credencial
+ * vai na URL, onde acaba em logs de proxy e no histórico: em vez do JWT, vai um ticket de uso único que expira
+ * em segundos.
+ * <p>
+ * Os tickets ficam em memória: com mais de uma instância, o ticket só vale na instância que o emitiu.
+ */
+@Component
+public class TicketStreamService {
+
+    private record Ticket(Authentication autenticacao, long expiraEm) {}
+
+    private final SecureRandom random = new SecureRandom();
+    private final Duration validade;
+    private final int tamanhoMaximo;
+    private final Map<String, Ticket> tickets = new ConcurrentHashMap<>();
+
+    public TicketStreamService(@Value("${api.security.stream-ticket.validade:30s}") Duration validade,
+                               @Value("${api.security.stream-ticket.tamanho:10000}") int tamanhoMaximo) {
+        this.validade = validade;
+        this.tamanhoMaximo = tamanhoMaximo;
+    }
+
+    public String emitir(Authentication autenticacao) {
+        long agora = System.nanoTime();
+        if (tickets.size() >= tamanhoMaximo) {
+            tickets.values().removeIf(t -> agora - t.expiraEm() >= 0);
+            if (tickets.size() >= tamanhoMaximo) {
+                tickets.clear();
+            }
+        }
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String ticket = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        tickets.put(ticket, new Ticket(autenticacao, agora + validade.toNanos()));
+        return ticket;
+    }
+
+    /** Consome o ticket: um segundo uso, ou um uso depois da validade, não autentica. */
+    public Optional<Authentication> resgatar(String ticket) {
+        Ticket encontrado = tickets.remove(ticket);
+        if (encontrado == null || System.nanoTime() - encontrado.expiraEm() >= 0) {
+            return Optional.empty();
+        }
+        return Optional.of(encontrado.autenticacao());
+    }
+
+    public Duration validade() {
+        return validade;
+    }
+}
@@ -4,28 +4,49 @@ import com.auth0.jwt.JWT;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.JWTCreationException;
 import com.auth0.jwt.exceptions.JWTVerificationException;
-import mba.ivens.padoca.modules.usuarios.model.Usuario;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.auth0.jwt.interfaces.JWTVerifier;
+import mba.ivens.padoca.modules.usuarios.model.CredenciaisUsuario;
+import mba.ivens.padoca.modules.usuarios.model.UsuarioAutenticado;
+import mba.ivens.padoca.modules.usuarios.model.enums.TipoUsuario;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class TokenService {
 
-    @Value("${api.security.token.secret:meu-segredo-super-secreto}")
-    private String secret;
+    // Algorithm e JWTVerifier são imutáveis e thread-safe: criados uma vez só
+    private final Algorithm algorithm;
+    private final JWTVerifier verifier;
 
-    public String gerarToken(Usuario usuario) {
+    // Tokens já verificados, pelo próprio token: o DecodedJWT já o guarda, e um hash SHA-256 como chave custaria
+    // quase tanto quanto a verificação que o cache evita (ver TokenServiceBenchmark). Tamanho 0 desliga o cache
+    private final Map<String, DecodedJWT> verificados = new ConcurrentHashMap<>();
+    private final int tamanhoCache;
+
+    public TokenService(@Value("${api.security.token.secret:meu-segredo-super-secreto}") String secret,
+                        @Value("${api.security.token.cache-size:1024}") int tamanhoCache) {
+        this.algorithm = Algorithm.HMAC256(secret);
+        this.verifier = JWT.require(algorithm)
+                .withIssuer("padoca-api")
+                .build();
+        this.tamanhoCache = tamanhoCache;
+    }
+
+    public String gerarToken(CredenciaisUsuario usuario) {
         try {
-            Algorithm algorithm = Algorithm.HMAC256(secret);
             return JWT.create()
                     .withIssuer("padoca-api")
-                    .withSubject(usuario.getEmail())
-                    .withClaim("id", usuario.getId())
-                    .withClaim("role", usuario.getTipo().toString())
+                    .withSubject(usuario.email())
+                    .withClaim("id", usuario.id())
+                    .withClaim("role", usuario.tipo().toString())
                     .withExpiresAt(genExpirationDate())
                     .sign(algorithm);
         } catch (JWTCreationException exception) {
@@ -34,15 +55,61 @@ public class TokenService {
     }
 
     public String validateToken(String token) {
+        return verificar(token).map(DecodedJWT::getSubject).orElse("");
+    }
+
+    /**
+     * Valida o token e monta o principal a partir das claims emitidas em {@link #gerarToken(CredenciaisUsuario)}.
+     * Tokens sem as claims {@code id} e {@code role} são rejeitados.
+     */
+    public Optional<UsuarioAutenticado> validarToken(String token) {
+        return verificar(token).flatMap(jwt -> {
+            Long id = jwt.getClaim("id").asLong();
+            String role = jwt.getClaim("role").asString();
+            if (id == null || role == null || jwt.getSubject() == null) {
+                return Optional.empty();
+            }
+            try {
+                return Optional.of(new UsuarioAutenticado(id, jwt.getSubject(), TipoUsuario.valueOf(role)));
+            } catch (IllegalArgumentException e) {
+                return Optional.empty();
+            }
+        });
+    }
+
+    private Optional<DecodedJWT> verificar(String token) {
+        if (tamanhoCache <= 0) {
+            return verificarAssinatura(token);
+        }
+
+        Instant agora = Instant.now();
+        DecodedJWT emCache = verificados.get(token);
+        if (emCache != null) {
+            if (agora.isBefore(emCache.getExpiresAtAsInstant())) {
+                return Optional.of(emCache);
+            }
+            verificados.remove(token, emCache);
+            return Optional.empty();
+        }
+
+        Optional<DecodedJWT> verificado = verificarAssinatura(token);
+        verificado.filter(jwt -> jwt.getExpiresAtAsInstant() != null).ifPresent(jwt -> {
+            if (verificados.size() >= tamanhoCache) {
+                verificados.values().removeIf(j -> !agora.isBefore(j.getExpiresAtAsInstant()));
+                if (verificados.size() >= tamanhoCache) {
+                    verificados.clear();
+                }
+            }
+            verificados.put(token, jwt);
+        });
+        return verificado;
+    }
+
+    private Optional<DecodedJWT> verificarAssinatura(String token) {
         try {
-            Algorithm algorithm = Algorithm.HMAC256(secret);
-            return JWT.require(algorithm)
-                    .withIssuer("padoca-api")
-                    .build()
-                    .verify(token)
-                    .getSubject();
+            return Optional.of(verifier.verify(token));
         } catch (JWTVerificationException exception) {
-            return "";
+            return Optional.empty();
         }
     }
 
@@ -0,0 +1,64 @@
+package mba.ivens.padoca.modules.usuarios.service;
+
+import mba.ivens.padoca.modules.usuarios.events.UsuarioDesativadoEvent;
+import mba.ivens.padoca.modules.usuarios.repository.UsuarioRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Guarda por pouco tempo se o usuário do token continua ativo, para que a autenticação stateless
+ * respeite desativações sem ir ao banco em toda requisição.
+ * <p>
+ * A desativação feita por esta instância é refletida logo após o commit; as demais esperam no máximo o TTL.
+ */
+@Component
+public class UsuarioAtivoCache {
+
+    private record Entrada(boolean ativo, long expiraEm) {}
+
+    private final UsuarioRepository repository;
+    private final long ttlNanos;
+    private final int tamanhoMaximo;
+    private final Map<Long, Entrada> entradas = new ConcurrentHashMap<>();
+
+    public UsuarioAtivoCache(UsuarioRepository repository,
+                             @Value("${api.security.auth.ativo-cache-ttl:60s}") Duration ttl,
+                             @Value("${api.security.auth.ativo-cache-tamanho:10000}") int tamanhoMaximo) {
+        this.repository = repository;
+        this.ttlNanos = ttl.toNanos();
+        this.tamanhoMaximo = tamanhoMaximo;
+    }
+
+    public boolean estaAtivo(Long usuarioId) {
+        long agora = System.nanoTime();
+        Entrada entrada = entradas.get(usuarioId);
+        if (entrada != null && agora - entrada.expiraEm() < 0) {
+            return entrada.ativo();
+        }
+
+        // Usuário removido conta como inativo
+        boolean ativo = repository.findAtivoById(usuarioId).orElse(false);
+        if (entradas.size() >= tamanhoMaximo) {
+            liberarEspaco(agora);
+        }
+        entradas.put(usuarioId, new Entrada(ativo, agora + ttlNanos));
+        return ativo;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUsuarioDesativado(UsuarioDesativadoEvent evento) {
+        entradas.remove(evento.usuarioId());
+    }
+
+    private void liberarEspaco(long agora) {
+        entradas.values().removeIf(e -> agora - e.expiraEm() >= 0);
+        if (entradas.size() >= tamanhoMaximo) {
+            entradas.clear();
+        }
+    }
+}
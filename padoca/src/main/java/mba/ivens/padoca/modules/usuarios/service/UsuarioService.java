@@ -3,16 +3,21 @@ package mba.ivens.padoca.modules.usuarios.service;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import mba.ivens.padoca.config.pagination.Cursor;
+import mba.ivens.padoca.config.pagination.CursorPageDTO;
 import mba.ivens.padoca.config.exception.exeption.BusinessException;
 import mba.ivens.padoca.modules.usuarios.dto.EnderecoDTO;
 import mba.ivens.padoca.modules.usuarios.dto.UsuarioRequestDTO;
 import mba.ivens.padoca.modules.usuarios.dto.UsuarioResponseDTO;
 import mba.ivens.padoca.modules.usuarios.dtoMapper.UsuarioMapper;
+import mba.ivens.padoca.modules.usuarios.events.UsuarioDesativadoEvent;
 import mba.ivens.padoca.modules.usuarios.model.Endereco;
 import mba.ivens.padoca.modules.usuarios.model.Usuario;
 import mba.ivens.padoca.modules.usuarios.model.enums.TipoUsuario;
 import mba.ivens.padoca.modules.usuarios.repository.EnderecoRepository;
 import mba.ivens.padoca.modules.usuarios.repository.UsuarioRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -21,7 +26,9 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import org.springframework.data.domain.Pageable;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -31,10 +38,11 @@ public class UsuarioService implements UserDetailsService {
     private final UsuarioMapper mapper;
     private final PasswordEncoder passwordEncoder;
     private final EnderecoRepository enderecoRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        return repository.findByEmail(email)
+        return repository.findCredenciaisByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("Usuário não encontrado com e-mail: " + email));
     }
 
@@ -52,12 +60,14 @@ public class UsuarioService implements UserDetailsService {
         return mapper.toResponse(usuarioSalvo);
     }
 
+    @Transactional
     public List<UsuarioResponseDTO> listarTodos() {
         return repository.findAll().stream()
                 .map(mapper::toResponse)
                 .toList();
     }
 
+    @Transactional
     public Page<UsuarioResponseDTO> listarAtivosPaginado(TipoUsuario tipo, Pageable pageable) {
         Page<Usuario> usuariosPage;
         if (tipo != null) {
@@ -68,6 +78,26 @@ public class UsuarioService implements UserDetailsService {
         return usuariosPage.map(mapper::toResponse);
     }
 
+    @Transactional
+    public CursorPageDTO<UsuarioResponseDTO> listarAtivosPorCursor(TipoUsuario tipo, String cursor, int limite, boolean contar) {
+        Set<TipoUsuario> tipos = tipo != null ? EnumSet.of(tipo) : EnumSet.allOf(TipoUsuario.class);
+        int limiteEfetivo = Cursor.limitar(limite);
+        Limit limit = Limit.of(limiteEfetivo + 1);
+
+        List<Usuario> usuarios;
+        if (cursor == null) {
+            usuarios = repository.findPaginaAtivos(tipos, limit);
+        } else {
+            var chave = Cursor.decodificar(cursor, 2);
+            usuarios = repository.findPaginaAtivosApos(tipos, chave.texto(0), chave.numero(1), limit);
+        }
+
+        return Cursor.pagina(usuarios, limiteEfetivo,
+                u -> Cursor.codificar(u.getNome(), u.getId()),
+                mapper::toResponse,
+                contar ? repository.countByTipoInAndAtivoTrue(tipos) : null);
+    }
+
     public UsuarioResponseDTO buscarPorAtivoPorId(Long id) {
         Usuario usuario = repository.findByIdAndAtivoTrue(id)
                 .orElseThrow(() -> new EntityNotFoundException("Usuário não encontrado ou inativo."));
@@ -81,18 +111,18 @@ public class UsuarioService implements UserDetailsService {
                 .orElseThrow(() -> new RuntimeException("Usuário não encontrado"));
         usuario.setAtivo(false);
         repository.save(usuario);
+        eventPublisher.publishEvent(new UsuarioDesativadoEvent(usuario.getId()));
     }
 
     public UsuarioResponseDTO buscarPorEmail(String email) {
-        Usuario usuario = repository.findByEmail(email)
+        Usuario usuario = repository.findComEnderecosByEmail(email)
                 .orElseThrow(() -> new EntityNotFoundException("Usuário não encontrado."));
         return mapper.toResponse(usuario);
     }
 
     @Transactional
     public UsuarioResponseDTO atualizarPerfil(String email, String nome, String telefone) {
-        Usuario usuario = repository.findAll().stream()
-                .filter(u -> u.getEmail().equals(email)).findFirst()
+        Usuario usuario = repository.findComEnderecosByEmail(email)
                 .orElseThrow(() -> new EntityNotFoundException("Usuário não encontrado"));
 
         usuario.setNome(nome);
@@ -103,8 +133,7 @@ public class UsuarioService implements UserDetailsService {
 
     @Transactional
     public UsuarioResponseDTO adicionarEndereco(String email, EnderecoDTO dto) {
-        Usuario usuario = repository.findAll().stream()
-                .filter(u -> u.getEmail().equals(email)).findFirst()
+        Usuario usuario = repository.findComEnderecosByEmail(email)
                 .orElseThrow(() -> new EntityNotFoundException("Usuário não encontrado"));
         Endereco end = new Endereco();
         end.setLogradouro(dto.logradouro());
@@ -123,16 +152,9 @@ public class UsuarioService implements UserDetailsService {
 
     @Transactional
     public void removerEndereco(String email, Long enderecoId) {
-        Usuario usuario = repository.findAll().stream()
-                .filter(u -> u.getEmail().equals(email)).findFirst()
-                .orElseThrow(() -> new EntityNotFoundException("Usuário não encontrado"));
-        Endereco endereco = enderecoRepository.findById(enderecoId)
-                .orElseThrow(() -> new EntityNotFoundException("Endereço não encontrado"));
-        if (!endereco.getUsuario().getId().equals(usuario.getId())) {
-            throw new BusinessException("Você não tem permissão para excluir este endereço.");
+        if (enderecoRepository.deleteByIdAndUsuarioEmail(enderecoId, email) == 0) {
+            throw new EntityNotFoundException("Endereço não encontrado");
         }
-        usuario.getEnderecos().remove(endereco);
-        enderecoRepository.delete(endereco);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,73 @@
+-- Completa os bancos criados pelo antigo ddl-auto=update, que entram como baseline na versão 1 sem rodar a
+-- V1: acrescenta as colunas, tabelas, sequences e índices que a V1 já cria. Em bancos novos não muda nada.
+
+-- estoque
+
+ALTER TABLE estoque.produtos
+    ADD COLUMN IF NOT EXISTS preco_custo numeric(10, 2),
+    ADD COLUMN IF NOT EXISTS imagem_processada boolean;
+
+CREATE TABLE IF NOT EXISTS estoque.movimentos_estoque (
+    id bigint GENERATED BY DEFAULT AS IDENTITY,
+    produto_id bigint NOT NULL,
+    quantidade integer NOT NULL,
+    aplicado boolean NOT NULL,
+    data_hora timestamp(6),
+    PRIMARY KEY (id)
+);
+
+-- vendas
+
+ALTER TABLE vendas.pedidos
+    ADD COLUMN IF NOT EXISTS chave_transicao varchar(64),
+    ADD COLUMN IF NOT EXISTS data_atualizacao timestamp(6);
+
+ALTER TABLE vendas.itens_pedido ADD COLUMN IF NOT EXISTS data_pedido timestamp(6);
+
+UPDATE vendas.itens_pedido i SET data_pedido = p.data_criacao
+FROM vendas.pedidos p
+WHERE p.id = i.pedido_id AND i.data_pedido IS NULL;
+
+-- Os itens não têm mais chave estrangeira para vendas.pedidos (ver ItemPedido); o ddl-auto a criava com nome gerado
+DO $$
+DECLARE
+    fk name;
+BEGIN
+    FOR fk IN
+        SELECT conname FROM pg_constraint
+        WHERE conrelid = 'vendas.itens_pedido'::regclass AND confrelid = 'vendas.pedidos'::regclass AND contype = 'f'
+    LOOP
+        EXECUTE format('ALTER TABLE vendas.itens_pedido DROP CONSTRAINT %I', fk);
+    END LOOP;
+END $$;
+
+CREATE TABLE IF NOT EXISTS vendas.pedidos_idempotencia (
+    chave varchar(64) NOT NULL,
+    hash_requisicao varchar(64) NOT NULL,
+    pedido_id bigint,
+    resposta text,
+    data_criacao timestamp(6) NOT NULL,
+    PRIMARY KEY (chave)
+);
+
+-- Os ids passaram de identity para sequence com alocação em bloco: a sequence começa depois dos ids existentes
+CREATE SEQUENCE IF NOT EXISTS vendas.pedidos_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS vendas.itens_pedido_seq START WITH 1 INCREMENT BY 50;
+
+SELECT setval('vendas.pedidos_seq', m.id + 50)
+FROM (SELECT max(id) AS id FROM vendas.pedidos) m, vendas.pedidos_seq s
+WHERE m.id + 50 > s.last_value;
+
+SELECT setval('vendas.itens_pedido_seq', m.id + 50)
+FROM (SELECT max(id) AS id FROM vendas.itens_pedido) m, vendas.itens_pedido_seq s
+WHERE m.id + 50 > s.last_value;
+
+-- índices da V1
+
+CREATE INDEX IF NOT EXISTS idx_usuarios_nome_id ON acesso.usuarios (nome, id);
+CREATE INDEX IF NOT EXISTS idx_enderecos_usuario ON acesso.enderecos (usuario_id);
+CREATE INDEX IF NOT EXISTS idx_movimentos_estoque_pendentes ON estoque.movimentos_estoque (aplicado, produto_id);
+CREATE INDEX IF NOT EXISTS idx_pedidos_data_criacao_id ON vendas.pedidos (data_criacao, id);
+CREATE INDEX IF NOT EXISTS idx_itens_pedido_pedido ON vendas.itens_pedido (pedido_id, data_pedido);
+CREATE INDEX IF NOT EXISTS idx_pedidos_idempotencia_data_criacao ON vendas.pedidos_idempotencia (data_criacao);
+CREATE INDEX IF NOT EXISTS idx_feedbacks_data_hora_id ON feedbacks (data_hora, id);
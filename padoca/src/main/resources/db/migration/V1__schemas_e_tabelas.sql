@@ -0,0 +1,145 @@
+-- Schema inicial. Bancos criados antes das migrações, pelo antigo ddl-auto=update, recebem esta versão como
+-- baseline (spring.flyway.baseline-on-migrate) e são completados pela V1.1.
+
+CREATE SCHEMA IF NOT EXISTS acesso;
+CREATE SCHEMA IF NOT EXISTS estoque;
+CREATE SCHEMA IF NOT EXISTS vendas;
+
+-- acesso
+
+CREATE TABLE acesso.usuarios (
+    id bigint GENERATED BY DEFAULT AS IDENTITY,
+    nome varchar(255) NOT NULL,
+    email varchar(255) NOT NULL UNIQUE,
+    senha varchar(255) NOT NULL,
+    cpf varchar(14) NOT NULL,
+    telefone varchar(255),
+    tipo varchar(255) NOT NULL CHECK (tipo IN ('CLIENTE', 'FUNCIONARIO', 'ENTREGADOR', 'ADMIN', 'GESTOR')),
+    ativo boolean NOT NULL,
+    data_criacao timestamp(6),
+    data_atualizacao timestamp(6),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE acesso.clientes (
+    id bigint NOT NULL REFERENCES acesso.usuarios,
+    pontos_fidelidade integer,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE acesso.funcionarios (
+    id bigint NOT NULL REFERENCES acesso.usuarios,
+    matricula varchar(255),
+    cargo varchar(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE acesso.enderecos (
+    id bigint GENERATED BY DEFAULT AS IDENTITY,
+    usuario_id bigint REFERENCES acesso.usuarios,
+    logradouro varchar(255),
+    numero varchar(255),
+    complemento varchar(255),
+    bairro varchar(255),
+    cidade varchar(255),
+    estado varchar(255),
+    cep varchar(255),
+    tipo varchar(255),
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_usuarios_nome_id ON acesso.usuarios (nome, id);
+CREATE INDEX idx_enderecos_usuario ON acesso.enderecos (usuario_id);
+
+-- estoque
+
+CREATE TABLE estoque.categorias (
+    id bigint GENERATED BY DEFAULT AS IDENTITY,
+    nome varchar(255) NOT NULL UNIQUE,
+    descricao varchar(255),
+    tipo_exibicao varchar(255),
+    ativo boolean,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE estoque.produtos (
+    id bigint GENERATED BY DEFAULT AS IDENTITY,
+    nome varchar(255) NOT NULL,
+    descricao varchar(1000),
+    preco numeric(10, 2) NOT NULL,
+    preco_custo numeric(10, 2),
+    imagem_url varchar(255),
+    imagem_processada boolean,
+    categoria_id bigint NOT NULL REFERENCES estoque.categorias,
+    ativo boolean NOT NULL,
+    quantidade_estoque integer,
+    estoque_minimo integer,
+    dia_da_semana_disponivel varchar(255),
+    data_criacao timestamp(6),
+    data_atualizacao timestamp(6),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE estoque.movimentos_estoque (
+    id bigint GENERATED BY DEFAULT AS IDENTITY,
+    produto_id bigint NOT NULL,
+    quantidade integer NOT NULL,
+    aplicado boolean NOT NULL,
+    data_hora timestamp(6),
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_movimentos_estoque_pendentes ON estoque.movimentos_estoque (aplicado, produto_id);
+
+-- vendas
+
+CREATE SEQUENCE vendas.pedidos_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE vendas.itens_pedido_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE vendas.pedidos (
+    id bigint NOT NULL,
+    cliente varchar(255),
+    status varchar(255) CHECK (status IN ('PENDENTE', 'PREPARANDO', 'PRONTO', 'EM_ENTREGA', 'CONCLUIDO', 'CANCELADO')),
+    tipo varchar(255) CHECK (tipo IN ('BALCAO', 'ENTREGA', 'ENCOMENDA')),
+    chave_transicao varchar(64),
+    total numeric(38, 2),
+    data_criacao timestamp(6),
+    data_atualizacao timestamp(6),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE vendas.itens_pedido (
+    id bigint NOT NULL,
+    pedido_id bigint,
+    produto_id bigint REFERENCES estoque.produtos,
+    data_pedido timestamp(6),
+    quantidade integer,
+    preco_unitario numeric(38, 2),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE vendas.pedidos_idempotencia (
+    chave varchar(64) NOT NULL,
+    hash_requisicao varchar(64) NOT NULL,
+    pedido_id bigint,
+    resposta text,
+    data_criacao timestamp(6) NOT NULL,
+    PRIMARY KEY (chave)
+);
+
+CREATE INDEX idx_pedidos_data_criacao_id ON vendas.pedidos (data_criacao, id);
+CREATE INDEX idx_itens_pedido_pedido ON vendas.itens_pedido (pedido_id, data_pedido);
+CREATE INDEX idx_pedidos_idempotencia_data_criacao ON vendas.pedidos_idempotencia (data_criacao);
+
+-- feedbacks (schema padrão)
+
+CREATE TABLE feedbacks (
+    id bigint GENERATED BY DEFAULT AS IDENTITY,
+    cliente varchar(255),
+    mensagem varchar(255),
+    avaliacao integer,
+    data_hora timestamp(6),
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_feedbacks_data_hora_id ON feedbacks (data_hora, id);
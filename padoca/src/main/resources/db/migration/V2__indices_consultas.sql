@@ -0,0 +1,29 @@
+-- Índices das consultas dos repositórios. O PlanosDeConsultaTest roda EXPLAIN em cada uma delas sobre uma
+-- massa de dados e falha se alguma voltar a ler a tabela inteira.
+
+-- Fila da cozinha e contadores por status: só os pedidos em aberto, uma fração pequena da tabela, na ordem
+-- da fila. Os status precisam bater com StatusPedido.ABERTOS.
+CREATE INDEX IF NOT EXISTS idx_pedidos_abertos ON vendas.pedidos (data_criacao, id)
+    WHERE status IN ('PENDENTE', 'PREPARANDO', 'PRONTO', 'EM_ENTREGA');
+
+-- Atualização incremental da fila da cozinha: pedidos alterados desde a última consulta, em qualquer status
+CREATE INDEX IF NOT EXISTS idx_pedidos_data_atualizacao ON vendas.pedidos (data_atualizacao);
+
+-- Cardápio por categoria (findByCategoria_NomeAndAtivoTrue, findAlmocoDoDia)
+CREATE INDEX IF NOT EXISTS idx_produtos_categoria_ativos ON estoque.produtos (categoria_id) WHERE ativo;
+
+-- Relatório de estoque crítico: o predicado é o mesmo do EstoqueRepository.CRITICOS
+CREATE INDEX IF NOT EXISTS idx_produtos_criticos ON estoque.produtos (id)
+    WHERE ativo AND quantidade_estoque <= estoque_minimo;
+
+-- Movimentos pendentes são os poucos ainda não aplicados; os aplicados não precisam estar no índice
+DROP INDEX IF EXISTS estoque.idx_movimentos_estoque_pendentes;
+CREATE INDEX idx_movimentos_estoque_pendentes ON estoque.movimentos_estoque (produto_id) WHERE aplicado = false;
+
+-- Validação de CPF duplicado no cadastro
+CREATE INDEX IF NOT EXISTS idx_usuarios_cpf ON acesso.usuarios (cpf);
+
+-- Listagens de usuários ativos: keyset por (nome, id) com todos os tipos, e por tipo quando filtrada
+DROP INDEX IF EXISTS acesso.idx_usuarios_nome_id;
+CREATE INDEX idx_usuarios_ativos_nome_id ON acesso.usuarios (nome, id) WHERE ativo;
+CREATE INDEX idx_usuarios_ativos_tipo_nome_id ON acesso.usuarios (tipo, nome, id) WHERE ativo;
@@ -0,0 +1,3 @@
+-- Sincronização da fila da cozinha: keyset por (data_atualizacao, id), em qualquer status
+DROP INDEX IF EXISTS vendas.idx_pedidos_data_atualizacao;
+CREATE INDEX idx_pedidos_data_atualizacao_id ON vendas.pedidos (data_atualizacao, id);
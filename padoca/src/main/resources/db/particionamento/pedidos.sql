@@ -0,0 +1,68 @@
+-- Converte vendas.pedidos e vendas.itens_pedido em tabelas particionadas por mês de criação do pedido.
+-- Não é uma migração: reescreve as duas tabelas com lock exclusivo durante a cópia, então só roda pelo
+-- ParticaoPedidosService quando habilitada (padoca.pedidos.particoes.converter=true). Em tabelas já
+-- particionadas não faz nada. As partições dos meses seguintes são criadas pela manutenção diária.
+
+DO $$
+DECLARE
+    mes date;
+    indices text[];
+    indice text;
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = 'vendas.pedidos'::regclass) THEN
+        RETURN;
+    END IF;
+
+    LOCK TABLE vendas.pedidos, vendas.itens_pedido IN ACCESS EXCLUSIVE MODE;
+
+    UPDATE vendas.pedidos SET data_criacao = COALESCE(data_atualizacao, LOCALTIMESTAMP) WHERE data_criacao IS NULL;
+
+    UPDATE vendas.itens_pedido i SET data_pedido = p.data_criacao
+    FROM vendas.pedidos p
+    WHERE p.id = i.pedido_id AND i.data_pedido IS DISTINCT FROM p.data_criacao;
+
+    -- Índices criados pelas migrações, refeitos nas tabelas particionadas; a chave primária muda
+    SELECT COALESCE(array_agg(pg_get_indexdef(x.indexrelid)), '{}') INTO indices
+    FROM pg_index x
+    WHERE x.indrelid IN ('vendas.pedidos'::regclass, 'vendas.itens_pedido'::regclass) AND NOT x.indisprimary;
+
+    ALTER TABLE vendas.pedidos RENAME TO pedidos_legado;
+    ALTER TABLE vendas.itens_pedido RENAME TO itens_pedido_legado;
+
+    CREATE TABLE vendas.pedidos (LIKE vendas.pedidos_legado INCLUDING DEFAULTS INCLUDING CONSTRAINTS)
+        PARTITION BY RANGE (data_criacao);
+    CREATE TABLE vendas.itens_pedido (LIKE vendas.itens_pedido_legado INCLUDING DEFAULTS INCLUDING CONSTRAINTS)
+        PARTITION BY RANGE (data_pedido);
+
+    -- Partições só dos meses com pedidos: novos pedidos são sempre do mês corrente em diante
+    FOR mes IN
+        SELECT DISTINCT date_trunc('month', data_criacao)::date FROM vendas.pedidos_legado
+        UNION
+        SELECT date_trunc('month', LOCALTIMESTAMP)::date
+    LOOP
+        EXECUTE format('CREATE TABLE vendas.%I PARTITION OF vendas.pedidos FOR VALUES FROM (%L) TO (%L)',
+                'pedidos_' || to_char(mes, 'YYYY_MM'), mes, (mes + interval '1 month')::date);
+        EXECUTE format('CREATE TABLE vendas.%I PARTITION OF vendas.itens_pedido FOR VALUES FROM (%L) TO (%L)',
+                'itens_pedido_' || to_char(mes, 'YYYY_MM'), mes, (mes + interval '1 month')::date);
+    END LOOP;
+
+    INSERT INTO vendas.pedidos SELECT * FROM vendas.pedidos_legado;
+    INSERT INTO vendas.itens_pedido SELECT * FROM vendas.itens_pedido_legado;
+
+    DROP TABLE vendas.itens_pedido_legado;
+    DROP TABLE vendas.pedidos_legado;
+
+    -- Em tabelas particionadas a chave de partição faz parte da chave primária
+    ALTER TABLE vendas.pedidos ADD CONSTRAINT pedidos_pkey PRIMARY KEY (id, data_criacao);
+    ALTER TABLE vendas.itens_pedido ADD CONSTRAINT itens_pedido_pkey PRIMARY KEY (id, data_pedido);
+
+    FOREACH indice IN ARRAY indices LOOP
+        EXECUTE indice;
+    END LOOP;
+
+    -- Sem chave estrangeira dos itens para vendas.pedidos: contra uma tabela particionada a verificação custa
+    -- cerca de oito vezes a de uma tabela comum a cada item gravado, e impediria desanexar os meses arquivados.
+    -- Os itens só são gravados em cascata com o próprio pedido.
+    ALTER TABLE vendas.itens_pedido ADD CONSTRAINT fk_itens_pedido_produto
+        FOREIGN KEY (produto_id) REFERENCES estoque.produtos (id);
+END $$;
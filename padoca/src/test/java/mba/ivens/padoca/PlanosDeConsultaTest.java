@@ -0,0 +1,388 @@
+package mba.ivens.padoca;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import mba.ivens.padoca.modules.feedback.repository.FeedbackRepository;
+import mba.ivens.padoca.modules.pedido.model.enums.StatusPedido;
+import mba.ivens.padoca.modules.pedido.repository.ParticaoPedidosRepository;
+import mba.ivens.padoca.modules.pedido.repository.PedidoIdempotenciaRepository;
+import mba.ivens.padoca.modules.pedido.repository.PedidoRepository;
+import mba.ivens.padoca.modules.produto.repository.EstoqueRepository;
+import mba.ivens.padoca.modules.produto.repository.ProdutoRepository;
+import mba.ivens.padoca.modules.usuarios.model.enums.TipoUsuario;
+import mba.ivens.padoca.modules.usuarios.repository.EnderecoRepository;
+import mba.ivens.padoca.modules.usuarios.repository.UsuarioRepository;
+import org.junit.jupiter.api.Test;
+import org.postgresql.PGStatement;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Roda EXPLAIN no SQL que cada consulta dos repositórios realmente envia ao banco, sobre uma massa de dados
+ * gerada no próprio teste, e falha se alguma delas ler uma tabela grande por inteiro (Seq Scan). Os índices
+ * estão nas migrações de {@code db/migration}.
+ * <p>
+ * Ficam de fora as consultas que por definição percorrem a tabela toda: listagens completas
+ * ({@code findByAtivoTrue}, {@code findAllByAtivoTrue}, {@code streamTodos}), agregações sobre todos os
+ * registros ({@code margemMedia}, {@code contarPorNota}) e a contagem das páginas sem filtro de tipo.
+ * <p>
+ * A massa de dados substitui o conteúdo das tabelas (TRUNCATE), para que os planos não dependam do que já
+ * existe no banco. Cada teste roda em uma transação desfeita ao final, e o TRUNCATE é desfeito com ela.
+ */
+@SpringBootTest(properties = {
+        "padoca.estoque.reservas.habilitado=false",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=false"
+})
+@Transactional
+class PlanosDeConsultaTest {
+
+    // Tabelas menores que isso (categorias, partições vazias) são lidas inteiras mais rápido que por índice
+    private static final int LINHAS_TABELA_PEQUENA = 1_000;
+    private static final int LINHAS = 20_000;
+
+    private static final ThreadLocal<List<String>> EXECUTADAS = new ThreadLocal<>();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private PedidoRepository pedidoRepository;
+    @Autowired
+    private PedidoIdempotenciaRepository idempotenciaRepository;
+    @Autowired
+    private ParticaoPedidosRepository particaoRepository;
+    @Autowired
+    private ProdutoRepository produtoRepository;
+    @Autowired
+    private EstoqueRepository estoqueRepository;
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+    @Autowired
+    private EnderecoRepository enderecoRepository;
+    @Autowired
+    private FeedbackRepository feedbackRepository;
+
+    @Test
+    void consultasDePedidosUsamIndices() {
+        semearProdutos();
+        semearPedidos();
+        LocalDateTime agora = LocalDateTime.now();
+        LocalDateTime janela = agora.minusDays(30);
+        Long id = -LINHAS / 2L;
+
+        semLeituraCompleta("findIdsFila", () -> pedidoRepository.findIdsFila(StatusPedido.ABERTOS, janela, Limit.of(50)));
+        semLeituraCompleta("findAlteracoesFila", () -> pedidoRepository.findAlteracoesFila(janela, agora.minusMinutes(5), 0L, Limit.of(50)));
+        semLeituraCompleta("contarPorStatus", () -> pedidoRepository.contarPorStatus(StatusPedido.ABERTOS, janela));
+        semLeituraCompleta("somarVendasPorHora", () -> pedidoRepository.somarVendasPorHora(
+                LocalDate.now().atStartOfDay(), LocalDate.now().plusDays(1).atStartOfDay(), StatusPedido.CANCELADO));
+        semLeituraCompleta("findComItensByIdIn", () -> pedidoRepository.findComItensByIdIn(List.of(id, id - 1, id - 2)));
+        semLeituraCompleta("findIdsHistorico", () -> pedidoRepository.findIdsHistorico(Limit.of(20)));
+        semLeituraCompleta("findIdsHistoricoApos", () -> pedidoRepository.findIdsHistoricoApos(agora.minusDays(10), id, Limit.of(20)));
+        semLeituraCompleta("transicionar", () -> pedidoRepository.transicionar(
+                -1L, StatusPedido.PENDENTE, StatusPedido.PREPARANDO, StatusPedido.PREPARANDO, "planos", agora));
+        if (particaoRepository.particionada()) {
+            semLeituraCompleta("possuiPedidos", () -> particaoRepository.possuiPedidos(YearMonth.now(), StatusPedido.ABERTOS));
+        }
+    }
+
+    @Test
+    void consultasDeIdempotenciaUsamIndices() {
+        esvaziar("vendas.pedidos_idempotencia");
+        jdbcTemplate.update("""
+                INSERT INTO vendas.pedidos_idempotencia (chave, hash_requisicao, pedido_id, resposta, data_criacao)
+                SELECT 'planos-' || g, md5(g::text), -g, '{}', LOCALTIMESTAMP - g * interval '10 seconds'
+                FROM generate_series(1, ?) g
+                """, LINHAS);
+        analisar("vendas.pedidos_idempotencia");
+        LocalDateTime agora = LocalDateTime.now();
+
+        semLeituraCompleta("reservar", () -> idempotenciaRepository.reservar("planos-x", "hash", agora, agora.minusDays(1)));
+        semLeituraCompleta("buscar", () -> idempotenciaRepository.buscar("planos-1"));
+        semLeituraCompleta("buscarLote", () -> idempotenciaRepository.buscarLote(List.of("planos-1", "planos-2")));
+        semLeituraCompleta("concluir", () -> idempotenciaRepository.concluir("planos-1", -1L, "{}"));
+        semLeituraCompleta("concluirLote", () -> idempotenciaRepository.concluirLote(List.of(
+                new PedidoIdempotenciaRepository.Registro("planos-1", "hash", -1L, "{}"),
+                new PedidoIdempotenciaRepository.Registro("planos-2", "hash", -2L, "{}"))));
+        semLeituraCompleta("remover", () -> idempotenciaRepository.remover(List.of("planos-3")));
+        semLeituraCompleta("removerVencidas", () -> idempotenciaRepository.removerVencidas(agora.minusDays(2)));
+    }
+
+    @Test
+    void consultasDeProdutosEEstoqueUsamIndices() {
+        semearProdutos();
+        jdbcTemplate.update("""
+                INSERT INTO estoque.movimentos_estoque (id, produto_id, quantidade, aplicado, data_hora)
+                SELECT -g, -(g % 1000 + 1), 1, g > 50, LOCALTIMESTAMP FROM generate_series(1, ?) g
+                """, LINHAS);
+        analisar("estoque.movimentos_estoque");
+
+        semLeituraCompleta("findByCategoria_NomeAndAtivoTrue", () -> produtoRepository.findByCategoria_NomeAndAtivoTrue("PLANOS_7"));
+        semLeituraCompleta("findAlmocoDoDia", () -> produtoRepository.findAlmocoDoDia("PLANOS_7", "SEGUNDA"));
+        semLeituraCompleta("findByIdAndAtivoTrue", () -> produtoRepository.findByIdAndAtivoTrue(-1L));
+        semLeituraCompleta("findComCategoriaByIdIn", () -> produtoRepository.findComCategoriaByIdIn(List.of(-1L, -2L, -3L)));
+        semLeituraCompleta("marcarImagemProcessada", () -> produtoRepository.marcarImagemProcessada(-1L, "imagem"));
+        semLeituraCompleta("baixar", () -> estoqueRepository.baixar(new TreeMap<>(Map.of(-1L, 1, -2L, 1))));
+        semLeituraCompleta("repor", () -> estoqueRepository.repor(new TreeMap<>(Map.of(-1L, 1))));
+        semLeituraCompleta("saldoComPendentes", () -> estoqueRepository.saldoComPendentes(-1L));
+        semLeituraCompleta("criticos", () -> estoqueRepository.criticos());
+        semLeituraCompleta("criticos por id", () -> estoqueRepository.criticos(List.of(-1L, -100L)));
+        semLeituraCompleta("descartarPendentes", () -> estoqueRepository.descartarPendentes(-1L));
+        semLeituraCompleta("aplicarMovimentos", () -> estoqueRepository.aplicarMovimentos());
+    }
+
+    @Test
+    void consultasDeUsuariosUsamIndices() {
+        esvaziar("acesso.usuarios", "acesso.clientes", "acesso.funcionarios", "acesso.enderecos");
+        jdbcTemplate.update("""
+                INSERT INTO acesso.usuarios (id, nome, email, senha, cpf, tipo, ativo, data_criacao)
+                SELECT -g, 'Planos ' || g, 'planos' || g || '@teste', 'senha', lpad(g::text, 11, '0'),
+                       CASE WHEN g % 100 = 0 THEN 'FUNCIONARIO' ELSE 'CLIENTE' END, g % 20 <> 0, LOCALTIMESTAMP
+                FROM generate_series(1, ?) g
+                """, LINHAS);
+        jdbcTemplate.update("""
+                INSERT INTO acesso.enderecos (id, usuario_id, logradouro, cidade)
+                SELECT -g, -g, 'Rua ' || g, 'Cidade' FROM generate_series(1, ?) g
+                """, LINHAS);
+        analisar("acesso.usuarios", "acesso.enderecos");
+        Set<TipoUsuario> funcionarios = Set.of(TipoUsuario.FUNCIONARIO);
+        Set<TipoUsuario> todos = Set.of(TipoUsuario.values());
+
+        semLeituraCompleta("findByEmail", () -> usuarioRepository.findByEmail("planos1@teste"));
+        semLeituraCompleta("findComEnderecosByEmail", () -> usuarioRepository.findComEnderecosByEmail("planos1@teste"));
+        semLeituraCompleta("findCredenciaisByEmail", () -> usuarioRepository.findCredenciaisByEmail("planos1@teste"));
+        semLeituraCompleta("existsByEmail", () -> usuarioRepository.existsByEmail("planos1@teste"));
+        semLeituraCompleta("existsByCpf", () -> usuarioRepository.existsByCpf("00000000001"));
+        semLeituraCompleta("findAllByTipoAndAtivoTrue", () -> usuarioRepository.findAllByTipoAndAtivoTrue(
+                TipoUsuario.FUNCIONARIO, PageRequest.of(0, 20, Sort.by("nome", "id"))));
+        semLeituraCompleta("countByTipoInAndAtivoTrue", () -> usuarioRepository.countByTipoInAndAtivoTrue(funcionarios));
+        semLeituraCompleta("findPaginaAtivos", () -> usuarioRepository.findPaginaAtivos(todos, Limit.of(21)));
+        semLeituraCompleta("findPaginaAtivos por tipo", () -> usuarioRepository.findPaginaAtivos(funcionarios, Limit.of(21)));
+        semLeituraCompleta("findPaginaAtivosApos", () -> usuarioRepository.findPaginaAtivosApos(todos, "Planos 5", -5L, Limit.of(21)));
+        semLeituraCompleta("findPaginaAtivosApos por tipo", () -> usuarioRepository.findPaginaAtivosApos(funcionarios, "Planos 5", -5L, Limit.of(21)));
+        semLeituraCompleta("findByIdAndAtivoTrue", () -> usuarioRepository.findByIdAndAtivoTrue(-1L));
+        semLeituraCompleta("findAtivoById", () -> usuarioRepository.findAtivoById(-1L));
+        semLeituraCompleta("deleteByIdAndUsuarioEmail", () -> enderecoRepository.deleteByIdAndUsuarioEmail(-1L, "planos1@teste"));
+    }
+
+    @Test
+    void consultasDeFeedbacksUsamIndices() {
+        esvaziar("feedbacks");
+        jdbcTemplate.update("""
+                INSERT INTO feedbacks (id, cliente, mensagem, avaliacao, data_hora)
+                SELECT -g, 'Planos', 'Mensagem ' || g, g % 5 + 1, LOCALTIMESTAMP - g * interval '4 minutes'
+                FROM generate_series(1, ?) g
+                """, LINHAS);
+        analisar("feedbacks");
+        LocalDateTime agora = LocalDateTime.now();
+
+        semLeituraCompleta("findPagina", () -> feedbackRepository.findPagina(Limit.of(21)));
+        semLeituraCompleta("findPaginaApos", () -> feedbackRepository.findPaginaApos(agora.minusDays(10), -1L, Limit.of(21)));
+        semLeituraCompleta("contarPorDiaENota", () -> feedbackRepository.contarPorDiaENota(agora.minusDays(7)));
+    }
+
+    private void semearProdutos() {
+        esvaziar("estoque.categorias", "estoque.produtos", "estoque.movimentos_estoque", "vendas.itens_pedido");
+        jdbcTemplate.update("""
+                INSERT INTO estoque.categorias (id, nome, ativo)
+                SELECT -g, 'PLANOS_' || g, true FROM generate_series(1, 50) g
+                """);
+        jdbcTemplate.update("""
+                INSERT INTO estoque.produtos (id, nome, preco, preco_custo, categoria_id, ativo, quantidade_estoque,
+                                              estoque_minimo, data_criacao)
+                SELECT -g, 'Produto ' || g, 10, 4, -(g % 50 + 1), g % 10 <> 0,
+                       CASE WHEN g % 100 = 1 THEN 1 ELSE 100 END, 5, LOCALTIMESTAMP
+                FROM generate_series(1, ?) g
+                """, LINHAS);
+        analisar("estoque.categorias", "estoque.produtos");
+    }
+
+    // Pedidos a cada 4 minutos nos últimos ~55 dias; só os das últimas horas ainda em aberto. Vale para as duas
+    // formas de vendas.pedidos: comum ou particionada (padoca.pedidos.particoes.converter)
+    private void semearPedidos() {
+        YearMonth atual = YearMonth.now();
+        for (int i = 2; i >= 0 && particaoRepository.particionada(); i--) {
+            particaoRepository.criar(atual.minusMonths(i));
+        }
+        esvaziar("vendas.pedidos", "vendas.itens_pedido");
+        jdbcTemplate.update("""
+                INSERT INTO vendas.pedidos (id, cliente, status, tipo, total, data_criacao, data_atualizacao)
+                SELECT -g, 'Planos',
+                       CASE WHEN g <= 200 THEN (ARRAY['PENDENTE', 'PREPARANDO', 'PRONTO', 'EM_ENTREGA'])[g % 4 + 1]
+                            WHEN g % 20 = 0 THEN 'CANCELADO' ELSE 'CONCLUIDO' END,
+                       'BALCAO', 10, LOCALTIMESTAMP - g * interval '4 minutes', LOCALTIMESTAMP - g * interval '4 minutes'
+                FROM generate_series(1, ?) g
+                """, LINHAS);
+        jdbcTemplate.update("""
+                INSERT INTO vendas.itens_pedido (id, pedido_id, produto_id, data_pedido, quantidade, preco_unitario)
+                SELECT p.id * 2 - g + 1, p.id, -((g - p.id) % 1000 + 1), p.data_criacao, 1, 10
+                FROM vendas.pedidos p, generate_series(1, 2) g
+                WHERE p.cliente = 'Planos' AND p.id < 0
+                """);
+        analisar("vendas.pedidos", "vendas.itens_pedido");
+    }
+
+    // CASCADE alcança também os meses arquivados em vendas_arquivo, que ainda referenciam os produtos
+    private void esvaziar(String... tabelas) {
+        jdbcTemplate.execute("TRUNCATE " + String.join(", ", tabelas) + " CASCADE");
+    }
+
+    private void analisar(String... tabelas) {
+        jdbcTemplate.execute("ANALYZE " + String.join(", ", tabelas));
+    }
+
+    /** Executa a chamada, captura o SQL enviado e roda EXPLAIN em cada comando. */
+    private void semLeituraCompleta(String consulta, Runnable chamada) {
+        List<String> comandos = new ArrayList<>();
+        EXECUTADAS.set(comandos);
+        try {
+            chamada.run();
+        } finally {
+            EXECUTADAS.remove();
+        }
+        assertThat(comandos).as("SQL de %s", consulta).isNotEmpty();
+
+        for (String sql : comandos) {
+            String plano = jdbcTemplate.queryForObject("EXPLAIN (VERBOSE, FORMAT JSON) " + sql, String.class);
+            List<String> lidas = new ArrayList<>();
+            try {
+                tabelasLidasInteiras(objectMapper.readTree(plano), lidas);
+            } catch (Exception e) {
+                throw new IllegalStateException(plano, e);
+            }
+            assertThat(lidas).as("Seq Scan em %s%n%s%n%s", consulta, sql, plano).isEmpty();
+        }
+    }
+
+    private void tabelasLidasInteiras(JsonNode no, List<String> lidas) {
+        if (no.isArray()) {
+            no.forEach(filho -> tabelasLidasInteiras(filho, lidas));
+            return;
+        }
+        if ("Seq Scan".equals(no.path("Node Type").asText())) {
+            String tabela = no.path("Schema").asText() + "." + no.path("Relation Name").asText();
+            Double linhas = jdbcTemplate.queryForObject(
+                    "SELECT reltuples FROM pg_class WHERE oid = to_regclass(?)", Double.class, tabela);
+            if (linhas != null && linhas >= LINHAS_TABELA_PEQUENA) {
+                lidas.add(tabela);
+            }
+        }
+        if (no.has("Plan")) {
+            tabelasLidasInteiras(no.get("Plan"), lidas);
+        }
+        no.path("Plans").forEach(filho -> tabelasLidasInteiras(filho, lidas));
+    }
+
+    /** Envolve o DataSource para registrar, durante {@link #semLeituraCompleta}, o SQL com os parâmetros. */
+    @TestConfiguration
+    static class CapturaDeSql {
+
+        @Bean
+        static BeanPostProcessor capturarSql() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource ? new DataSourceCapturado(dataSource) : bean;
+                }
+            };
+        }
+    }
+
+    static class DataSourceCapturado extends DelegatingDataSource {
+
+        DataSourceCapturado(DataSource dataSource) {
+            super(dataSource);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return envolver(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return envolver(super.getConnection(username, password));
+        }
+
+        private static Connection envolver(Connection conexao) {
+            return proxy(Connection.class, conexao, (alvo, metodo, args) -> {
+                Object resultado = metodo.invoke(alvo, args);
+                if (resultado instanceof PreparedStatement ps && metodo.getName().equals("prepareStatement")) {
+                    return envolver(ps);
+                }
+                return resultado instanceof Statement st && metodo.getName().equals("createStatement")
+                        ? envolver(st) : resultado;
+            });
+        }
+
+        // Comandos sem parâmetros: o JdbcTemplate usa um Statement comum, com o SQL na própria chamada
+        private static Statement envolver(Statement st) {
+            return proxy(Statement.class, st, (alvo, metodo, args) -> {
+                List<String> executadas = EXECUTADAS.get();
+                if (executadas != null && metodo.getName().startsWith("execute") && args != null
+                        && args[0] instanceof String sql) {
+                    executadas.add(sql);
+                }
+                return metodo.invoke(alvo, args);
+            });
+        }
+
+        // Em batch os parâmetros são descartados a cada addBatch, então o comando é registrado ali
+        private static PreparedStatement envolver(PreparedStatement ps) {
+            return proxy(PreparedStatement.class, ps, (alvo, metodo, args) -> {
+                List<String> executadas = EXECUTADAS.get();
+                String nome = metodo.getName();
+                if (executadas != null && (nome.equals("addBatch") || nome.startsWith("execute") && !nome.equals("executeBatch"))) {
+                    executadas.add(ps.unwrap(PGStatement.class).toString());
+                }
+                return metodo.invoke(alvo, args);
+            });
+        }
+
+        private static <T> T proxy(Class<T> tipo, T alvo, Interceptador<T> interceptador) {
+            InvocationHandler handler = (p, metodo, args) -> {
+                try {
+                    return interceptador.invocar(alvo, metodo, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            };
+            return tipo.cast(Proxy.newProxyInstance(tipo.getClassLoader(), new Class<?>[]{tipo}, handler));
+        }
+
+        @FunctionalInterface
+        private interface Interceptador<T> {
+            Object invocar(T alvo, Method metodo, Object[] args) throws Throwable;
+        }
+    }
+}
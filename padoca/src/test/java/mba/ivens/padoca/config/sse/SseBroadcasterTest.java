@@ -0,0 +1,28 @@
+package mba.ivens.padoca.config.sse;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SseBroadcasterTest {
+
+    private final SseBroadcaster broadcaster = new SseBroadcaster("teste", 16, 16, 60_000);
+
+    @AfterEach
+    void tearDown() {
+        broadcaster.encerrar();
+    }
+
+    @Test
+    void falhaNoSnapshotRemoveOAssinante() throws InterruptedException {
+        broadcaster.assinar(null, "snapshot", () -> {
+            throw new IllegalArgumentException("banco indisponível");
+        });
+
+        for (int i = 0; i < 100 && broadcaster.totalAssinantes() > 0; i++) {
+            Thread.sleep(20);
+        }
+        assertThat(broadcaster.totalAssinantes()).isZero();
+    }
+}
@@ -0,0 +1,289 @@
+package mba.ivens.padoca.config.storage;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import mba.ivens.padoca.config.storage.StorageProvider.Redirecionamento;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Grava e lê por um endpoint S3 em memória, com o cliente configurado como para um MinIO (endpoint próprio,
+ * path-style). O endpoint guarda o que o SDK envia, inclusive as partes de um multipart upload, e serve os
+ * objetos também pela URL pré-assinada.
+ */
+class S3StorageProviderTest {
+
+    private static final String BUCKET = "padoca";
+
+    @TempDir
+    Path diretorio;
+
+    private S3EmMemoria s3;
+    private S3StorageProvider storage;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        s3 = new S3EmMemoria();
+        storage = new S3StorageProvider(BUCKET, "us-east-1", s3.endpoint(), "chave", "segredo", "uploads/", "",
+                Duration.ofMinutes(5), DataSize.ofMegabytes(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        storage.encerrar();
+        s3.encerrar();
+    }
+
+    @Test
+    void arquivoPequenoVaiEmUmPut() throws Exception {
+        byte[] conteudo = aleatorio(64 * 1024);
+
+        storage.gravar("foto.png", arquivo(conteudo), "image/png");
+
+        S3EmMemoria.Objeto objeto = s3.objetos.get("uploads/foto.png");
+        assertThat(objeto.conteudo()).isEqualTo(conteudo);
+        assertThat(objeto.contentType()).isEqualTo("image/png");
+        assertThat(objeto.cacheControl()).contains("immutable");
+        assertThat(objeto.partes()).isZero();
+        assertThat(storage.existe("foto.png")).isTrue();
+        assertThat(ler(storage.abrir("foto.png"))).isEqualTo(conteudo);
+    }
+
+    @Test
+    void arquivoMaiorQueAParteVaiEmMultipart() throws Exception {
+        byte[] conteudo = aleatorio(11 * 1024 * 1024 + 123);
+
+        storage.gravar("grande.jpg", arquivo(conteudo), "image/jpeg");
+
+        S3EmMemoria.Objeto objeto = s3.objetos.get("uploads/grande.jpg");
+        assertThat(objeto.partes()).isEqualTo(3);
+        assertThat(objeto.conteudo()).isEqualTo(conteudo);
+        assertThat(objeto.contentType()).isEqualTo("image/jpeg");
+        assertThat(s3.uploads).isEmpty();
+        assertThat(ler(storage.abrir("grande.jpg"))).isEqualTo(conteudo);
+    }
+
+    @Test
+    void chaveInexistenteNaoExiste() throws Exception {
+        assertThat(storage.existe("nada.png")).isFalse();
+    }
+
+    @Test
+    void urlPreAssinadaDevolveOsMesmosBytes() throws Exception {
+        byte[] conteudo = aleatorio(200 * 1024);
+        storage.gravar("assinada.gif", arquivo(conteudo), "image/gif");
+
+        Redirecionamento leitura = (Redirecionamento) storage.leitura("assinada.gif");
+
+        assertThat(leitura.validade()).isEqualTo(Duration.ofMinutes(5));
+        assertThat(leitura.url().getQuery()).contains("X-Amz-Signature");
+        try (HttpClient cliente = HttpClient.newHttpClient()) {
+            HttpResponse<byte[]> resposta = cliente.send(HttpRequest.newBuilder(leitura.url()).build(),
+                    HttpResponse.BodyHandlers.ofByteArray());
+            assertThat(resposta.statusCode()).isEqualTo(200);
+            assertThat(resposta.body()).isEqualTo(conteudo);
+        }
+    }
+
+    private Path arquivo(byte[] conteudo) throws IOException {
+        return Files.write(diretorio.resolve(UUID.randomUUID() + ".tmp"), conteudo);
+    }
+
+    private static byte[] aleatorio(int tamanho) {
+        byte[] bytes = new byte[tamanho];
+        new Random(tamanho).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static byte[] ler(InputStream entrada) throws IOException {
+        try (entrada) {
+            return entrada.readAllBytes();
+        }
+    }
+
+    /** O bastante da API do S3 para o {@link S3StorageProvider}: PUT, HEAD, GET e multipart upload. */
+    private static final class S3EmMemoria {
+
+        record Objeto(byte[] conteudo, String contentType, String cacheControl, int partes) {}
+
+        record Upload(String chave, String contentType, String cacheControl, SortedMap<Integer, byte[]> partes) {}
+
+        final Map<String, Objeto> objetos = new ConcurrentHashMap<>();
+        final Map<String, Upload> uploads = new ConcurrentHashMap<>();
+        private final HttpServer servidor;
+
+        S3EmMemoria() throws IOException {
+            servidor = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            servidor.createContext("/", troca -> {
+                try (troca) {
+                    atender(troca);
+                }
+            });
+            servidor.start();
+        }
+
+        String endpoint() {
+            return "http://127.0.0.1:" + servidor.getAddress().getPort();
+        }
+
+        void encerrar() {
+            servidor.stop(0);
+        }
+
+        private void atender(HttpExchange troca) throws IOException {
+            // Path-style: /bucket/chave
+            String chave = troca.getRequestURI().getPath().substring(BUCKET.length() + 2);
+            Map<String, String> parametros = parametros(troca.getRequestURI().getRawQuery());
+            String uploadId = parametros.get("uploadId");
+
+            switch (troca.getRequestMethod()) {
+                case "PUT" -> {
+                    byte[] corpo = corpo(troca);
+                    if (uploadId != null) {
+                        uploads.get(uploadId).partes().put(Integer.parseInt(parametros.get("partNumber")), corpo);
+                    } else {
+                        objetos.put(chave, new Objeto(corpo, cabecalho(troca, "Content-Type"), cabecalho(troca, "Cache-Control"), 0));
+                    }
+                    troca.getResponseHeaders().add("ETag", etag(corpo));
+                    troca.sendResponseHeaders(200, -1);
+                }
+                case "POST" -> {
+                    corpo(troca);
+                    if (parametros.containsKey("uploads")) {
+                        String id = UUID.randomUUID().toString();
+                        uploads.put(id, new Upload(chave, cabecalho(troca, "Content-Type"), cabecalho(troca, "Cache-Control"),
+                                new TreeMap<>()));
+                        xml(troca, "<InitiateMultipartUploadResult><Bucket>" + BUCKET + "</Bucket><Key>" + chave
+                                + "</Key><UploadId>" + id + "</UploadId></InitiateMultipartUploadResult>");
+                    } else {
+                        Upload upload = uploads.remove(uploadId);
+                        ByteArrayOutputStream conteudo = new ByteArrayOutputStream();
+                        for (byte[] parte : upload.partes().values()) {
+                            conteudo.write(parte);
+                        }
+                        byte[] bytes = conteudo.toByteArray();
+                        objetos.put(chave, new Objeto(bytes, upload.contentType(), upload.cacheControl(), upload.partes().size()));
+                        xml(troca, "<CompleteMultipartUploadResult><Bucket>" + BUCKET + "</Bucket><Key>" + chave
+                                + "</Key><ETag>" + etag(bytes) + "</ETag></CompleteMultipartUploadResult>");
+                    }
+                }
+                case "DELETE" -> {
+                    uploads.remove(uploadId);
+                    troca.sendResponseHeaders(204, -1);
+                }
+                case "HEAD" -> {
+                    Objeto objeto = objetos.get(chave);
+                    if (objeto == null) {
+                        troca.sendResponseHeaders(404, -1);
+                    } else {
+                        troca.getResponseHeaders().add("Content-Type", objeto.contentType());
+                        troca.getResponseHeaders().add("ETag", etag(objeto.conteudo()));
+                        troca.sendResponseHeaders(200, -1);
+                    }
+                }
+                case "GET" -> {
+                    Objeto objeto = objetos.get(chave);
+                    if (objeto == null) {
+                        troca.getResponseHeaders().add("Content-Type", "application/xml");
+                        byte[] erro = "<Error><Code>NoSuchKey</Code><Message>Não existe</Message></Error>".getBytes(StandardCharsets.UTF_8);
+                        troca.sendResponseHeaders(404, erro.length);
+                        troca.getResponseBody().write(erro);
+                    } else {
+                        troca.getResponseHeaders().add("Content-Type", objeto.contentType());
+                        troca.getResponseHeaders().add("ETag", etag(objeto.conteudo()));
+                        troca.sendResponseHeaders(200, objeto.conteudo().length);
+                        troca.getResponseBody().write(objeto.conteudo());
+                    }
+                }
+                default -> troca.sendResponseHeaders(405, -1);
+            }
+        }
+
+        // Sem TLS o SDK assina o conteúdo em blocos (aws-chunked): "tamanho-hex;chunk-signature=...\r\n<bytes>\r\n"
+        private static byte[] corpo(HttpExchange troca) throws IOException {
+            byte[] bruto = troca.getRequestBody().readAllBytes();
+            String assinatura = cabecalho(troca, "x-amz-content-sha256");
+            if (assinatura == null || !assinatura.startsWith("STREAMING-")) {
+                return bruto;
+            }
+            ByteArrayOutputStream conteudo = new ByteArrayOutputStream();
+            int posicao = 0;
+            while (true) {
+                int fimDaLinha = indiceDe(bruto, posicao);
+                String linha = new String(bruto, posicao, fimDaLinha - posicao, StandardCharsets.US_ASCII);
+                int tamanho = Integer.parseInt(linha.split(";")[0], 16);
+                if (tamanho == 0) {
+                    return conteudo.toByteArray();
+                }
+                conteudo.write(bruto, fimDaLinha + 2, tamanho);
+                posicao = fimDaLinha + 2 + tamanho + 2;
+            }
+        }
+
+        private static int indiceDe(byte[] bytes, int inicio) {
+            for (int i = inicio; i < bytes.length - 1; i++) {
+                if (bytes[i] == '\r' && bytes[i + 1] == '\n') {
+                    return i;
+                }
+            }
+            throw new IllegalStateException("Bloco aws-chunked sem fim de linha");
+        }
+
+        private static void xml(HttpExchange troca, String xml) throws IOException {
+            byte[] bytes = xml.getBytes(StandardCharsets.UTF_8);
+            troca.getResponseHeaders().add("Content-Type", "application/xml");
+            troca.sendResponseHeaders(200, bytes.length);
+            troca.getResponseBody().write(bytes);
+        }
+
+        private static String cabecalho(HttpExchange troca, String nome) {
+            return troca.getRequestHeaders().getFirst(nome);
+        }
+
+        private static Map<String, String> parametros(String query) {
+            Map<String, String> parametros = new TreeMap<>();
+            if (query != null) {
+                for (String parametro : query.split("&")) {
+                    String[] partes = parametro.split("=", 2);
+                    parametros.put(partes[0], partes.length > 1 ? partes[1] : "");
+                }
+            }
+            return parametros;
+        }
+
+        // O SDK confere o ETag do PUT contra o MD5 do que enviou
+        private static String etag(byte[] conteudo) {
+            try {
+                return "\"" + HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(conteudo)) + "\"";
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
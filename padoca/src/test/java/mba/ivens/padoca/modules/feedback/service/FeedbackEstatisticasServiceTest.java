@@ -0,0 +1,135 @@
+package mba.ivens.padoca.modules.feedback.service;
+
+import mba.ivens.padoca.modules.feedback.dto.FeedbackDiaDTO;
+import mba.ivens.padoca.modules.feedback.dto.FeedbackEstatisticasDTO;
+import mba.ivens.padoca.modules.feedback.repository.FeedbackRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FeedbackEstatisticasServiceTest {
+
+    private static final LocalDateTime AGORA = LocalDateTime.of(2026, 3, 10, 12, 0);
+
+    private FeedbackRepository repository;
+    private RelogioAjustavel relogio;
+    private FeedbackEstatisticasService service;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(FeedbackRepository.class);
+        relogio = new RelogioAjustavel(AGORA.toInstant(ZoneOffset.UTC));
+        service = new FeedbackEstatisticasService(repository, relogio);
+        when(repository.contarPorNota()).thenReturn(List.of());
+        when(repository.contarPorDiaENota(any())).thenReturn(List.of());
+    }
+
+    @Test
+    void notasCaemNaDistribuicaoDoDiaENasMedias() {
+        service.registrar(5, AGORA);
+        service.registrar(4, AGORA);
+        service.registrar(1, AGORA.minusDays(10));
+        service.registrar(null, AGORA);
+        service.registrar(6, AGORA);
+
+        FeedbackEstatisticasDTO estatisticas = service.estatisticas();
+
+        assertThat(estatisticas.total()).isEqualTo(3);
+        assertThat(estatisticas.distribuicao()).isEqualTo(Map.of(1, 1L, 2, 0L, 3, 0L, 4, 1L, 5, 1L));
+        assertThat(estatisticas.mediaGeral()).isEqualByComparingTo("3.33");
+        assertThat(estatisticas.media7Dias()).isEqualByComparingTo("4.50");
+        assertThat(estatisticas.media30Dias()).isEqualByComparingTo("3.33");
+        assertThat(estatisticas.ultimos30Dias()).hasSize(30);
+        FeedbackDiaDTO hoje = estatisticas.ultimos30Dias().get(29);
+        assertThat(hoje.data()).isEqualTo(AGORA.toLocalDate());
+        assertThat(hoje.quantidade()).isEqualTo(2);
+        assertThat(hoje.distribuicao()).containsEntry(4, 1L).containsEntry(5, 1L).containsEntry(1, 0L);
+    }
+
+    @Test
+    void diaQueSaiDaJanelaDeixaAsMediasMasFicaNoTotal() {
+        LocalDateTime primeiroDiaDaJanela = AGORA.minusDays(29);
+        service.registrar(1, primeiroDiaDaJanela);
+        service.registrar(5, AGORA);
+        assertThat(service.estatisticas().ultimos30Dias().get(0).quantidade()).isEqualTo(1);
+        assertThat(service.estatisticas().media30Dias()).isEqualByComparingTo("3.00");
+
+        relogio.avancar(Duration.ofDays(1));
+        FeedbackEstatisticasDTO estatisticas = service.estatisticas();
+
+        assertThat(estatisticas.ultimos30Dias()).hasSize(30);
+        assertThat(estatisticas.ultimos30Dias().get(0).data()).isEqualTo(primeiroDiaDaJanela.toLocalDate().plusDays(1));
+        assertThat(estatisticas.ultimos30Dias()).extracting(FeedbackDiaDTO::quantidade).containsOnly(0L, 1L);
+        assertThat(estatisticas.media30Dias()).isEqualByComparingTo("5.00");
+        assertThat(estatisticas.media7Dias()).isEqualByComparingTo("5.00");
+        assertThat(estatisticas.total()).isEqualTo(2);
+        assertThat(estatisticas.mediaGeral()).isEqualByComparingTo("3.00");
+
+        // Feedback com data anterior à janela entra só no total
+        service.registrar(2, AGORA.minusDays(40));
+        assertThat(service.estatisticas().total()).isEqualTo(3);
+        assertThat(service.estatisticas().media30Dias()).isEqualByComparingTo("5.00");
+    }
+
+    @Test
+    void feedbackRegistradoDuranteAReconstrucaoNaoSePerdeNaTroca() {
+        // Os feedbacks chegam depois de cada consulta ter lido o banco: não estão na contagem que ela devolve
+        when(repository.contarPorNota()).thenAnswer(invocacao -> {
+            service.registrar(5, AGORA);
+            return List.<Object[]>of(new Object[]{3, 2L});
+        });
+        when(repository.contarPorDiaENota(any())).thenAnswer(invocacao -> {
+            service.registrar(1, AGORA);
+            return List.<Object[]>of(new Object[]{AGORA.toLocalDate(), 3, 2L});
+        });
+
+        service.reconstruir();
+
+        FeedbackEstatisticasDTO estatisticas = service.estatisticas();
+        assertThat(estatisticas.total()).isEqualTo(4);
+        assertThat(estatisticas.distribuicao()).containsEntry(1, 1L).containsEntry(3, 2L).containsEntry(5, 1L);
+        assertThat(estatisticas.ultimos30Dias().get(29).quantidade()).isEqualTo(4);
+    }
+
+    /** Relógio parado que o teste adianta para virar o dia. */
+    private static final class RelogioAjustavel extends Clock {
+
+        private Instant agora;
+
+        RelogioAjustavel(Instant agora) {
+            this.agora = agora;
+        }
+
+        void avancar(Duration duracao) {
+            agora = agora.plus(duracao);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return agora;
+        }
+    }
+}
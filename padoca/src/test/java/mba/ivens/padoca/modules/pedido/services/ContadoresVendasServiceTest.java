@@ -0,0 +1,89 @@
+package mba.ivens.padoca.modules.pedido.services;
+
+import mba.ivens.padoca.modules.pedido.events.PedidoEvento;
+import mba.ivens.padoca.modules.pedido.model.enums.StatusPedido;
+import mba.ivens.padoca.modules.pedido.repository.PedidoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ContadoresVendasServiceTest {
+
+    private static final Duration JANELA = Duration.ofMillis(300);
+
+    private PedidoRepository pedidoRepository;
+    private ContadoresVendasService service;
+
+    @BeforeEach
+    void setUp() {
+        pedidoRepository = mock(PedidoRepository.class);
+        service = new ContadoresVendasService(pedidoRepository, JANELA);
+        when(pedidoRepository.somarVendasPorHora(any(), any(), any())).thenReturn(List.of());
+    }
+
+    @Test
+    void pedidoContadoNaReconstrucaoSaiDaFilaMesmoDepoisDeSairDaJanela() throws InterruptedException {
+        LocalDateTime criacao = LocalDateTime.now().minusNanos(100_000_000);
+        when(pedidoRepository.contarPorStatus(any(), any())).thenReturn(List.<Object[]>of(new Object[]{StatusPedido.PENDENTE, 1L}));
+        service.reconstruir();
+        assertThat(service.filaPedidos()).isEqualTo(1);
+
+        Thread.sleep(JANELA.toMillis());
+        service.onPedidoEvento(transicao(StatusPedido.PENDENTE, StatusPedido.CANCELADO, criacao));
+
+        assertThat(service.filaPedidos()).isZero();
+    }
+
+    @Test
+    void transicaoDePedidoAnteriorAoCorteNaoMexeNaFila() {
+        when(pedidoRepository.contarPorStatus(any(), any())).thenReturn(List.of());
+        service.reconstruir();
+
+        service.onPedidoEvento(transicao(StatusPedido.PENDENTE, StatusPedido.CANCELADO, LocalDateTime.now().minusDays(1)));
+
+        assertThat(service.filaPedidos()).isZero();
+    }
+
+    @Test
+    void pedidoConfirmadoDuranteAReconstrucaoNaoSePerdeNaTroca() {
+        // Os pedidos chegam depois de cada consulta ter lido o banco: não estão na contagem que ela devolve
+        when(pedidoRepository.contarPorStatus(any(), any())).thenAnswer(invocacao -> {
+            service.onPedidoEvento(criado(LocalDateTime.now()));
+            return List.<Object[]>of(new Object[]{StatusPedido.PENDENTE, 2L});
+        });
+        when(pedidoRepository.somarVendasPorHora(any(), any(), any())).thenAnswer(invocacao -> {
+            service.onPedidoEvento(criado(LocalDateTime.now()));
+            return List.of();
+        });
+
+        service.reconstruir();
+
+        assertThat(service.filaPedidos()).isEqualTo(4);
+        assertThat(service.vendasHoje()).isEqualByComparingTo("20.00");
+
+        // Terminada a reconstrução, os eventos não são mais gravados para reaplicar
+        doReturn(List.of()).when(pedidoRepository).contarPorStatus(any(), any());
+        doReturn(List.of()).when(pedidoRepository).somarVendasPorHora(any(), any(), any());
+        service.reconstruir();
+        assertThat(service.filaPedidos()).isZero();
+        assertThat(service.vendasHoje()).isEqualByComparingTo("0");
+    }
+
+    private static PedidoEvento criado(LocalDateTime dataCriacao) {
+        return new PedidoEvento(PedidoEvento.Tipo.CRIADO, null, StatusPedido.PENDENTE, BigDecimal.TEN, dataCriacao, null);
+    }
+
+    private static PedidoEvento transicao(StatusPedido de, StatusPedido para, LocalDateTime dataCriacao) {
+        return new PedidoEvento(PedidoEvento.Tipo.STATUS_AVANCADO, de, para, BigDecimal.TEN, dataCriacao, null);
+    }
+}
@@ -0,0 +1,133 @@
+package mba.ivens.padoca.modules.pedido.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import mba.ivens.padoca.config.exception.exeption.BusinessException;
+import mba.ivens.padoca.modules.pedido.dto.ItemPedidoRequestDTO;
+import mba.ivens.padoca.modules.pedido.dto.PedidoRequestDTO;
+import mba.ivens.padoca.modules.pedido.dto.PedidoResponseDTO;
+import mba.ivens.padoca.modules.pedido.model.enums.TipoPedido;
+import mba.ivens.padoca.modules.pedido.repository.PedidoIdempotenciaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class IdempotenciaPedidoServiceTest {
+
+    private static final PedidoRequestDTO PEDIDO = new PedidoRequestDTO("Mesa 01", TipoPedido.BALCAO,
+            List.of(new ItemPedidoRequestDTO(1L, 2)));
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private PedidoService pedidoService;
+    private PedidoIdempotenciaRepository repository;
+    private IdempotenciaPedidoService service;
+
+    @BeforeEach
+    void setUp() {
+        pedidoService = mock(PedidoService.class);
+        repository = mock(PedidoIdempotenciaRepository.class);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(repository.reservar(anyString(), anyString(), any(), any())).thenReturn(true);
+
+        service = new IdempotenciaPedidoService(pedidoService, repository, transactionTemplate, objectMapper,
+                Duration.ofHours(24), 100, Duration.ofSeconds(10));
+    }
+
+    @Test
+    void duplicatasSimultaneasExecutamUmaVez() throws Exception {
+        when(pedidoService.criar(PEDIDO)).thenAnswer(inv -> {
+            Thread.sleep(200);
+            return resposta(1L);
+        });
+
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<IdempotenciaPedidoService.Resultado>> futuros = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futuros.add(executor.submit(() -> {
+                largada.await();
+                return service.criar("pos-1", PEDIDO);
+            }));
+        }
+        largada.countDown();
+
+        List<IdempotenciaPedidoService.Resultado> resultados = new ArrayList<>();
+        for (Future<IdempotenciaPedidoService.Resultado> futuro : futuros) {
+            resultados.add(futuro.get());
+        }
+        executor.shutdown();
+
+        verify(pedidoService, times(1)).criar(PEDIDO);
+        assertThat(resultados).extracting(r -> r.pedido().id()).containsOnly(1L);
+        assertThat(resultados).filteredOn(r -> !r.repetido()).hasSize(1);
+    }
+
+    @Test
+    void mesmaChaveComOutroPedidoEhRecusada() {
+        when(pedidoService.criar(PEDIDO)).thenReturn(resposta(1L));
+        service.criar("pos-2", PEDIDO);
+
+        PedidoRequestDTO outro = new PedidoRequestDTO("Mesa 02", TipoPedido.BALCAO, List.of(new ItemPedidoRequestDTO(1L, 2)));
+        assertThatThrownBy(() -> service.criar("pos-2", outro)).isInstanceOf(BusinessException.class);
+        verify(pedidoService, never()).criar(outro);
+    }
+
+    @Test
+    void falhaLiberaAChaveParaNovaTentativa() {
+        when(pedidoService.criar(PEDIDO))
+                .thenThrow(new BusinessException("Estoque insuficiente para: Produto 1"))
+                .thenReturn(resposta(2L));
+
+        assertThatThrownBy(() -> service.criar("pos-3", PEDIDO)).isInstanceOf(BusinessException.class);
+        assertThat(service.criar("pos-3", PEDIDO).pedido().id()).isEqualTo(2L);
+        verify(pedidoService, times(2)).criar(PEDIDO);
+    }
+
+    @Test
+    void semChaveEmMemoriaUsaRespostaGravadaNoBanco() throws Exception {
+        // Hash gravado por uma execução anterior da mesma requisição
+        when(pedidoService.criar(PEDIDO)).thenReturn(resposta(3L));
+        service.criar("outra-instancia", PEDIDO);
+        ArgumentCaptor<String> hash = ArgumentCaptor.forClass(String.class);
+        verify(repository).reservar(eq("outra-instancia"), hash.capture(), any(), any());
+        clearInvocations(pedidoService);
+
+        PedidoResponseDTO original = resposta(3L);
+        when(repository.reservar(eq("pos-4"), anyString(), any(), any())).thenReturn(false);
+        when(repository.buscar("pos-4")).thenReturn(Optional.of(
+                new PedidoIdempotenciaRepository.Registro("pos-4", hash.getValue(), 3L, objectMapper.writeValueAsString(original))));
+
+        IdempotenciaPedidoService.Resultado resultado = service.criar("pos-4", PEDIDO);
+
+        assertThat(resultado.repetido()).isTrue();
+        assertThat(resultado.pedido()).isEqualTo(original);
+        verify(pedidoService, never()).criar(any());
+    }
+
+    private static PedidoResponseDTO resposta(Long id) {
+        return new PedidoResponseDTO(id, "Mesa 01", "pendente", "BALCAO", BigDecimal.TEN, "12:00",
+                List.of("2x Produto 1"), LocalDateTime.of(2025, 1, 31, 12, 0));
+    }
+}
@@ -0,0 +1,155 @@
+package mba.ivens.padoca.modules.pedido.services;
+
+import jakarta.persistence.EntityManagerFactory;
+import mba.ivens.padoca.modules.pedido.dto.ItemPedidoRequestDTO;
+import mba.ivens.padoca.modules.pedido.dto.PedidoRequestDTO;
+import mba.ivens.padoca.modules.pedido.model.enums.TipoPedido;
+import mba.ivens.padoca.modules.produto.model.Categoria;
+import mba.ivens.padoca.modules.produto.model.Produto;
+import mba.ivens.padoca.modules.produto.repository.CategoriaRepository;
+import mba.ivens.padoca.modules.produto.repository.ProdutoRepository;
+import org.hibernate.SessionEventListener;
+import org.hibernate.SessionFactory;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Conta os comandos que o Hibernate prepara e os batches JDBC que executa ao criar um pedido: devem ser os
+ * mesmos com 1, 10 ou 100 itens. A exceção são os {@code nextval} das sequences, que reservam 50 ids por
+ * vez e por isso aparecem só de tempos em tempos; eles são contados à parte.
+ */
+@SpringBootTest(properties = {
+        "padoca.estoque.reservas.habilitado=false",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.session.events.auto=mba.ivens.padoca.modules.pedido.services.PedidoCriacaoComandosTest$ContadorDeBatches",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=mba.ivens.padoca.modules.pedido.services.PedidoCriacaoComandosTest$ContadorDeSequences"
+})
+class PedidoCriacaoComandosTest {
+
+    @Autowired
+    private PedidoService service;
+    @Autowired
+    private ProdutoRepository produtoRepository;
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private List<Produto> produtos;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        // Produtos de várias categorias: a categoria de cada um não pode custar um SELECT
+        List<Categoria> categorias = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Categoria categoria = new Categoria();
+            categoria.setNome("TESTE_COMANDOS_" + UUID.randomUUID());
+            categoria.setAtivo(true);
+            categorias.add(categoriaRepository.save(categoria));
+        }
+
+        List<Produto> novos = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Produto produto = new Produto();
+            produto.setNome("Produto " + i);
+            produto.setPreco(BigDecimal.ONE);
+            produto.setQuantidadeEstoque(1_000);
+            produto.setCategoria(categorias.get(i % categorias.size()));
+            novos.add(produto);
+        }
+        produtos = produtoRepository.saveAll(novos);
+    }
+
+    @Test
+    void comandosEBatchesNaoCrescemComOsItens() {
+        List<Medicao> medicoes = new ArrayList<>();
+        // Duas rodadas: na segunda as sequences estão em outro ponto do bloco reservado
+        for (int itens : new int[]{1, 10, 100, 1, 10, 100}) {
+            Medicao medicao = criar(itens);
+            assertThat(medicao.inseridos()).isEqualTo(itens + 1);
+            // Um para o pedido e um a cada 50 itens, no máximo
+            assertThat(medicao.sequences()).isLessThanOrEqualTo(1 + (itens + 49) / 50);
+            medicoes.add(medicao);
+        }
+
+        // SELECT dos produtos + INSERT do pedido + INSERT dos itens; a baixa de estoque vai pelo JdbcTemplate
+        assertThat(medicoes).extracting(Medicao::comandos).containsOnly(3L);
+        // Pedido e itens: um batch cada, mesmo com 100 itens (acima do hibernate.jdbc.batch_size)
+        assertThat(medicoes).extracting(Medicao::batches).containsOnly(2L);
+    }
+
+    private record Medicao(long comandos, long batches, long sequences, long inseridos) {}
+
+    private Medicao criar(int itens) {
+        List<ItemPedidoRequestDTO> dto = produtos.subList(0, itens).stream()
+                .map(p -> new ItemPedidoRequestDTO(p.getId(), 1))
+                .toList();
+        statistics.clear();
+        ContadorDeBatches.medir();
+        ContadorDeSequences.medir();
+        service.criar(new PedidoRequestDTO("Comandos", TipoPedido.BALCAO, dto));
+        long sequences = ContadorDeSequences.sequences();
+        return new Medicao(statistics.getPrepareStatementCount() - sequences, ContadorDeBatches.batches(), sequences,
+                statistics.getEntityInsertCount());
+    }
+
+    /** Batches JDBC executados pelas sessões abertas na thread do teste. */
+    public static class ContadorDeBatches implements SessionEventListener {
+
+        private static final ThreadLocal<long[]> BATCHES = new ThreadLocal<>();
+
+        static void medir() {
+            BATCHES.set(new long[1]);
+        }
+
+        static long batches() {
+            return BATCHES.get()[0];
+        }
+
+        @Override
+        public void jdbcExecuteBatchStart() {
+            long[] contador = BATCHES.get();
+            if (contador != null) {
+                contador[0]++;
+            }
+        }
+    }
+
+    /** {@code nextval} das sequences de ids preparados na thread do teste. */
+    public static class ContadorDeSequences implements StatementInspector {
+
+        private static final ThreadLocal<long[]> SEQUENCES = new ThreadLocal<>();
+
+        static void medir() {
+            SEQUENCES.set(new long[1]);
+        }
+
+        static long sequences() {
+            return SEQUENCES.get()[0];
+        }
+
+        @Override
+        public String inspect(String sql) {
+            long[] contador = SEQUENCES.get();
+            if (contador != null && sql.contains("nextval")) {
+                contador[0]++;
+            }
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package mba.ivens.padoca.modules.pedido.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import mba.ivens.padoca.modules.pedido.dto.PedidoLoteResultadoDTO;
+import mba.ivens.padoca.modules.produto.model.Categoria;
+import mba.ivens.padoca.modules.produto.model.Produto;
+import mba.ivens.padoca.modules.produto.repository.CategoriaRepository;
+import mba.ivens.padoca.modules.produto.repository.ProdutoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static mba.ivens.padoca.modules.pedido.dto.PedidoLoteResultadoDTO.Situacao.CRIADO;
+import static mba.ivens.padoca.modules.pedido.dto.PedidoLoteResultadoDTO.Situacao.REJEITADO;
+import static mba.ivens.padoca.modules.pedido.dto.PedidoLoteResultadoDTO.Situacao.REPETIDO;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Importa lotes contra o banco real, em blocos de quatro linhas, para que recusas e chaves repetidas caiam
+ * no mesmo bloco de pedidos aceitos.
+ */
+@SpringBootTest(properties = {
+        "padoca.estoque.reservas.habilitado=false",
+        "padoca.pedidos.lote.tamanho-bloco=4",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=false"
+})
+class PedidoLoteServiceTest {
+
+    @Autowired
+    private PedidoLoteService service;
+    @Autowired
+    private ProdutoRepository produtoRepository;
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Produto pao;
+    private Produto bolo;
+    private String cliente;
+
+    @BeforeEach
+    void setUp() {
+        Categoria categoria = new Categoria();
+        categoria.setNome("TESTE_LOTE_" + UUID.randomUUID());
+        categoria.setAtivo(true);
+        categoria = categoriaRepository.save(categoria);
+
+        pao = produto(categoria, "Pão de teste", 100);
+        bolo = produto(categoria, "Bolo de teste", 1);
+        cliente = "Lote " + UUID.randomUUID();
+    }
+
+    @Test
+    void cadaLinhaTemSeuResultadoEReenviarNaoDuplica() throws Exception {
+        String prefixo = UUID.randomUUID() + "-";
+        String lote = String.join("\n",
+                linha(prefixo + "1", pao, 1),
+                linha(prefixo + "2", pao, 2),
+                linha(prefixo + "1", pao, 1),
+                linha(prefixo + "3", bolo, 5),
+                "null",
+                "{\"chave\": \"quebrada\"",
+                "{\"chave\":\"" + prefixo + "4\",\"cliente\":\"" + cliente + "\",\"tipo\":\"BALCAO\",\"itens\":[null]}",
+                linha(null, pao, 1));
+
+        List<PedidoLoteResultadoDTO> primeiro = importar(lote);
+
+        assertThat(primeiro).extracting(PedidoLoteResultadoDTO::linha).containsExactly(1, 2, 3, 4, 5, 6, 7, 8);
+        assertThat(primeiro).extracting(PedidoLoteResultadoDTO::situacao)
+                .containsExactly(CRIADO, CRIADO, REPETIDO, REJEITADO, REJEITADO, REJEITADO, REJEITADO, CRIADO);
+        // Chave repetida no mesmo bloco aponta para o pedido da primeira ocorrência
+        assertThat(primeiro.get(2).pedidoId()).isEqualTo(primeiro.get(0).pedidoId());
+        assertThat(primeiro.get(3).mensagem()).contains("Bolo de teste");
+        assertThat(primeiro.get(4).mensagem()).isEqualTo("Linha sem pedido");
+        assertThat(primeiro.get(5).mensagem()).startsWith("JSON inválido");
+        assertThat(primeiro.get(6).mensagem()).contains("itens[0]");
+        assertThat(pedidos()).isEqualTo(3);
+        assertThat(estoque(pao)).isEqualTo(96);
+        assertThat(estoque(bolo)).isEqualTo(1);
+
+        List<PedidoLoteResultadoDTO> reenvio = importar(lote);
+
+        assertThat(reenvio).extracting(PedidoLoteResultadoDTO::situacao)
+                .containsExactly(REPETIDO, REPETIDO, REPETIDO, REJEITADO, REJEITADO, REJEITADO, REJEITADO, CRIADO);
+        assertThat(reenvio.subList(0, 3)).extracting(PedidoLoteResultadoDTO::pedidoId)
+                .containsExactly(primeiro.get(0).pedidoId(), primeiro.get(1).pedidoId(), primeiro.get(0).pedidoId());
+        // Só a linha sem chave gera outro pedido
+        assertThat(pedidos()).isEqualTo(4);
+        assertThat(estoque(pao)).isEqualTo(95);
+    }
+
+    @Test
+    void mesmaChaveComOutroPedidoNoBlocoERecusada() throws Exception {
+        String chave = UUID.randomUUID().toString();
+
+        List<PedidoLoteResultadoDTO> resultados = importar(linha(chave, pao, 1) + "\n" + linha(chave, pao, 3));
+
+        assertThat(resultados).extracting(PedidoLoteResultadoDTO::situacao).containsExactly(CRIADO, REJEITADO);
+        assertThat(resultados.get(1).mensagem()).contains("Idempotency-Key");
+        assertThat(pedidos()).isEqualTo(1);
+        assertThat(estoque(pao)).isEqualTo(99);
+    }
+
+    private List<PedidoLoteResultadoDTO> importar(String lote) throws Exception {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        service.importar(new ByteArrayInputStream(lote.getBytes(StandardCharsets.UTF_8)), saida);
+        List<PedidoLoteResultadoDTO> resultados = new ArrayList<>();
+        for (String linha : saida.toString(StandardCharsets.UTF_8).split("\n")) {
+            resultados.add(objectMapper.readValue(linha, PedidoLoteResultadoDTO.class));
+        }
+        return resultados;
+    }
+
+    private String linha(String chave, Produto produto, int quantidade) {
+        return "{" + (chave == null ? "" : "\"chave\":\"" + chave + "\",")
+                + "\"cliente\":\"" + cliente + "\",\"tipo\":\"BALCAO\",\"itens\":[{\"produtoId\":" + produto.getId()
+                + ",\"quantidade\":" + quantidade + "}]}";
+    }
+
+    private int pedidos() {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM vendas.pedidos WHERE cliente = ?", Integer.class, cliente);
+    }
+
+    private int estoque(Produto produto) {
+        return produtoRepository.findById(produto.getId()).orElseThrow().getQuantidadeEstoque();
+    }
+
+    private Produto produto(Categoria categoria, String nome, int estoque) {
+        Produto produto = new Produto();
+        produto.setNome(nome);
+        produto.setPreco(BigDecimal.ONE);
+        produto.setQuantidadeEstoque(estoque);
+        produto.setCategoria(categoria);
+        return produtoRepository.save(produto);
+    }
+}
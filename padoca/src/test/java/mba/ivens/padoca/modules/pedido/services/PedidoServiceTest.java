@@ -0,0 +1,172 @@
+package mba.ivens.padoca.modules.pedido.services;
+
+import jakarta.persistence.EntityManager;
+import mba.ivens.padoca.config.exception.exeption.BusinessException;
+import mba.ivens.padoca.config.pagination.Cursor;
+import mba.ivens.padoca.modules.pedido.dto.ItemPedidoRequestDTO;
+import mba.ivens.padoca.modules.pedido.dto.PedidoRequestDTO;
+import mba.ivens.padoca.modules.pedido.dto.PedidoResponseDTO;
+import mba.ivens.padoca.modules.pedido.dto.SincronizacaoFilaDTO;
+import mba.ivens.padoca.modules.pedido.model.Pedido;
+import mba.ivens.padoca.modules.pedido.model.enums.TipoPedido;
+import mba.ivens.padoca.modules.pedido.repository.PedidoRepository;
+import mba.ivens.padoca.modules.produto.model.Produto;
+import mba.ivens.padoca.modules.produto.repository.ProdutoRepository;
+import mba.ivens.padoca.modules.produto.services.EstoqueService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class PedidoServiceTest {
+
+    private PedidoRepository pedidoRepository;
+    private ProdutoRepository produtoRepository;
+    private EstoqueService estoqueService;
+    private PedidoService service;
+
+    @BeforeEach
+    void setUp() {
+        pedidoRepository = mock(PedidoRepository.class);
+        produtoRepository = mock(ProdutoRepository.class);
+        estoqueService = mock(EstoqueService.class);
+        EntityManager entityManager = mock(EntityManager.class);
+        when(entityManager.unwrap(SharedSessionContractImplementor.class)).thenReturn(mock(SharedSessionContractImplementor.class));
+        service = new PedidoService(pedidoRepository, produtoRepository, mock(ApplicationEventPublisher.class), estoqueService,
+                entityManager, Duration.ofDays(30), Duration.ofSeconds(30));
+
+        when(produtoRepository.findComCategoriaByIdIn(any())).thenAnswer(inv -> {
+            Collection<Long> ids = inv.getArgument(0);
+            return ids.stream().map(PedidoServiceTest::produto).toList();
+        });
+        when(pedidoRepository.save(any(Pedido.class))).thenAnswer(inv -> inv.getArgument(0));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 5, 20, 100})
+    void criarFazNumeroConstanteDeConsultasIndependenteDaQuantidadeDeItens(int quantidadeItens) {
+        List<ItemPedidoRequestDTO> itens = LongStream.rangeClosed(1, quantidadeItens)
+                .mapToObj(id -> new ItemPedidoRequestDTO(id, 1))
+                .toList();
+
+        service.criar(new PedidoRequestDTO("Mesa 01", TipoPedido.BALCAO, itens));
+
+        verify(produtoRepository, times(1)).findComCategoriaByIdIn(any());
+        verify(produtoRepository, never()).findById(anyLong());
+        verify(pedidoRepository, times(1)).save(any(Pedido.class));
+    }
+
+    @Test
+    void criarAgrupaLinhasDoMesmoProduto() {
+        List<ItemPedidoRequestDTO> itens = new ArrayList<>();
+        itens.add(new ItemPedidoRequestDTO(1L, 2));
+        itens.add(new ItemPedidoRequestDTO(2L, 1));
+        itens.add(new ItemPedidoRequestDTO(1L, 3));
+
+        PedidoResponseDTO response = service.criar(new PedidoRequestDTO("Mesa 02", TipoPedido.BALCAO, itens));
+
+        assertThat(response.descricaoItens()).containsExactly("5x Produto 1", "1x Produto 2");
+        assertThat(response.total()).isEqualByComparingTo("6.00");
+        verify(estoqueService).baixar(eq(Map.of(1L, 5, 2L, 1)), any());
+    }
+
+    @Test
+    void criarSemEstoqueNaoSalvaPedido() {
+        doThrow(new BusinessException("Estoque insuficiente para: Produto 1"))
+                .when(estoqueService).baixar(any(), any());
+
+        assertThatThrownBy(() -> service.criar(new PedidoRequestDTO("Mesa 03", TipoPedido.BALCAO,
+                List.of(new ItemPedidoRequestDTO(1L, 1)))))
+                .isInstanceOf(BusinessException.class);
+        verify(pedidoRepository, never()).save(any(Pedido.class));
+    }
+
+    @Test
+    void sincronizarAvancaAteAUltimaLinhaQuandoElaJaSaiuDaSobreposicao() {
+        LocalDateTime antes = LocalDateTime.now().minusMinutes(10);
+        when(pedidoRepository.findAlteracoesFila(any(), eq(antes), eq(0L), any())).thenReturn(List.of(
+                new Object[]{7L, antes.plusMinutes(1)}, new Object[]{3L, antes.plusMinutes(2)}, new Object[]{9L, antes.plusMinutes(3)}));
+        when(pedidoRepository.findComItensByIdIn(List.of(7L, 3L)))
+                .thenReturn(List.of(pedido(3L, antes.plusMinutes(2)), pedido(7L, antes.plusMinutes(1))));
+
+        SincronizacaoFilaDTO resposta = service.sincronizarFila(Cursor.codificar(antes, 0L), 2);
+
+        assertThat(resposta.itens()).extracting(PedidoResponseDTO::id).containsExactly(7L, 3L);
+        assertThat(resposta.temMais()).isTrue();
+        assertThat(resposta.cursor()).isEqualTo(Cursor.codificar(antes.plusMinutes(2), 3L));
+    }
+
+    @Test
+    void sincronizarNaoPassaCursorAlemDaSobreposicao() {
+        LocalDateTime antes = LocalDateTime.now().minusMinutes(10);
+        LocalDateTime agora = LocalDateTime.now();
+        when(pedidoRepository.findAlteracoesFila(any(), eq(antes), eq(0L), any()))
+                .thenReturn(List.<Object[]>of(new Object[]{5L, agora}));
+        when(pedidoRepository.findComItensByIdIn(List.of(5L))).thenReturn(List.of(pedido(5L, agora)));
+
+        SincronizacaoFilaDTO resposta = service.sincronizarFila(Cursor.codificar(antes, 0L), 50);
+
+        // Uma transação mais lenta ainda pode gravar antes de 'agora'; a próxima consulta relê os últimos 30s
+        LocalDateTime proximo = Cursor.decodificar(resposta.cursor(), 2).dataHora(0);
+        assertThat(proximo).isAfter(antes).isBefore(agora.minusSeconds(29));
+        assertThat(resposta.itens()).extracting(PedidoResponseDTO::id).containsExactly(5L);
+    }
+
+    @Test
+    void sincronizarIgnoraPedidoQueSumiuEntreAsConsultas() {
+        LocalDateTime antes = LocalDateTime.now().minusMinutes(10);
+        when(pedidoRepository.findAlteracoesFila(any(), any(), any(), any())).thenReturn(List.of(
+                new Object[]{1L, antes.plusMinutes(1)}, new Object[]{2L, antes.plusMinutes(2)}));
+        when(pedidoRepository.findComItensByIdIn(any())).thenReturn(List.of(pedido(2L, antes.plusMinutes(2))));
+
+        SincronizacaoFilaDTO resposta = service.sincronizarFila(Cursor.codificar(antes, 0L), 50);
+
+        assertThat(resposta.itens()).extracting(PedidoResponseDTO::id).containsExactly(2L);
+    }
+
+    @Test
+    void historicoIgnoraPedidoQueSumiuSemEncerrarAPaginacao() {
+        LocalDateTime hoje = LocalDateTime.now();
+        when(pedidoRepository.findIdsHistorico(any())).thenReturn(List.of(3L, 2L, 1L));
+        when(pedidoRepository.findComItensByIdIn(any())).thenReturn(List.of(pedido(1L, hoje), pedido(3L, hoje)));
+
+        var pagina = service.listarHistorico(null, 2, false);
+
+        assertThat(pagina.itens()).extracting(PedidoResponseDTO::id).containsExactly(3L, 1L);
+        assertThat(pagina.temMais()).isTrue();
+        assertThat(pagina.proximoCursor()).isEqualTo(Cursor.codificar(hoje, 1L));
+    }
+
+    private static Pedido pedido(Long id, LocalDateTime dataAtualizacao) {
+        Pedido pedido = new Pedido();
+        pedido.setId(id);
+        pedido.setDataCriacao(dataAtualizacao);
+        pedido.setDataAtualizacao(dataAtualizacao);
+        return pedido;
+    }
+
+    private static Produto produto(Long id) {
+        Produto produto = new Produto();
+        produto.setId(id);
+        produto.setNome("Produto " + id);
+        produto.setPreco(BigDecimal.ONE);
+        return produto;
+    }
+}
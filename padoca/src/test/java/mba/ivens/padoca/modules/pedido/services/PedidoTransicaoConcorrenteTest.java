@@ -0,0 +1,191 @@
+package mba.ivens.padoca.modules.pedido.services;
+
+import mba.ivens.padoca.config.exception.exeption.BusinessException;
+import mba.ivens.padoca.modules.pedido.dto.ItemPedidoRequestDTO;
+import mba.ivens.padoca.modules.pedido.dto.PedidoRequestDTO;
+import mba.ivens.padoca.modules.pedido.model.enums.StatusPedido;
+import mba.ivens.padoca.modules.pedido.model.enums.TipoPedido;
+import mba.ivens.padoca.modules.pedido.repository.PedidoRepository;
+import mba.ivens.padoca.modules.produto.model.Categoria;
+import mba.ivens.padoca.modules.produto.model.Produto;
+import mba.ivens.padoca.modules.produto.repository.CategoriaRepository;
+import mba.ivens.padoca.modules.produto.repository.ProdutoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Dispara toques simultâneos contra o banco real: o UPDATE condicional deve deixar exatamente um vencedor
+ * por transição, sem avanços duplicados nem estoque devolvido duas vezes.
+ */
+// Sem log de SQL: milhares de transições concorrentes
+@SpringBootTest(properties = {
+        "padoca.estoque.reservas.habilitado=false",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=false"
+})
+class PedidoTransicaoConcorrenteTest {
+
+    private static final int THREADS = 16;
+
+    @Autowired
+    private PedidoService service;
+    @Autowired
+    private PedidoRepository pedidoRepository;
+    @Autowired
+    private ProdutoRepository produtoRepository;
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    private Produto produto;
+
+    @BeforeEach
+    void setUp() {
+        Categoria categoria = new Categoria();
+        categoria.setNome("TESTE_CONCORRENCIA_" + UUID.randomUUID());
+        categoria.setAtivo(true);
+        categoria = categoriaRepository.save(categoria);
+
+        produto = new Produto();
+        produto.setNome("Pão de teste");
+        produto.setPreco(BigDecimal.ONE);
+        produto.setQuantidadeEstoque(1_000);
+        produto.setCategoria(categoria);
+        produto = produtoRepository.save(produto);
+    }
+
+    @Test
+    void toquesSimultaneosAvancamApenasUmaVez() throws Exception {
+        Long id = novoPedido(TipoPedido.BALCAO, 1);
+
+        List<Boolean> resultados = emParalelo(THREADS, i -> () -> avancou(() -> service.avancarStatus(id, StatusPedido.PENDENTE, "toque-" + i)));
+
+        assertThat(resultados).containsOnlyOnce(true);
+        assertThat(pedidoRepository.findById(id).orElseThrow().getStatus()).isEqualTo(StatusPedido.PREPARANDO);
+    }
+
+    @Test
+    void reenvioComMesmaChaveNaoAvancaDeNovo() throws Exception {
+        Long id = novoPedido(TipoPedido.BALCAO, 1);
+        String chave = UUID.randomUUID().toString();
+
+        List<String> status = emParalelo(THREADS, i -> () -> service.avancarStatus(id, StatusPedido.PENDENTE, chave).status());
+
+        assertThat(status).containsOnly("preparando");
+        assertThat(pedidoRepository.findById(id).orElseThrow().getStatus()).isEqualTo(StatusPedido.PREPARANDO);
+        assertThatThrownBy(() -> service.avancarStatus(id, StatusPedido.PENDENTE, "outra-chave"))
+                .isInstanceOf(BusinessException.class);
+    }
+
+    @Test
+    void cancelamentosSimultaneosDevolvemEstoqueUmaVez() throws Exception {
+        Long id = novoPedido(TipoPedido.ENTREGA, 3);
+        assertThat(estoque()).isEqualTo(997);
+
+        List<Boolean> resultados = emParalelo(THREADS, i -> () -> avancou(() -> service.cancelar(id, StatusPedido.PENDENTE, "cancelar-" + i)));
+
+        assertThat(resultados).containsOnlyOnce(true);
+        assertThat(pedidoRepository.findById(id).orElseThrow().getStatus()).isEqualTo(StatusPedido.CANCELADO);
+        assertThat(estoque()).isEqualTo(1_000);
+        assertThatThrownBy(() -> service.cancelar(id, StatusPedido.CANCELADO, null))
+                .isInstanceOf(BusinessException.class);
+    }
+
+    @Test
+    void cargaConcorrenteNaoPulaNemRepeteEtapas() throws Exception {
+        int quantidadePedidos = 30;
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < quantidadePedidos; i++) {
+            ids.add(novoPedido(i % 2 == 0 ? TipoPedido.BALCAO : TipoPedido.ENTREGA, 1));
+        }
+        ConcurrentHashMap<Long, AtomicInteger> avancos = new ConcurrentHashMap<>();
+
+        // Cada "tablet" lê o status atual e toca em avançar, como na tela da cozinha
+        emParalelo(THREADS, t -> () -> {
+            for (int tentativa = 0; tentativa < 200; tentativa++) {
+                Long id = ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+                StatusPedido visto = pedidoRepository.findById(id).orElseThrow().getStatus();
+                if (visto.proximo(TipoPedido.BALCAO) != null
+                        && avancou(() -> service.avancarStatus(id, visto, UUID.randomUUID().toString()))) {
+                    avancos.computeIfAbsent(id, k -> new AtomicInteger()).incrementAndGet();
+                }
+            }
+            return null;
+        });
+
+        for (Long id : ids) {
+            var pedido = pedidoRepository.findById(id).orElseThrow();
+            int etapas = pedido.getTipo() == TipoPedido.ENTREGA ? 4 : 3;
+            int esperado = switch (pedido.getStatus()) {
+                case PENDENTE -> 0;
+                case PREPARANDO -> 1;
+                case PRONTO -> 2;
+                case EM_ENTREGA -> 3;
+                case CONCLUIDO -> etapas;
+                case CANCELADO -> throw new AssertionError("Pedido cancelado sem pedido de cancelamento");
+            };
+            assertThat(avancos.getOrDefault(id, new AtomicInteger()).get())
+                    .as("avanços do pedido %d (%s)", id, pedido.getStatus())
+                    .isEqualTo(esperado);
+        }
+    }
+
+    private Long novoPedido(TipoPedido tipo, int quantidade) {
+        return service.criar(new PedidoRequestDTO("Mesa teste", tipo,
+                List.of(new ItemPedidoRequestDTO(produto.getId(), quantidade)))).id();
+    }
+
+    private int estoque() {
+        return produtoRepository.findById(produto.getId()).orElseThrow().getQuantidadeEstoque();
+    }
+
+    private static boolean avancou(Runnable toque) {
+        try {
+            toque.run();
+            return true;
+        } catch (BusinessException e) {
+            return false;
+        }
+    }
+
+    private static <T> List<T> emParalelo(int threads, IntFunction<Callable<T>> tarefa) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch largada = new CountDownLatch(1);
+        try {
+            List<Future<T>> futuros = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                Callable<T> callable = tarefa.apply(i);
+                futuros.add(executor.submit(() -> {
+                    largada.await();
+                    return callable.call();
+                }));
+            }
+            largada.countDown();
+            List<T> resultados = new ArrayList<>();
+            for (Future<T> futuro : futuros) {
+                resultados.add(futuro.get());
+            }
+            return resultados;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
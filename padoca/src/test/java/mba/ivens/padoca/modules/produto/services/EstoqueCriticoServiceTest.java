@@ -0,0 +1,61 @@
+package mba.ivens.padoca.modules.produto.services;
+
+import mba.ivens.padoca.modules.produto.dto.EstoqueCriticoDTO;
+import mba.ivens.padoca.modules.produto.events.EstoqueAlteradoEvent;
+import mba.ivens.padoca.modules.produto.repository.EstoqueRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class EstoqueCriticoServiceTest {
+
+    private static final EstoqueCriticoDTO PAO = new EstoqueCriticoDTO(1L, "Pão", "PAES", 2, 5);
+    private static final EstoqueCriticoDTO BOLO = new EstoqueCriticoDTO(2L, "Bolo", "BOLOS", 4, 5);
+
+    private EstoqueRepository estoqueRepository;
+    private EstoqueCriticoService service;
+
+    @BeforeEach
+    void setUp() {
+        estoqueRepository = mock(EstoqueRepository.class);
+        service = new EstoqueCriticoService(estoqueRepository, 8, 8, Duration.ofMinutes(1));
+        when(estoqueRepository.criticos()).thenReturn(List.of(PAO, BOLO));
+        service.reconstruir();
+    }
+
+    @Test
+    void saldosDoEventoAtualizamOIndiceSemConsultarOBanco() {
+        service.onEstoqueAlterado(EstoqueAlteradoEvent.saldos(Set.of(1L, 2L, 3L), List.of(
+                new EstoqueCriticoDTO(1L, "Pão", "PAES", 1, 5),
+                new EstoqueCriticoDTO(2L, "Bolo", "BOLOS", 9, 5),
+                new EstoqueCriticoDTO(3L, "Café", "BEBIDAS", 5, 5))));
+
+        assertThat(service.listar()).containsExactly(
+                new EstoqueCriticoDTO(1L, "Pão", "PAES", 1, 5),
+                new EstoqueCriticoDTO(3L, "Café", "BEBIDAS", 5, 5));
+        verify(estoqueRepository, never()).criticos(any());
+    }
+
+    @Test
+    void produtoInativoSaiDoIndice() {
+        service.onEstoqueAlterado(EstoqueAlteradoEvent.saldos(Set.of(1L), List.of()));
+
+        assertThat(service.listar()).containsExactly(BOLO);
+        verify(estoqueRepository, never()).criticos(any());
+    }
+
+    @Test
+    void eventoSemSaldosReleOsProdutos() {
+        when(estoqueRepository.criticos(Set.of(2L))).thenReturn(List.of());
+
+        service.onEstoqueAlterado(EstoqueAlteradoEvent.produtos(Set.of(2L)));
+
+        assertThat(service.listar()).containsExactly(PAO);
+    }
+}
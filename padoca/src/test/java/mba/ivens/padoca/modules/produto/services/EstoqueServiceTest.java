@@ -0,0 +1,111 @@
+package mba.ivens.padoca.modules.produto.services;
+
+import mba.ivens.padoca.config.exception.exeption.BusinessException;
+import mba.ivens.padoca.modules.produto.dto.EstoqueCriticoDTO;
+import mba.ivens.padoca.modules.produto.events.CatalogoAlteradoEvent;
+import mba.ivens.padoca.modules.produto.events.EstoqueAlteradoEvent;
+import mba.ivens.padoca.modules.produto.model.Categoria;
+import mba.ivens.padoca.modules.produto.model.Produto;
+import mba.ivens.padoca.modules.produto.repository.EstoqueRepository;
+import mba.ivens.padoca.modules.produto.repository.EstoqueRepository.Saldo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class EstoqueServiceTest {
+
+    private EstoqueRepository estoqueRepository;
+    private ApplicationEventPublisher eventPublisher;
+    private EstoqueService service;
+
+    @BeforeEach
+    void setUp() {
+        estoqueRepository = mock(EstoqueRepository.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        service = new EstoqueService(estoqueRepository, eventPublisher, Optional.empty());
+    }
+
+    @Test
+    void todaBaixaInvalidaAsCategoriasDosProdutos() {
+        // Nenhum produto zera: o catálogo mostra a quantidade, então as duas categorias ficam desatualizadas
+        Map<Long, Produto> produtos = Map.of(1L, produto(1L, "PAES", 10), 2L, produto(2L, "BOLOS", 10), 3L, produto(3L, "PAES", 10));
+        when(estoqueRepository.baixar(any())).thenReturn(Map.of(1L, new Saldo(8, 5), 2L, new Saldo(9, 5), 3L, new Saldo(7, 5)));
+
+        service.baixar(Map.of(1L, 2, 2L, 1, 3L, 3), produtos);
+
+        assertThat(eventos(CatalogoAlteradoEvent.class)).containsExactly(new CatalogoAlteradoEvent(Set.of("PAES", "BOLOS"), false, false));
+    }
+
+    @Test
+    void devolucaoInvalidaTodosOsProdutos() {
+        service.liberar(Map.of(1L, 2));
+
+        verify(estoqueRepository).repor(any());
+        assertThat(eventos(CatalogoAlteradoEvent.class)).containsExactly(CatalogoAlteradoEvent.todosOsProdutos());
+    }
+
+    @Test
+    void eventoDeEstoqueLevaOsSaldosDaBaixaSemOsProdutosInativos() {
+        Produto inativo = produto(3L, "BOLOS", 10);
+        inativo.setAtivo(false);
+        Map<Long, Produto> produtos = Map.of(1L, produto(1L, "PAES", 10), 2L, produto(2L, "BOLOS", 10), 3L, inativo);
+        when(estoqueRepository.baixar(any())).thenReturn(Map.of(1L, new Saldo(3, 5), 2L, new Saldo(8, 2), 3L, new Saldo(1, 5)));
+
+        service.baixar(Map.of(1L, 2, 2L, 1, 3L, 1), produtos);
+
+        EstoqueAlteradoEvent evento = eventos(EstoqueAlteradoEvent.class).get(0);
+        assertThat(evento.produtoIds()).containsExactlyInAnyOrder(1L, 2L, 3L);
+        assertThat(evento.saldos()).containsExactlyInAnyOrder(
+                new EstoqueCriticoDTO(1L, "Produto 1", "PAES", 3, 5),
+                new EstoqueCriticoDTO(2L, "Produto 2", "BOLOS", 8, 2));
+    }
+
+    @Test
+    void loteRecusadoEmParteReleOsProdutos() {
+        Map<Long, Produto> produtos = Map.of(1L, produto(1L, "PAES", 10));
+        when(estoqueRepository.baixar(any())).thenReturn(Map.of()).thenReturn(Map.of(1L, new Saldo(7, 5))).thenReturn(Map.of());
+
+        service.baixarLote(List.of(Map.of(1L, 3), Map.of(1L, 9)), produtos);
+
+        assertThat(eventos(EstoqueAlteradoEvent.class)).containsExactly(EstoqueAlteradoEvent.produtos(Set.of(1L)));
+    }
+
+    @Test
+    void baixaSemSaldoRecusaOPedido() {
+        Map<Long, Produto> produtos = Map.of(1L, produto(1L, "PAES", 10), 2L, produto(2L, "BOLOS", 10));
+        when(estoqueRepository.baixar(any())).thenReturn(Map.of(1L, new Saldo(3, 5)));
+
+        assertThatThrownBy(() -> service.baixar(Map.of(1L, 2, 2L, 1), produtos))
+                .isInstanceOf(BusinessException.class)
+                .hasMessageContaining("Produto 2");
+        assertThat(eventos(CatalogoAlteradoEvent.class)).isEmpty();
+    }
+
+    private <T> List<T> eventos(Class<T> tipo) {
+        ArgumentCaptor<Object> eventos = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher, atLeast(0)).publishEvent(eventos.capture());
+        return eventos.getAllValues().stream().filter(tipo::isInstance).map(tipo::cast).toList();
+    }
+
+    private static Produto produto(Long id, String categoria, int estoque) {
+        Categoria c = new Categoria();
+        c.setNome(categoria);
+        Produto produto = new Produto();
+        produto.setId(id);
+        produto.setNome("Produto " + id);
+        produto.setQuantidadeEstoque(estoque);
+        produto.setCategoria(c);
+        return produto;
+    }
+}
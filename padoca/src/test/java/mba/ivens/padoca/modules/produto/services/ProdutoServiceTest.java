@@ -0,0 +1,101 @@
+package mba.ivens.padoca.modules.produto.services;
+
+import mba.ivens.padoca.modules.produto.dto.ProdutoRequestDTO;
+import mba.ivens.padoca.modules.produto.dtoMapper.ProdutoMapper;
+import mba.ivens.padoca.modules.produto.events.CatalogoAlteradoEvent;
+import mba.ivens.padoca.modules.produto.model.Categoria;
+import mba.ivens.padoca.modules.produto.model.Produto;
+import mba.ivens.padoca.modules.produto.repository.CategoriaRepository;
+import mba.ivens.padoca.modules.produto.repository.ProdutoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ProdutoServiceTest {
+
+    private ProdutoRepository repository;
+    private CategoriaRepository categoriaRepository;
+    private ApplicationEventPublisher eventPublisher;
+    private ProdutoService service;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(ProdutoRepository.class);
+        categoriaRepository = mock(CategoriaRepository.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        service = new ProdutoService(repository, new ProdutoMapper(), categoriaRepository,
+                mock(CatalogoCacheService.class), mock(EstoqueService.class), eventPublisher);
+
+        when(repository.save(any(Produto.class))).thenAnswer(inv -> inv.getArgument(0));
+    }
+
+    @Test
+    void atualizarSemTrocarDeCategoriaInvalidaSoAQuelaCategoria() {
+        Categoria paes = categoria(1L, "PAES");
+        Produto produto = new Produto();
+        produto.setId(10L);
+        produto.setNome("Pão francês");
+        produto.setCategoria(paes);
+        when(repository.findById(10L)).thenReturn(Optional.of(produto));
+        when(categoriaRepository.findById(1L)).thenReturn(Optional.of(paes));
+
+        var response = service.atualizarProduto(10L, new ProdutoRequestDTO("Pão francês", null, new BigDecimal("0.80"),
+                null, 1L, null, 100, 10, null, true), null);
+
+        assertThat(response.preco()).isEqualByComparingTo("0.80");
+        ArgumentCaptor<Object> eventos = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher, atLeastOnce()).publishEvent(eventos.capture());
+        assertThat(eventos.getAllValues())
+                .filteredOn(CatalogoAlteradoEvent.class::isInstance)
+                .containsExactly(new CatalogoAlteradoEvent(Set.of("PAES"), false, false));
+    }
+
+    @Test
+    void atualizarSemCustoMantemOCustoGravado() {
+        Categoria paes = categoria(1L, "PAES");
+        Produto produto = new Produto();
+        produto.setId(10L);
+        produto.setPrecoCusto(new BigDecimal("0.30"));
+        produto.setCategoria(paes);
+        when(repository.findById(10L)).thenReturn(Optional.of(produto));
+        when(categoriaRepository.findById(1L)).thenReturn(Optional.of(paes));
+
+        service.atualizarProduto(10L, new ProdutoRequestDTO("Pão francês", null, new BigDecimal("0.80"),
+                null, 1L, null, 100, 10, null, true), null);
+        assertThat(produto.getPrecoCusto()).isEqualByComparingTo("0.30");
+
+        service.atualizarProduto(10L, new ProdutoRequestDTO("Pão francês", null, new BigDecimal("0.80"),
+                new BigDecimal("0.35"), 1L, null, 100, 10, null, true), null);
+        assertThat(produto.getPrecoCusto()).isEqualByComparingTo("0.35");
+    }
+
+    @Test
+    void custoSoSaiNaConsultaDeGestores() {
+        Produto produto = new Produto();
+        produto.setId(10L);
+        produto.setNome("Pão francês");
+        produto.setPreco(new BigDecimal("0.80"));
+        produto.setPrecoCusto(new BigDecimal("0.30"));
+        produto.setCategoria(categoria(1L, "PAES"));
+        when(repository.findById(10L)).thenReturn(Optional.of(produto));
+
+        assertThat(service.buscarPorId(10L).toString()).doesNotContain("0.30");
+        assertThat(service.buscarCusto(10L).precoCusto()).isEqualByComparingTo("0.30");
+    }
+
+    private static Categoria categoria(Long id, String nome) {
+        Categoria categoria = new Categoria();
+        categoria.setId(id);
+        categoria.setNome(nome);
+        return categoria;
+    }
+}
@@ -0,0 +1,32 @@
+package mba.ivens.padoca.modules.usuarios.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TicketStreamServiceTest {
+
+    private final Authentication autenticacao = new UsernamePasswordAuthenticationToken("cozinha@padoca", null, List.of());
+
+    @Test
+    void ticketSoAutenticaUmaVez() {
+        TicketStreamService service = new TicketStreamService(Duration.ofSeconds(30), 100);
+        String ticket = service.emitir(autenticacao);
+
+        assertThat(service.resgatar(ticket)).contains(autenticacao);
+        assertThat(service.resgatar(ticket)).isEmpty();
+        assertThat(service.resgatar("inventado")).isEmpty();
+    }
+
+    @Test
+    void ticketExpiradoNaoAutentica() {
+        TicketStreamService service = new TicketStreamService(Duration.ZERO, 100);
+
+        assertThat(service.resgatar(service.emitir(autenticacao))).isEmpty();
+    }
+}
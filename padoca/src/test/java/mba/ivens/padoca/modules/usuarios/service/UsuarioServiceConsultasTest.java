@@ -0,0 +1,109 @@
+package mba.ivens.padoca.modules.usuarios.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import mba.ivens.padoca.modules.usuarios.dto.EnderecoDTO;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Conta os comandos SQL que o Hibernate prepara em cada operação do perfil: devem ser os mesmos com poucos
+ * ou com milhares de usuários cadastrados, e com um ou vários endereços.
+ */
+@SpringBootTest(properties = {
+        "padoca.estoque.reservas.habilitado=false",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class UsuarioServiceConsultasTest {
+
+    @Autowired
+    private UsuarioService service;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private String prefixo;
+    private int alteracoes;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        prefixo = "carga-" + UUID.randomUUID() + "-";
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM acesso.enderecos WHERE usuario_id IN (SELECT id FROM acesso.usuarios WHERE email LIKE ?)",
+                prefixo + "%");
+        jdbcTemplate.update("DELETE FROM acesso.usuarios WHERE email LIKE ?", prefixo + "%");
+    }
+
+    @Test
+    void comandosPorOperacaoNaoCrescemComOsUsuarios() {
+        semear(1, 20);
+        List<Long> poucos = operacoes(prefixo + "1@padoca.com");
+
+        semear(21, 5_000);
+        List<Long> muitos = operacoes(prefixo + "4000@padoca.com");
+
+        assertThat(muitos).isEqualTo(poucos);
+        // atualizarPerfil: SELECT com endereços + UPDATE; adicionarEndereco: SELECT + INSERT; removerEndereco: DELETE
+        assertThat(poucos).allSatisfy(comandos -> assertThat(comandos).isBetween(1L, 2L));
+    }
+
+    @Test
+    void comandosPorOperacaoNaoCrescemComOsEnderecos() {
+        semear(1, 1);
+        String email = prefixo + "1@padoca.com";
+        List<Long> umEndereco = operacoes(email);
+
+        for (int i = 0; i < 20; i++) {
+            service.adicionarEndereco(email, endereco());
+        }
+        List<Long> vinteEnderecos = operacoes(email);
+
+        assertThat(vinteEnderecos).isEqualTo(umEndereco);
+    }
+
+    // Comandos preparados por atualizarPerfil, adicionarEndereco e removerEndereco, nesta ordem
+    private List<Long> operacoes(String email) {
+        // Nome diferente a cada chamada: sem mudança o Hibernate não manda o UPDATE
+        long perfil = comandos(() -> service.atualizarPerfil(email, "Nome alterado " + ++alteracoes, "11 99999-0000"));
+        Long[] id = new Long[1];
+        long adicionar = comandos(() -> id[0] = service.adicionarEndereco(email, endereco()).enderecos().stream()
+                .mapToLong(EnderecoDTO::id).max().orElseThrow());
+        long remover = comandos(() -> service.removerEndereco(email, id[0]));
+        return List.of(perfil, adicionar, remover);
+    }
+
+    private long comandos(Runnable operacao) {
+        statistics.clear();
+        operacao.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void semear(int de, int ate) {
+        jdbcTemplate.update("""
+                INSERT INTO acesso.usuarios (nome, email, senha, cpf, tipo, ativo, data_criacao)
+                SELECT 'Cliente ' || g, ? || g || '@padoca.com', 'x', lpad(g::text, 11, '0'), 'CLIENTE', true, LOCALTIMESTAMP
+                FROM generate_series(?, ?) g
+                """, prefixo, de, ate);
+    }
+
+    private static EnderecoDTO endereco() {
+        return new EnderecoDTO(null, "Rua do Teste", "10", null, "Centro", "São Paulo", "SP", "01000-000", "CASA");
+    }
+}
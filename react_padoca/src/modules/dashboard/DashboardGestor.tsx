@@ -98,7 +98,7 @@ export const DashboardGestor = () => {
              ) : (
                  alertas.map((prod) => (
                     <div key={prod.id} className="flex items-center gap-3 p-3 bg-red-50/50 dark:bg-red-900/10 rounded-2xl border border-red-100 dark:border-red-900/20">
-                        <img src={`http://localhost:8080${prod.imagemUrl}`} className="w-10 h-10 rounded-lg object-cover bg-white" onError={(e) => e.currentTarget.src = 'https://via.placeholder.com/40'} />
+                        <img src={`http://localhost:8080${prod.imagens?.thumb ?? prod.imagemUrl}`} className="w-10 h-10 rounded-lg object-cover bg-white" onError={(e) => e.currentTarget.src = 'https://via.placeholder.com/40'} />
                         <div className="flex-grow">
                             <p className="text-xs font-bold text-stone-700 dark:text-stone-200">{prod.nome}</p>
                             <p className="text-[10px] text-red-500 font-bold uppercase tracking-tight">
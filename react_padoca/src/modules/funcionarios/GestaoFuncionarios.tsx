@@ -363,11 +363,11 @@ const GestaoCardapio = ({ products, onUpdate, categories }: { products: ProdutoU
     );
 };
 
-const OrderBoard = ({ orders, onUpdateStatus }: { orders: Pedido[], onUpdateStatus: (id: number) => void }) => {
+const OrderBoard = ({ orders, onUpdateStatus }: { orders: Pedido[], onUpdateStatus: (id: number, status: string) => void }) => {
   const getStatusLabel = (status: string) => { const labels: Record<string, string> = { 'RECEBIDO': 'Aceitar', 'EM_PREPARO': 'Finalizar', 'PRONTO': 'Entregar', 'ENTREGUE': 'Concluído', 'CANCELADO': 'Cancelado' }; return labels[status] || status; };
   
   return (
-    <div className="space-y-6 animate-page-transition"><h2 className="text-xl font-bold flex items-center gap-2"><ClipboardList className="text-blue-500" /> Fila de Preparo</h2><div className="grid grid-cols-1 md:grid-cols-2 gap-6">{orders.filter(o => o.status !== 'ENTREGUE' && o.status !== 'CANCELADO').map(order => (<div key={order.id} className="bg-white dark:bg-stone-900 rounded-3xl border border-stone-100 dark:border-stone-800 shadow-sm overflow-hidden p-6 space-y-5 relative transition-all hover:shadow-xl hover:-translate-y-0.5 animate-fade-in"><div className={`absolute top-0 left-0 h-1.5 w-full transition-colors duration-500 ${order.tipo === 'ENCOMENDA' ? 'bg-purple-500' : 'bg-amber-500'}`}></div><div className="flex justify-between items-start pt-2"><div><div className="flex items-center gap-2 mb-0.5"><span className="text-[10px] font-bold text-stone-400 uppercase">#{order.id}</span><span className={`text-[9px] font-bold px-1.5 py-0.5 rounded uppercase ${order.tipo === 'ENCOMENDA' ? 'bg-purple-50 text-purple-600' : 'bg-amber-50 text-amber-600'}`}>{order.tipo}</span></div><h4 className="font-bold text-lg">{order.cliente}</h4></div><span className="text-[10px] font-bold text-stone-400">{new Date(order.dataHora).toLocaleTimeString([], {hour:'2-digit', minute:'2-digit'})}</span></div><div className="bg-stone-50 dark:bg-stone-800/50 p-4 rounded-2xl border border-stone-100 dark:border-stone-800"><ul className="space-y-1.5">{order.descricaoItens.map((item, idx) => (<li key={idx} className="flex items-center gap-2 text-sm font-medium text-stone-700 dark:text-stone-300"><div className="w-1 h-1 rounded-full bg-stone-300"></div>{item}</li>))}</ul></div><button onClick={() => onUpdateStatus(order.id)} className={`w-full py-4 rounded-2xl font-bold text-white shadow-lg active:scale-[0.98] transition-all bg-stone-800 hover:bg-stone-700`}>{getStatusLabel(order.status)}</button></div>))}</div></div>
+    <div className="space-y-6 animate-page-transition"><h2 className="text-xl font-bold flex items-center gap-2"><ClipboardList className="text-blue-500" /> Fila de Preparo</h2><div className="grid grid-cols-1 md:grid-cols-2 gap-6">{orders.filter(o => o.status !== 'ENTREGUE' && o.status !== 'CANCELADO').map(order => (<div key={order.id} className="bg-white dark:bg-stone-900 rounded-3xl border border-stone-100 dark:border-stone-800 shadow-sm overflow-hidden p-6 space-y-5 relative transition-all hover:shadow-xl hover:-translate-y-0.5 animate-fade-in"><div className={`absolute top-0 left-0 h-1.5 w-full transition-colors duration-500 ${order.tipo === 'ENCOMENDA' ? 'bg-purple-500' : 'bg-amber-500'}`}></div><div className="flex justify-between items-start pt-2"><div><div className="flex items-center gap-2 mb-0.5"><span className="text-[10px] font-bold text-stone-400 uppercase">#{order.id}</span><span className={`text-[9px] font-bold px-1.5 py-0.5 rounded uppercase ${order.tipo === 'ENCOMENDA' ? 'bg-purple-50 text-purple-600' : 'bg-amber-50 text-amber-600'}`}>{order.tipo}</span></div><h4 className="font-bold text-lg">{order.cliente}</h4></div><span className="text-[10px] font-bold text-stone-400">{new Date(order.dataHora).toLocaleTimeString([], {hour:'2-digit', minute:'2-digit'})}</span></div><div className="bg-stone-50 dark:bg-stone-800/50 p-4 rounded-2xl border border-stone-100 dark:border-stone-800"><ul className="space-y-1.5">{order.descricaoItens.map((item, idx) => (<li key={idx} className="flex items-center gap-2 text-sm font-medium text-stone-700 dark:text-stone-300"><div className="w-1 h-1 rounded-full bg-stone-300"></div>{item}</li>))}</ul></div><button onClick={() => onUpdateStatus(order.id, order.status)} className={`w-full py-4 rounded-2xl font-bold text-white shadow-lg active:scale-[0.98] transition-all bg-stone-800 hover:bg-stone-700`}>{getStatusLabel(order.status)}</button></div>))}</div></div>
   );
 };
 
@@ -438,8 +438,8 @@ export default function AdminApp() {
       refreshData();
   }, [refreshData]);
 
-  const handleUpdateOrderStatus = async (id: number) => {
-      await PedidoService.avancarStatus(id);
+  const handleUpdateOrderStatus = async (id: number, status: string) => {
+      await PedidoService.avancarStatus(id, status).catch(e => alert(e.message));
       refreshData();
   };
 
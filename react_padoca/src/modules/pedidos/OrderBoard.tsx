@@ -3,6 +3,8 @@ import { Clock, CheckCircle, ChefHat, AlertCircle, RefreshCw } from "lucide-reac
 import { PedidoService } from "../../services/api";
 import type { Pedido } from "../../types";
 
+const STATUS_ENCERRADOS = ['concluido', 'cancelado'];
+
 interface OrderBoardProps {
     viewMode: 'gestor' | 'cozinha' | 'balcao';
 }
@@ -24,17 +26,26 @@ export function OrderBoard({ viewMode }: OrderBoardProps) {
     };
 
     useEffect(() => {
-        carregarPedidos();
-        const interval = setInterval(carregarPedidos, 30000);
-        return () => clearInterval(interval);
-    }, [viewMode]); // Recarrega se mudar o modo
+        // O servidor envia a fila completa ao conectar e depois só as mudanças
+        const aplicarEvento = (e: MessageEvent) => {
+            const pedido: Pedido = JSON.parse(e.data);
+            setPedidos(atuais => {
+                const outros = atuais.filter(p => p.id !== pedido.id);
+                return STATUS_ENCERRADOS.includes(pedido.status.toLowerCase()) ? outros : [...outros, pedido];
+            });
+        };
+        return PedidoService.abrirStream({
+            'snapshot': (e) => setPedidos(JSON.parse(e.data)),
+            'pedido-criado': aplicarEvento,
+            'status-avancado': aplicarEvento,
+        });
+    }, [viewMode]); // Reconecta se mudar o modo
 
-    const avancarStatus = async (id: number) => {
+    const avancarStatus = async (pedido: Pedido) => {
         try {
-            await PedidoService.avancarStatus(id);
-            carregarPedidos();
-        } catch {
-            alert("Erro ao avançar status");
+            await PedidoService.avancarStatus(pedido.id, pedido.status);
+        } catch (e) {
+            alert(e instanceof Error ? e.message : "Erro ao avançar status");
         }
     };
 
@@ -68,7 +79,7 @@ export function OrderBoard({ viewMode }: OrderBoardProps) {
                         <span className="w-2 h-2 rounded-full bg-blue-500"></span> Recebidos
                     </h3>
                     {pedidos.filter(p => p.status === 'RECEBIDO').map(p => (
-                        <CardPedido key={p.id} pedido={p} color={getStatusColor('RECEBIDO')} onAdvance={() => avancarStatus(p.id)} btnLabel="Iniciar Preparo" />
+                        <CardPedido key={p.id} pedido={p} color={getStatusColor('RECEBIDO')} onAdvance={() => avancarStatus(p)} btnLabel="Iniciar Preparo" />
                     ))}
                     {pedidos.filter(p => p.status === 'RECEBIDO').length === 0 && <EmptyState msg="Nenhum pedido novo" />}
                 </div>
@@ -78,7 +89,7 @@ export function OrderBoard({ viewMode }: OrderBoardProps) {
                         <span className="w-2 h-2 rounded-full bg-amber-500"></span> Em Preparo
                     </h3>
                     {pedidos.filter(p => p.status === 'EM_PREPARO').map(p => (
-                        <CardPedido key={p.id} pedido={p} color={getStatusColor('EM_PREPARO')} onAdvance={() => avancarStatus(p.id)} btnLabel="Finalizar" />
+                        <CardPedido key={p.id} pedido={p} color={getStatusColor('EM_PREPARO')} onAdvance={() => avancarStatus(p)} btnLabel="Finalizar" />
                     ))}
                     {pedidos.filter(p => p.status === 'EM_PREPARO').length === 0 && <EmptyState msg="Cozinha livre" />}
                 </div>
@@ -88,7 +99,7 @@ export function OrderBoard({ viewMode }: OrderBoardProps) {
                         <span className="w-2 h-2 rounded-full bg-green-500"></span> Prontos
                     </h3>
                     {pedidos.filter(p => p.status === 'PRONTO').map(p => (
-                        <CardPedido key={p.id} pedido={p} color={getStatusColor('PRONTO')} onAdvance={() => avancarStatus(p.id)} btnLabel="Entregar" />
+                        <CardPedido key={p.id} pedido={p} color={getStatusColor('PRONTO')} onAdvance={() => avancarStatus(p)} btnLabel="Entregar" />
                     ))}
                     {pedidos.filter(p => p.status === 'PRONTO').length === 0 && <EmptyState msg="Nada para entregar" />}
                 </div>
@@ -313,7 +313,7 @@ const handleFeedbackSubmit = async (e: React.FormEvent) => {
                                     <div key={prod.id} className="bg-white dark:bg-stone-900 p-4 rounded-3xl shadow-sm hover:shadow-xl transition-all group border border-stone-100 dark:border-stone-800 flex flex-col h-full">
                                         <div className="h-48 rounded-2xl overflow-hidden mb-4 relative flex-shrink-0">
                                             <img 
-                                                src={`http://localhost:8080${prod.imagemUrl}`} 
+                                                src={`http://localhost:8080${prod.imagens?.card ?? prod.imagemUrl}`} 
                                                 className="w-full h-full object-cover group-hover:scale-110 transition-transform duration-500" 
                                                 onError={(e) => e.currentTarget.src = PLACEHOLDER_IMG} 
                                             />
@@ -431,7 +431,7 @@ const handleFeedbackSubmit = async (e: React.FormEvent) => {
 
                 {activeTab === 'encomendas' && (
                     <div className="space-y-12 animate-fade-in"><div className="text-center max-w-2xl mx-auto"><div className="w-16 h-16 bg-pink-100 dark:bg-pink-900/20 rounded-full flex items-center justify-center mx-auto mb-4 text-pink-500"><Gift size={32}/></div><h2 className="text-3xl font-bold mb-2 text-stone-800 dark:text-stone-100">Encomendas Especiais</h2><p className="text-stone-500">Torne sua festa inesquecível com nossos kits exclusivos ou personalize tudo do seu jeito.</p></div>{encomendaProducts.length > 0 && (<div><h3 className="font-bold text-xl text-stone-800 dark:text-stone-100 mb-6 flex items-center gap-2 border-b border-stone-200 dark:border-stone-800 pb-2"><Package size={22} className="text-pink-500"/> Kits Prontos</h3><div className="grid grid-cols-1 sm:grid-cols-2 lg:grid-cols-3 gap-6">{encomendaProducts.map(prod => (<div key={prod.id} className="bg-white dark:bg-stone-900 p-4 rounded-3xl shadow-sm hover:shadow-xl transition-all group border border-stone-100 dark:border-stone-800 flex flex-col h-full ring-2 ring-transparent hover:ring-pink-100 dark:hover:ring-pink-900/30"><div className="h-48 rounded-2xl overflow-hidden mb-4 relative flex-shrink-0">
-                        <img src={`http://localhost:8080${prod.imagemUrl}`} className="w-full h-full object-cover group-hover:scale-110 transition-transform duration-500" onError={(e) => e.currentTarget.src = PLACEHOLDER_IMG} />
+                        <img src={`http://localhost:8080${prod.imagens?.card ?? prod.imagemUrl}`} className="w-full h-full object-cover group-hover:scale-110 transition-transform duration-500" onError={(e) => e.currentTarget.src = PLACEHOLDER_IMG} />
                         </div><div className="flex justify-between items-start mb-2"><h3 className="font-bold text-lg leading-tight text-stone-800 dark:text-stone-100">{prod.nome}</h3><span className="bg-pink-50 dark:bg-pink-900/20 text-pink-600 dark:text-pink-400 px-2.5 py-1 rounded-lg text-xs font-bold whitespace-nowrap">R$ {prod.preco.toFixed(2)}</span></div><p className="text-sm text-stone-500 line-clamp-3 mb-4 flex-grow">{prod.descricao}</p><button onClick={() => addToCart(prod)} className="w-full bg-pink-500 text-white py-3.5 rounded-2xl font-bold hover:bg-pink-600 transition-all active:scale-95 shadow-lg shadow-pink-200 dark:shadow-none flex items-center justify-center gap-2"><ShoppingBag size={18} /> Encomendar Kit</button></div>))}</div></div>)}<div className="bg-white dark:bg-stone-900 rounded-[32px] p-8 md:p-12 border border-stone-100 dark:border-stone-800 shadow-xl relative overflow-hidden"><div className="absolute top-0 right-0 p-12 opacity-5 pointer-events-none"><PenTool size={180}/></div><div className="flex flex-col md:flex-row gap-8 items-start relative z-10"><div className="md:w-1/3"><div className="bg-pink-100 p-4 rounded-2xl w-fit text-pink-600 mb-4"><PenTool size={32}/></div><h3 className="text-2xl font-bold text-stone-800 dark:text-stone-100 mb-2">Monte do seu jeito</h3><p className="text-stone-500 leading-relaxed">Tem uma ideia específica? Descreva seu pedido, escolha a data e nós preparamos um orçamento especial para você.</p></div><div className="md:w-2/3 w-full bg-stone-50 dark:bg-stone-800/50 p-6 rounded-3xl border border-stone-100 dark:border-stone-700/50"><form className="space-y-5 text-left"><div><label className="text-xs font-bold text-stone-400 uppercase tracking-widest mb-1.5 block">Data da Festa</label><input type="date" className="w-full p-4 rounded-xl bg-white dark:bg-stone-800 border border-stone-200 dark:border-stone-700 outline-none focus:ring-2 focus:ring-pink-500/20 transition-all font-medium text-stone-700 dark:text-stone-200"/></div><div><label className="text-xs font-bold text-stone-400 uppercase tracking-widest mb-1.5 block">O que você precisa?</label><textarea className="w-full p-4 rounded-xl bg-white dark:bg-stone-800 border border-stone-200 dark:border-stone-700 outline-none h-32 focus:ring-2 focus:ring-pink-500/20 transition-all resize-none font-medium text-stone-700 dark:text-stone-200" placeholder="Ex: Bolo de chocolate para 20 pessoas..."></textarea></div><button type="button" className="w-full bg-stone-800 dark:bg-white text-white dark:text-stone-900 py-4 rounded-xl font-bold hover:opacity-90 transition-all shadow-lg active:scale-98 flex items-center justify-center gap-2"><Send size={18}/> Solicitar Orçamento</button></form></div></div></div></div>
                 )}
 
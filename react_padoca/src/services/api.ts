@@ -10,6 +10,7 @@ import type {
     LoginResponseDTO,
     Endereco,
     TipoUsuario,
+    CursorPage,
     Funcionario,
     PageResponse
 } from "../types";
@@ -127,6 +128,24 @@ export const ProdutoService = {
   }
 };
 
+// A mesma Idempotency-Key vale para todas as tentativas: reenvios após falha de rede não repetem a operação
+const enviarIdempotente = async (url: string, init: RequestInit, erro: string) => {
+  const headers = { ...getAuthHeader(), "Idempotency-Key": crypto.randomUUID() };
+  for (let tentativa = 1; ; tentativa++) {
+    try {
+      const res = await fetch(url, { ...init, headers });
+      if (!res.ok) throw new Error((await res.json().catch(() => null))?.message ?? erro);
+      return res.json();
+    } catch (e) {
+      if (!(e instanceof TypeError) || tentativa >= 3) throw e;
+      await new Promise(resolve => setTimeout(resolve, 300 * tentativa));
+    }
+  }
+};
+
+const transicionarPedido = (id: number, acao: 'avancar' | 'cancelar', status: string): Promise<Pedido> =>
+  enviarIdempotente(`${API_BASE}/pedidos/${id}/${acao}?de=${status.toUpperCase()}`, { method: 'PATCH' }, "Erro ao atualizar pedido");
+
 export const PedidoService = {
   listarFila: async (): Promise<Pedido[]> => {
     const res = await fetch(`${API_BASE}/pedidos`, {
@@ -135,20 +154,55 @@ export const PedidoService = {
     if (!res.ok) return [];
     return res.json();
   },
-  criar: async (pedido: any) => {
-    const res = await fetch(`${API_BASE}/pedidos`, {
-        method: "POST",
-        headers: getAuthHeader(),
-        body: JSON.stringify(pedido)
-    });
-    if (!res.ok) throw new Error("Erro ao criar pedido");
-    return res.json();
-  },
-  avancarStatus: async (id: number) => {
-    await fetch(`${API_BASE}/pedidos/${id}/avancar`, { 
-        method: 'PATCH',
-        headers: getAuthHeader()
-    });
+  criar: (pedido: any): Promise<Pedido> =>
+    enviarIdempotente(`${API_BASE}/pedidos`, { method: "POST", body: JSON.stringify(pedido) }, "Erro ao criar pedido"),
+  // 'status' é o que a tela está exibindo: se outro tablet já avançou, o backend responde 409
+  avancarStatus: (id: number, status: string) => transicionarPedido(id, 'avancar', status),
+  cancelar: (id: number, status: string) => transicionarPedido(id, 'cancelar', status),
+  // EventSource não envia cabeçalhos: cada conexão usa um ticket de uso único obtido com o token.
+  // A reconexão automática do navegador repetiria o ticket já gasto, então em caso de erro o stream
+  // é fechado e reaberto com ticket novo, retomando do último evento recebido. Devolve a função que encerra.
+  abrirStream: (eventos: Record<string, (e: MessageEvent) => void>): (() => void) => {
+    let stream: EventSource | null = null;
+    let ultimoId: string | null = null;
+    let encerrado = false;
+    let espera: ReturnType<typeof setTimeout> | undefined;
+
+    const reconectar = () => {
+      if (!encerrado) espera = setTimeout(conectar, 3000);
+    };
+    const conectar = async () => {
+      try {
+        const res = await fetch(`${API_BASE}/auth/stream-ticket`, { method: "POST", headers: getAuthHeader() });
+        if (!res.ok) throw new Error("Erro ao obter ticket do stream");
+        const { ticket } = await res.json();
+        if (encerrado) return;
+
+        const params = new URLSearchParams({ ticket });
+        if (ultimoId) params.set('lastEventId', ultimoId);
+        const atual = new EventSource(`${API_BASE}/pedidos/stream?${params}`);
+        Object.entries(eventos).forEach(([nome, tratar]) =>
+          atual.addEventListener(nome, (e) => {
+            const mensagem = e as MessageEvent;
+            if (mensagem.lastEventId) ultimoId = mensagem.lastEventId;
+            tratar(mensagem);
+          }));
+        atual.onerror = () => {
+          atual.close();
+          reconectar();
+        };
+        stream = atual;
+      } catch {
+        reconectar();
+      }
+    };
+
+    conectar();
+    return () => {
+      encerrado = true;
+      clearTimeout(espera);
+      stream?.close();
+    };
   }
 };
 
@@ -162,11 +216,21 @@ export const FeedbackService = {
         if(!res.ok) throw new Error("Erro ao enviar feedback");
         return res.json();
     },
-    listar: async () => {
-        const res = await fetch(`${API_BASE}/feedbacks`, {
+    // Página mais recente primeiro; passe o proximoCursor para a seguinte
+    listar: async (cursor?: string, limit = 100): Promise<CursorPage<any>> => {
+        let url = `${API_BASE}/feedbacks?limit=${limit}`;
+        if (cursor) url += `&cursor=${encodeURIComponent(cursor)}`;
+        const res = await fetch(url, {
+            headers: getAuthHeader()
+        });
+        if(!res.ok) return { itens: [], proximoCursor: null, temMais: false, total: null };
+        return res.json();
+    },
+    estatisticas: async () => {
+        const res = await fetch(`${API_BASE}/feedbacks/estatisticas`, {
             headers: getAuthHeader()
         });
-        if(!res.ok) return [];
+        if(!res.ok) return null;
         return res.json();
     }
 };
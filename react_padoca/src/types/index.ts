@@ -13,12 +13,19 @@ export interface CategoriaDTO {
     descricao?: string;
 }
 
+export interface ImagemVariantes {
+    thumb: string;
+    card: string;
+    full: string;
+}
+
 export interface Produto {
     id: number;
     nome: string;
     descricao: string;
     preco: number;
     imagemUrl: string;
+    imagens?: ImagemVariantes | null;
     ativo: boolean;
     categoria: Categoria | null;
     quantidadeEstoque: number;
@@ -29,7 +36,7 @@ export interface Pedido {
     id: number;
     cliente: string;
     status: string;
-    tipo: 'BALCAO' | 'ENCOMENDA';
+    tipo: 'BALCAO' | 'ENTREGA' | 'ENCOMENDA';
     total: number;
     dataHora: string;
     descricaoItens: string[];
@@ -73,6 +80,13 @@ export interface LoginResponseDTO {
     usuario: Usuario;
 }
 
+export interface CursorPage<T> {
+    itens: T[];
+    proximoCursor: string | null;
+    temMais: boolean;
+    total: number | null;
+}
+
 export interface PageResponse<T> {
     content: T[];
     totalElements: number;